@@ -1,5 +1,6 @@
 package meghanada.analyze;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 import java.util.ArrayDeque;
@@ -10,7 +11,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -24,6 +25,8 @@ public class BlockScope extends Scope {
   public final List<ExpressionScope> expressions = new ArrayList<>(16);
   public final Deque<ExpressionScope> currentExpr = new ArrayDeque<>(8);
   public BlockScope parent;
+  private transient volatile LineIndex<BlockScope> scopeIndex;
+  private transient volatile LineIndex<ExpressionScope> expressionIndex;
 
   BlockScope(final int pos, final Range range) {
     super(pos, range);
@@ -149,11 +152,45 @@ public class BlockScope extends Scope {
 
   protected Optional<ExpressionScope> getExpression(final int line) {
     log.traceEntry("line={} expressions={}", line, this.expressions);
-    final Optional<ExpressionScope> result =
-        this.expressions.stream().filter(expr -> expr.contains(line)).findFirst();
+    final Optional<ExpressionScope> result = Optional.ofNullable(expressionIndex().first(line));
     return log.traceExit(result);
   }
 
+  /** Returns the first child block containing the line. */
+  @Nullable
+  public BlockScope getChildScope(final int line) {
+    return scopeIndex().first(line);
+  }
+
+  /** Returns the innermost child block containing the line. */
+  @Nullable
+  public Scope getInnerScope(final int line) {
+    final BlockScope child = this.getChildScope(line);
+    if (isNull(child)) {
+      return null;
+    }
+    final Scope inScope = child.getInnerScope(line);
+    return nonNull(inScope) ? inScope : child;
+  }
+
+  private LineIndex<BlockScope> scopeIndex() {
+    LineIndex<BlockScope> index = this.scopeIndex;
+    if (isNull(index)) {
+      index = LineIndex.of(this.scopes, bs -> bs.range);
+      this.scopeIndex = index;
+    }
+    return index;
+  }
+
+  LineIndex<ExpressionScope> expressionIndex() {
+    LineIndex<ExpressionScope> index = this.expressionIndex;
+    if (isNull(index)) {
+      index = LineIndex.of(this.expressions, expr -> expr.range);
+      this.expressionIndex = index;
+    }
+    return index;
+  }
+
   public List<BlockScope> getScopes() {
     return scopes;
   }
@@ -161,21 +198,17 @@ public class BlockScope extends Scope {
   @Override
   public List<FieldAccess> getFieldAccess(int line) {
     if (this.contains(line)) {
-      for (final BlockScope bs : scopes) {
-        if (bs.contains(line)) {
-          for (final ExpressionScope expression : bs.expressions) {
-            final List<FieldAccess> faList = expression.getFieldAccess(line);
-            if (!faList.isEmpty()) {
-              return faList;
-            }
+      final BlockScope bs = this.getChildScope(line);
+      if (nonNull(bs)) {
+        for (final ExpressionScope expression : bs.expressionIndex().containing(line)) {
+          final List<FieldAccess> faList = expression.getFieldAccess(line);
+          if (!faList.isEmpty()) {
+            return faList;
           }
-          return bs.fieldAccesses
-              .stream()
-              .filter(fa -> fa.range.begin.line == line)
-              .collect(Collectors.toList());
         }
+        return bs.fieldAccessesAt(line);
       }
-      for (final ExpressionScope expression : this.expressions) {
+      for (final ExpressionScope expression : this.expressionIndex().containing(line)) {
         final List<FieldAccess> faList = expression.getFieldAccess(line);
         if (!faList.isEmpty()) {
           return faList;
@@ -187,14 +220,14 @@ public class BlockScope extends Scope {
 
   @Override
   public List<MethodCall> getMethodCall(final int line) {
-    for (final BlockScope bs : this.scopes) {
+    for (final BlockScope bs : this.scopeIndex().containing(line)) {
       final List<MethodCall> methodCalls = bs.getMethodCall(line);
       if (nonNull(methodCalls) && !methodCalls.isEmpty()) {
         return methodCalls;
       }
     }
 
-    for (final ExpressionScope es : this.expressions) {
+    for (final ExpressionScope es : this.expressionIndex().containing(line)) {
       final List<MethodCall> methodCalls = es.getMethodCall(line);
       if (nonNull(methodCalls) && !methodCalls.isEmpty()) {
         return methodCalls;
@@ -0,0 +1,43 @@
+package meghanada.analyze;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * Records the class files a compilation task writes to its class output, so the class index can be
+ * updated from exactly those files instead of walking the output directory.
+ */
+final class ClassOutputRecorder extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+  private final Set<File> classFiles = ConcurrentHashMap.newKeySet(32);
+
+  ClassOutputRecorder(final StandardJavaFileManager fileManager) {
+    super(fileManager);
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForOutput(
+      final Location location,
+      final String className,
+      final JavaFileObject.Kind kind,
+      final FileObject sibling)
+      throws IOException {
+    final JavaFileObject fileObject =
+        super.getJavaFileForOutput(location, className, kind, sibling);
+    if (kind == JavaFileObject.Kind.CLASS && location == StandardLocation.CLASS_OUTPUT) {
+      this.classFiles.add(new File(fileObject.toUri()));
+    }
+    return fileObject;
+  }
+
+  Set<File> getClassFiles() {
+    return this.classFiles;
+  }
+}
@@ -0,0 +1,164 @@
+package meghanada.analyze;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import meghanada.utils.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Splits a compile target into shards that can be compiled by independent javac tasks. Files of a
+ * package stay together, and packages that reference each other according to the caller map are
+ * grouped as long as the group still fits in a shard.
+ */
+public final class CompileShards {
+
+  private static final Logger log = LogManager.getLogger(CompileShards.class);
+  private static final int MIN_FILES_PER_SHARD = 32;
+
+  private CompileShards() {}
+
+  public static List<List<File>> partition(
+      final List<File> files,
+      final Collection<File> sourceRoots,
+      final Map<String, Set<String>> callerMap,
+      final int shards)
+      throws IOException {
+
+    final int size = files.size();
+    final int count = Math.min(shards, size / MIN_FILES_PER_SHARD);
+    if (count <= 1) {
+      return Collections.singletonList(files);
+    }
+
+    final Map<String, Integer> classToFile = new HashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      final String fqcn = toFQCN(files.get(i), sourceRoots);
+      if (nonNull(fqcn)) {
+        classToFile.put(fqcn, i);
+      }
+    }
+
+    final int[] parent = new int[size];
+    final int[] weight = new int[size];
+    for (int i = 0; i < size; i++) {
+      parent[i] = i;
+      weight[i] = 1;
+    }
+    final Map<File, Integer> packages = new HashMap<>(64);
+    for (int i = 0; i < size; i++) {
+      final Integer first = packages.putIfAbsent(files.get(i).getParentFile(), i);
+      if (nonNull(first)) {
+        union(parent, weight, first, i, size);
+      }
+    }
+    final int capacity = (size + count - 1) / count;
+    callerMap.forEach(
+        (clazz, callers) -> {
+          final Integer callee = findFile(classToFile, clazz);
+          if (isNull(callee)) {
+            return;
+          }
+          for (final String caller : callers) {
+            final Integer from = findFile(classToFile, caller);
+            if (nonNull(from)) {
+              union(parent, weight, callee, from, capacity);
+            }
+          }
+        });
+
+    final Map<Integer, List<File>> components = new HashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      components.computeIfAbsent(find(parent, i), k -> new ArrayList<>(4)).add(files.get(i));
+    }
+
+    // largest component first into the smallest shard
+    final List<List<File>> sorted = new ArrayList<>(components.values());
+    sorted.sort(Comparator.comparingInt((List<File> c) -> c.size()).reversed());
+    final List<List<File>> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(new ArrayList<>(size / count + 1));
+    }
+    for (final List<File> component : sorted) {
+      result.stream().min(Comparator.comparingInt(List::size)).get().addAll(component);
+    }
+    result.removeIf(List::isEmpty);
+    log.debug(
+        "partition {} files into {} shards from {} components",
+        size,
+        result.size(),
+        components.size());
+    return result;
+  }
+
+  private static String toFQCN(final File file, final Collection<File> sourceRoots)
+      throws IOException {
+    final Path path = file.getCanonicalFile().toPath();
+    for (final File root : sourceRoots) {
+      final Path rootPath = root.getCanonicalFile().toPath();
+      if (path.startsWith(rootPath)) {
+        final String rel = rootPath.relativize(path).toString();
+        if (!rel.endsWith(FileUtils.JAVA_EXT)) {
+          return null;
+        }
+        return rel.substring(0, rel.length() - FileUtils.JAVA_EXT.length())
+            .replace(File.separatorChar, '.');
+      }
+    }
+    return null;
+  }
+
+  private static Integer findFile(final Map<String, Integer> classToFile, final String name) {
+    String fqcn = name;
+    final int generics = fqcn.indexOf('<');
+    if (generics > 0) {
+      fqcn = fqcn.substring(0, generics);
+    }
+    final int inner = fqcn.indexOf('$');
+    if (inner > 0) {
+      fqcn = fqcn.substring(0, inner);
+    }
+    while (true) {
+      final Integer index = classToFile.get(fqcn);
+      if (nonNull(index)) {
+        return index;
+      }
+      // nested class written with dots
+      final int dot = fqcn.lastIndexOf('.');
+      if (dot < 0) {
+        return null;
+      }
+      fqcn = fqcn.substring(0, dot);
+    }
+  }
+
+  private static int find(final int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private static void union(
+      final int[] parent, final int[] weight, final int a, final int b, final int capacity) {
+    final int ra = find(parent, a);
+    final int rb = find(parent, b);
+    if (ra != rb && weight[ra] + weight[rb] <= capacity) {
+      parent[ra] = rb;
+      weight[rb] += weight[ra];
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package meghanada.analyze;
+
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps standard file managers alive between compilations. A file manager caches the archives it
+ * has opened, so reusing one for the same classpath skips re-opening and re-indexing every jar.
+ * Idle file managers are kept per classpath and dropped when the classpath is no longer used.
+ * Managers borrowed before a {@link #clear()} are closed on release instead of pooled.
+ */
+final class FileManagerPool {
+
+  private static final Logger log = LogManager.getLogger(FileManagerPool.class);
+  private static final int MAX_CLASSPATHS = 4;
+  private static final int MAX_IDLE = 4;
+
+  private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+  private final LinkedHashMap<String, Deque<StandardJavaFileManager>> idle =
+      new LinkedHashMap<>(8, 0.75f, true);
+  // borrowed manager -> generation it was borrowed in, guarded by idle
+  private final Map<StandardJavaFileManager, Long> borrowed = new IdentityHashMap<>(8);
+  private long generation;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  JavaCompiler getCompiler() {
+    return compiler;
+  }
+
+  StandardJavaFileManager borrow(final String classpath) {
+    final long current;
+    synchronized (this.idle) {
+      final Deque<StandardJavaFileManager> managers = this.idle.get(classpath);
+      if (nonNull(managers) && !managers.isEmpty()) {
+        this.hits.incrementAndGet();
+        final StandardJavaFileManager fileManager = managers.pop();
+        this.borrowed.put(fileManager, this.generation);
+        return fileManager;
+      }
+      current = this.generation;
+    }
+    this.misses.incrementAndGet();
+    log.debug("create file manager");
+    final StandardJavaFileManager fileManager =
+        this.compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    synchronized (this.idle) {
+      this.borrowed.put(fileManager, current);
+    }
+    return fileManager;
+  }
+
+  void release(final String classpath, final StandardJavaFileManager fileManager) {
+    synchronized (this.idle) {
+      final Long borrowedIn = this.borrowed.remove(fileManager);
+      if (nonNull(borrowedIn) && borrowedIn != this.generation) {
+        // cleared while borrowed, its cached archives may be stale
+        log.debug("close file manager of generation {}", borrowedIn);
+      } else {
+        final Deque<StandardJavaFileManager> managers =
+            this.idle.computeIfAbsent(classpath, k -> new ArrayDeque<>(MAX_IDLE));
+        if (managers.size() < MAX_IDLE) {
+          managers.push(fileManager);
+          this.evict();
+          return;
+        }
+      }
+    }
+    close(fileManager);
+  }
+
+  void discard(final StandardJavaFileManager fileManager) {
+    synchronized (this.idle) {
+      this.borrowed.remove(fileManager);
+    }
+    close(fileManager);
+  }
+
+  void clear() {
+    synchronized (this.idle) {
+      this.generation++;
+      this.idle.values().forEach(managers -> managers.forEach(FileManagerPool::close));
+      this.idle.clear();
+    }
+  }
+
+  Map<String, Object> getStats() {
+    final Map<String, Object> stats = new HashMap<>(4);
+    final long hit = this.hits.get();
+    final long miss = this.misses.get();
+    stats.put("file-manager-hits", hit);
+    stats.put("file-manager-misses", miss);
+    stats.put("file-manager-hit-rate", hit + miss == 0 ? 0.0 : (double) hit / (hit + miss));
+    synchronized (this.idle) {
+      stats.put("file-manager-idle", this.idle.values().stream().mapToInt(Deque::size).sum());
+    }
+    return stats;
+  }
+
+  private void evict() {
+    // least recently used classpath first
+    final Iterator<Map.Entry<String, Deque<StandardJavaFileManager>>> it =
+        this.idle.entrySet().iterator();
+    while (this.idle.size() > MAX_CLASSPATHS && it.hasNext()) {
+      it.next().getValue().forEach(FileManagerPool::close);
+      it.remove();
+    }
+  }
+
+  private static void close(final StandardJavaFileManager fileManager) {
+    try {
+      fileManager.close();
+    } catch (IOException e) {
+      log.catching(e);
+    }
+  }
+}
@@ -1,7 +1,10 @@
 package meghanada.analyze;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.util.JavacTask;
 import com.sun.tools.javac.api.JavacTaskImpl;
@@ -11,21 +14,26 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
-import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
-import javax.tools.ToolProvider;
+import javax.tools.StandardLocation;
 import meghanada.config.Config;
 import meghanada.reflect.asm.CachedASMReflector;
 import org.apache.logging.log4j.LogManager;
@@ -34,6 +42,7 @@ import org.apache.logging.log4j.Logger;
 public class JavaAnalyzer {
 
   private static final Logger log = LogManager.getLogger(JavaAnalyzer.class);
+  private static final FileManagerPool fileManagerPool = new FileManagerPool();
 
   private String compileSource = "1.8";
   private String compileTarget = "1.8";
@@ -108,6 +117,62 @@ public class JavaAnalyzer {
     return this.runAnalyzeAndCompile(classpath, out, files, generate, handler);
   }
 
+  public CompileResult analyzeAndCompile(
+      final List<List<File>> shards,
+      final String classpath,
+      final String sourcepath,
+      final String out,
+      final boolean generate,
+      @Nullable final SourceAnalyzedHandler handler)
+      throws IOException {
+
+    if (shards.size() <= 1) {
+      final List<File> files = shards.isEmpty() ? Collections.emptyList() : shards.get(0);
+      return this.analyzeAndCompile(files, classpath, out, generate, handler);
+    }
+
+    final File tempOut = new File(out);
+    if (!tempOut.exists() && !tempOut.mkdirs()) {
+      log.warn("fail mkdirs path:{}", tempOut);
+    }
+    log.trace("start compile classpath={} shards={} output={}", classpath, shards, out);
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(shards.size());
+    try {
+      final List<Future<Analyzed>> futures = new ArrayList<>(shards.size());
+      for (final List<File> shard : shards) {
+        futures.add(
+            executorService.submit(
+                () -> this.runAnalyze(classpath, sourcepath, out, shard, generate)));
+      }
+      final Map<File, Source> analyzedMap = new HashMap<>(64);
+      final List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>(16);
+      final Set<File> errorFiles = new HashSet<>(8);
+      final Set<File> classFiles = new HashSet<>(64);
+      for (final Future<Analyzed> future : futures) {
+        final Analyzed analyzed = future.get();
+        analyzedMap.putAll(analyzed.analyzedMap);
+        diagnostics.addAll(analyzed.diagnostics);
+        errorFiles.addAll(analyzed.errorFiles);
+        classFiles.addAll(analyzed.classFiles);
+      }
+      return complete(
+          new Analyzed(analyzedMap, diagnostics, errorFiles, classFiles), out, generate, handler);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      Throwables.throwIfUnchecked(cause);
+      throw new IOException(cause);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   private CompileResult runAnalyzeAndCompile(
       final String classpath,
       final String out,
@@ -115,70 +180,152 @@ public class JavaAnalyzer {
       final boolean generate,
       @Nullable final SourceAnalyzedHandler handler)
       throws IOException {
+    final Analyzed analyzed = this.runAnalyze(classpath, null, out, compileFiles, generate);
+    return complete(analyzed, out, generate, handler);
+  }
+
+  private Analyzed runAnalyze(
+      final String classpath,
+      @Nullable final String sourcepath,
+      final String out,
+      final List<File> compileFiles,
+      final boolean generate)
+      throws IOException {
 
-    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final JavaCompiler compiler = fileManagerPool.getCompiler();
     final Config config = Config.load();
     final TreeAnalyzer treeAnalyzer = new TreeAnalyzer();
-    try (final StandardJavaFileManager fileManager =
-        compiler.getStandardFileManager(null, null, Charset.forName("UTF-8"))) {
+    final StandardJavaFileManager fileManager = fileManagerPool.borrow(classpath);
+    boolean reusable = false;
+    try {
+      // locations are set on every use, a pooled file manager keeps them between tasks
+      fileManager.setLocation(StandardLocation.CLASS_PATH, toFiles(classpath));
+      fileManager.setLocation(
+          StandardLocation.SOURCE_PATH, nonNull(sourcepath) ? toFiles(sourcepath) : null);
+      fileManager.setLocation(
+          StandardLocation.CLASS_OUTPUT, Collections.singletonList(new File(out)));
+
       final Iterable<? extends JavaFileObject> compilationUnits =
           fileManager.getJavaFileObjectsFromFiles(compileFiles);
       final DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
       final List<String> compileOptions =
-          Arrays.asList(
-              "-cp",
-              classpath,
-              "-g",
-              config.getJavacArg(),
-              "-d",
-              out,
-              "-source",
-              this.compileSource,
-              "-target",
-              this.compileTarget,
-              "-encoding",
-              "UTF-8");
+          new ArrayList<>(
+              Arrays.asList(
+                  "-g",
+                  config.getJavacArg(),
+                  "-source",
+                  this.compileSource,
+                  "-target",
+                  this.compileTarget,
+                  "-encoding",
+                  "UTF-8"));
+      if (nonNull(sourcepath)) {
+        // other shards are read from source but generated by their own task
+        compileOptions.add("-implicit:none");
+      }
 
+      final ClassOutputRecorder recorder = new ClassOutputRecorder(fileManager);
       final JavaCompiler.CompilationTask compilerTask =
           compiler.getTask(
-              null, fileManager, diagnosticCollector, compileOptions, null, compilationUnits);
+              null, recorder, diagnosticCollector, compileOptions, null, compilationUnits);
 
       final JavacTask javacTask = (JavacTask) compilerTask;
 
       final Iterable<? extends CompilationUnitTree> parsedIter = javacTask.parse();
       javacTask.analyze();
 
-      final List<Diagnostic<? extends JavaFileObject>> diagnostics =
-          diagnosticCollector.getDiagnostics();
+      List<Diagnostic<? extends JavaFileObject>> diagnostics = diagnosticCollector.getDiagnostics();
+      if (nonNull(sourcepath)) {
+        diagnostics = JavaAnalyzer.filterDiagnostics(diagnostics, compileFiles);
+      }
       final Set<File> errorFiles = JavaAnalyzer.getErrorFiles(diagnostics);
 
       final Map<File, Source> analyzedMap = treeAnalyzer.analyze(parsedIter, errorFiles);
 
-      if (generate && !Config.load().useExternalBuilder()) {
+      if (generate && !config.useExternalBuilder()) {
         javacTask.generate();
-        CachedASMReflector.getInstance().updateClassIndexFromDirectory();
       }
+      fileManager.flush();
+      reusable = true;
+      return new Analyzed(analyzedMap, diagnostics, errorFiles, recorder.getClassFiles());
+    } finally {
+      if (reusable) {
+        fileManagerPool.release(classpath, fileManager);
+      } else {
+        fileManagerPool.discard(fileManager);
+      }
+    }
+  }
+
+  private static List<File> toFiles(final String path) {
+    final List<File> files = new ArrayList<>(32);
+    for (final String entry : Splitter.on(File.pathSeparator).omitEmptyStrings().split(path)) {
+      files.add(new File(entry));
+    }
+    return files;
+  }
 
-      if (nonNull(handler)) {
-        analyzedMap
-            .values()
-            .parallelStream()
-            .forEach(
-                source -> {
-                  try {
-                    handler.analyzed(source);
-                  } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                  }
-                });
-        handler.complete();
+  public static Map<String, Object> getFileManagerStats() {
+    return fileManagerPool.getStats();
+  }
+
+  public static void clearFileManagers() {
+    fileManagerPool.clear();
+  }
+
+  private static List<Diagnostic<? extends JavaFileObject>> filterDiagnostics(
+      final List<Diagnostic<? extends JavaFileObject>> diagnostics, final List<File> files)
+      throws IOException {
+    // a shard reports only its own files, the others are reported by their owner
+    final Set<File> owned = new HashSet<>(files.size());
+    for (final File file : files) {
+      owned.add(file.getCanonicalFile());
+    }
+    final List<Diagnostic<? extends JavaFileObject>> result = new ArrayList<>(diagnostics.size());
+    for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+      final JavaFileObject fileObject = diagnostic.getSource();
+      if (isNull(fileObject)
+          || owned.contains(new File(fileObject.toUri().normalize()).getCanonicalFile())) {
+        result.add(diagnostic);
       }
+    }
+    return result;
+  }
+
+  private static CompileResult complete(
+      final Analyzed analyzed,
+      final String out,
+      final boolean generate,
+      @Nullable final SourceAnalyzedHandler handler)
+      throws IOException {
+
+    if (generate && !Config.load().useExternalBuilder()) {
+      // only what this compilation wrote, not the whole output directory
+      CachedASMReflector.getInstance()
+          .updateClassIndexFromFiles(new File(out), analyzed.classFiles);
+    }
 
-      final boolean success = errorFiles.size() == 0;
-      CompileResult result = new CompileResult(success, analyzedMap, diagnostics, errorFiles);
-      // ProjectDatabaseHelper.saveCompileResult(result);
-      return result;
+    final Map<File, Source> analyzedMap = analyzed.analyzedMap;
+    if (nonNull(handler)) {
+      analyzedMap
+          .values()
+          .parallelStream()
+          .forEach(
+              source -> {
+                try {
+                  handler.analyzed(source);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+      handler.complete();
     }
+
+    final boolean success = analyzed.errorFiles.size() == 0;
+    CompileResult result =
+        new CompileResult(success, analyzedMap, analyzed.diagnostics, analyzed.errorFiles);
+    // ProjectDatabaseHelper.saveCompileResult(result);
+    return result;
   }
 
   public interface SourceAnalyzedHandler {
@@ -186,4 +333,23 @@ public class JavaAnalyzer {
 
     void complete() throws IOException;
   }
+
+  private static class Analyzed {
+
+    private final Map<File, Source> analyzedMap;
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    private final Set<File> errorFiles;
+    private final Set<File> classFiles;
+
+    Analyzed(
+        final Map<File, Source> analyzedMap,
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics,
+        final Set<File> errorFiles,
+        final Set<File> classFiles) {
+      this.analyzedMap = analyzedMap;
+      this.diagnostics = diagnostics;
+      this.errorFiles = errorFiles;
+      this.classFiles = classFiles;
+    }
+  }
 }
@@ -0,0 +1,138 @@
+package meghanada.analyze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable line index over ranged elements. Elements are sorted by begin line with the running
+ * maximum end line kept alongside, so line queries are a binary search plus a short backward scan.
+ * Results keep the order of the source collection.
+ */
+final class LineIndex<T> {
+
+  private final List<T> items;
+  private final int[] order;
+  private final int[] begins;
+  private final int[] ends;
+  private final int[] maxEnds;
+
+  private LineIndex(final List<T> items, final int[] order, final int[] begins, final int[] ends) {
+    this.items = items;
+    this.order = order;
+    this.begins = begins;
+    this.ends = ends;
+    this.maxEnds = new int[ends.length];
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < ends.length; i++) {
+      max = Math.max(max, ends[i]);
+      this.maxEnds[i] = max;
+    }
+  }
+
+  static <T> LineIndex<T> of(
+      final Collection<? extends T> source, final Function<? super T, Range> rangeOf) {
+    final int size = source.size();
+    final List<T> list = new ArrayList<>(source);
+    final Integer[] idx = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      idx[i] = i;
+    }
+    // stable, equal begin lines keep the source order
+    Arrays.sort(
+        idx,
+        (a, b) ->
+            Integer.compare(
+                rangeOf.apply(list.get(a)).begin.line, rangeOf.apply(list.get(b)).begin.line));
+
+    final List<T> items = new ArrayList<>(size);
+    final int[] order = new int[size];
+    final int[] begins = new int[size];
+    final int[] ends = new int[size];
+    for (int i = 0; i < size; i++) {
+      final T t = list.get(idx[i]);
+      final Range range = rangeOf.apply(t);
+      items.add(t);
+      order[i] = idx[i];
+      begins[i] = range.begin.line;
+      ends[i] = range.end.line;
+    }
+    return new LineIndex<>(Collections.unmodifiableList(items), order, begins, ends);
+  }
+
+  /** Returns the first element whose range contains the line. */
+  @Nullable
+  T first(final int line) {
+    int found = -1;
+    for (int i = upperBound(line) - 1; i >= 0 && this.maxEnds[i] >= line; i--) {
+      if (this.ends[i] >= line && (found < 0 || this.order[i] < this.order[found])) {
+        found = i;
+      }
+    }
+    return found < 0 ? null : this.items.get(found);
+  }
+
+  /** Returns all elements whose range contains the line. */
+  List<T> containing(final int line) {
+    List<Integer> found = null;
+    for (int i = upperBound(line) - 1; i >= 0 && this.maxEnds[i] >= line; i--) {
+      if (this.ends[i] >= line) {
+        if (found == null) {
+          found = new ArrayList<>(2);
+        }
+        found.add(i);
+      }
+    }
+    if (found == null) {
+      return Collections.emptyList();
+    }
+    found.sort((a, b) -> this.order[a] - this.order[b]);
+    final List<T> result = new ArrayList<>(found.size());
+    for (final int i : found) {
+      result.add(this.items.get(i));
+    }
+    return result;
+  }
+
+  /** Returns the elements that begin on the line, as a view. */
+  List<T> beginningAt(final int line) {
+    final int from = lowerBound(line);
+    final int to = upperBound(line);
+    if (from >= to) {
+      return Collections.emptyList();
+    }
+    return this.items.subList(from, to);
+  }
+
+  private int lowerBound(final int line) {
+    int lo = 0;
+    int hi = this.begins.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (this.begins[mid] < line) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private int upperBound(final int line) {
+    int lo = 0;
+    int hi = this.begins.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (this.begins[mid] <= line) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+}
@@ -12,7 +12,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -26,6 +25,10 @@ public abstract class Scope implements Serializable {
   public final List<MethodCall> methodCalls = new ArrayList<>(16);
   public int pos;
   public Range range;
+  // line indexes are built on the first query, the scope must be fully analyzed by then
+  private transient volatile LineIndex<FieldAccess> fieldAccessIndex;
+  private transient volatile LineIndex<MethodCall> methodCallIndex;
+  private transient volatile LineIndex<Variable> variableIndex;
 
   public Scope(final int pos, final Range range) {
     this.pos = pos;
@@ -42,19 +45,14 @@ public abstract class Scope implements Serializable {
   }
 
   public static Scope getInnerScope(final int line, final List<? extends Scope> scopeList) {
-    for (Scope scope : scopeList) {
-      if (scope.contains(line)) {
-        if (scope instanceof BlockScope) {
-          final BlockScope bs = (BlockScope) scope;
-          final Scope inScope = Scope.getInnerScope(line, bs.scopes);
-          if (nonNull(inScope)) {
-            return inScope;
-          }
-        }
-        return scope;
+    final Scope scope = Scope.getScope(line, scopeList);
+    if (nonNull(scope) && scope instanceof BlockScope) {
+      final Scope inScope = ((BlockScope) scope).getInnerScope(line);
+      if (nonNull(inScope)) {
+        return inScope;
       }
     }
-    return null;
+    return scope;
   }
 
   public void addFieldAccess(final FieldAccess fieldAccess) {
@@ -149,17 +147,47 @@ public abstract class Scope implements Serializable {
   }
 
   public List<MethodCall> getMethodCall(final int line) {
-    return this.methodCalls
-        .stream()
-        .filter(mc -> mc.range.begin.line == line)
-        .collect(Collectors.toList());
+    return this.methodCallsAt(line);
   }
 
   public List<FieldAccess> getFieldAccess(final int line) {
-    return this.fieldAccesses
-        .stream()
-        .filter(fa -> fa.range.begin.line == line)
-        .collect(Collectors.toList());
+    return this.fieldAccessesAt(line);
+  }
+
+  public Optional<Variable> getVariable(final int line, final int col) {
+    LineIndex<Variable> index = this.variableIndex;
+    if (isNull(index)) {
+      index = LineIndex.of(this.getVariables(), v -> v.range);
+      this.variableIndex = index;
+    }
+    for (final Variable v : index.beginningAt(line)) {
+      if (v.range.containsColumn(col)) {
+        return Optional.of(v);
+      }
+    }
+    return Optional.empty();
+  }
+
+  protected List<MethodCall> methodCallsAt(final int line) {
+    return this.methodCallIndex().beginningAt(line);
+  }
+
+  protected List<FieldAccess> fieldAccessesAt(final int line) {
+    LineIndex<FieldAccess> index = this.fieldAccessIndex;
+    if (isNull(index)) {
+      index = LineIndex.of(this.fieldAccesses, fa -> fa.range);
+      this.fieldAccessIndex = index;
+    }
+    return index.beginningAt(line);
+  }
+
+  LineIndex<MethodCall> methodCallIndex() {
+    LineIndex<MethodCall> index = this.methodCallIndex;
+    if (isNull(index)) {
+      index = LineIndex.of(this.methodCalls, mc -> mc.range);
+      this.methodCallIndex = index;
+    }
+    return index;
   }
 
   public Map<String, Variable> getDeclaratorMap() {
@@ -0,0 +1,92 @@
+package meghanada.analyze;
+
+import static java.util.Objects.nonNull;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Digest of the part of a class that other sources compile against: modifiers, type parameters,
+ * supertypes and every non-private member with its type and constant value. Method bodies and
+ * private members do not contribute, so a body-only edit keeps the digest stable.
+ */
+final class SignatureDigest {
+
+  private SignatureDigest() {}
+
+  static String of(final Symbol.ClassSymbol sym) {
+    final List<String> lines = new ArrayList<>(32);
+    lines.add(sym.getKind() + " " + sym.getModifiers() + " " + sym.type);
+    lines.add("extends " + sym.getSuperclass());
+    lines.add("implements " + sym.getInterfaces());
+
+    final List<String> members = new ArrayList<>(32);
+    for (final Symbol member : sym.getEnclosedElements()) {
+      if (member.getModifiers().contains(Modifier.PRIVATE)
+          || (member.flags() & Flags.SYNTHETIC) != 0) {
+        continue;
+      }
+      final StringBuilder sb = new StringBuilder(64);
+      sb.append(member.getKind())
+          .append(' ')
+          .append(member.getModifiers())
+          .append(' ')
+          .append(member.getSimpleName());
+      if (member instanceof ExecutableElement) {
+        final ExecutableElement method = (ExecutableElement) member;
+        sb.append(' ').append(member.type).append(" throws ").append(method.getThrownTypes());
+        if (nonNull(method.getDefaultValue())) {
+          sb.append(" default ").append(method.getDefaultValue());
+        }
+      } else if (member instanceof VariableElement) {
+        sb.append(' ').append(member.type);
+        final Object value = ((VariableElement) member).getConstantValue();
+        if (nonNull(value)) {
+          // constants are inlined into callers
+          sb.append(" = ").append(value);
+        }
+      }
+      members.add(sb.toString());
+    }
+    Collections.sort(members);
+    lines.addAll(members);
+
+    final Hasher hasher = Hashing.murmur3_128().newHasher();
+    for (final String line : lines) {
+      hasher.putString(line, StandardCharsets.UTF_8).putByte((byte) '\n');
+    }
+    return hasher.hash().toString();
+  }
+
+  static Set<String> supertypes(final Symbol.ClassSymbol sym) {
+    final Set<String> result = new HashSet<>(4);
+    addSupertype(result, sym.getSuperclass());
+    for (final Type type : sym.getInterfaces()) {
+      addSupertype(result, type);
+    }
+    return result;
+  }
+
+  private static void addSupertype(final Set<String> result, final TypeMirror mirror) {
+    if (mirror.getKind() == TypeKind.DECLARED) {
+      final Type type = (Type) mirror;
+      if (nonNull(type.tsym)) {
+        result.add(type.tsym.flatName().toString());
+      }
+    }
+  }
+}
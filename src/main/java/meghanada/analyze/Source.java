@@ -65,6 +65,9 @@ public class Source implements Serializable, Storable {
   public final List<ClassScope> classScopes = new ArrayList<>(1);
   public final Deque<ClassScope> currentClassScope = new ArrayDeque<>(1);
   public final Set<String> usingClasses = new HashSet<>(8);
+  // class FQCN to signature digest and declared supertypes, only set while compiling
+  public transient Map<String, String> signatures = new HashMap<>(2);
+  public transient Map<String, Set<String>> supertypes = new HashMap<>(2);
   public final String filePath;
   // temp flag
   public boolean hasCompileError;
@@ -381,12 +384,7 @@ public class Source implements Serializable, Storable {
   public Optional<Variable> getVariable(final int line, final int col) {
     final Scope scope = Scope.getInnerScope(line, this.classScopes);
     if (nonNull(scope)) {
-      return scope
-          .getVariables()
-          .stream()
-          .filter(
-              variable -> variable.range.begin.line == line && variable.range.containsColumn(col))
-          .findFirst();
+      return scope.getVariable(line, col);
     }
     return Optional.empty();
   }
@@ -493,6 +491,21 @@ public class Source implements Serializable, Storable {
     }
   }
 
+  /** Returns the FQCNs of every class declared in this source, nested classes included. */
+  public Set<String> getDeclaredClasses() {
+    final Set<String> classes = new HashSet<>(4);
+    this.collectDeclaredClasses(this.classScopes, classes);
+    return classes;
+  }
+
+  private void collectDeclaredClasses(
+      final List<ClassScope> classScopes, final Set<String> classes) {
+    for (final ClassScope classScope : classScopes) {
+      classes.add(classScope.getFQCN());
+      this.collectDeclaredClasses(classScope.classScopes, classes);
+    }
+  }
+
   public List<String> optimizeImports() {
     // shallow copy
     final Map<String, String> importMap = new HashMap<>(this.getImportedClassMap());
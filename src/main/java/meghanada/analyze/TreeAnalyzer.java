@@ -261,6 +261,15 @@ public class TreeAnalyzer {
     return fqcn;
   }
 
+  private static void addSignature(
+      final Source src, final String fqcn, final JCTree.JCClassDecl classDecl) {
+    final Symbol.ClassSymbol sym = classDecl.sym;
+    if (nonNull(sym) && nonNull(src.signatures)) {
+      src.signatures.put(fqcn, SignatureDigest.of(sym));
+      src.supertypes.put(fqcn, SignatureDigest.supertypes(sym));
+    }
+  }
+
   private static void checkLoadable(Source src, String fqcn, String simpleName) {
     try {
       if (simpleName.length() > 1) {
@@ -461,6 +470,7 @@ public class TreeAnalyzer {
           classScope.isEnum = isEnum;
           classScope.isInterface = isInterface;
           log.trace("class={}", classScope);
+          addSignature(src, fqcn, classDecl);
 
           src.startClass(classScope);
 
@@ -1638,6 +1648,7 @@ public class TreeAnalyzer {
                 classScope.isInterface = isInterface;
                 classScope.isEnum = isEnum;
                 log.trace("maybe inner class={}", classScope);
+                addSignature(src, fqcn, classDecl);
                 parent.startClass(classScope);
 
                 for (final JCTree tree1 : classDecl.getMembers()) {
@@ -5,7 +5,6 @@ import static java.util.Objects.nonNull;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import meghanada.reflect.MemberDescriptor;
 
@@ -56,9 +55,8 @@ public class TypeScope extends MethodScope {
   }
 
   public AccessSymbol getExpressionReturn(final int line) {
-    final Scope scope = getScope(line, super.scopes);
-    if (nonNull(scope) && (scope instanceof BlockScope)) {
-      final BlockScope blockScope = (BlockScope) scope;
+    final BlockScope blockScope = this.getChildScope(line);
+    if (nonNull(blockScope)) {
       final Optional<ExpressionScope> result = blockScope.getExpression(line);
       final Optional<AccessSymbol> accessSymbol =
           result.flatMap(ExpressionScope::getExpressionReturn);
@@ -73,20 +71,17 @@ public class TypeScope extends MethodScope {
 
   @Override
   public List<MethodCall> getMethodCall(final int line) {
-    for (final ExpressionScope expressionScope : expressions) {
+    for (final ExpressionScope expressionScope : this.expressionIndex().containing(line)) {
       final List<MethodCall> methodCalls = expressionScope.getMethodCall(line);
       if (nonNull(methodCalls) && !methodCalls.isEmpty()) {
         return methodCalls;
       }
     }
-    final Scope scope = getScope(line, super.scopes);
+    final Scope scope = this.getChildScope(line);
     if (nonNull(scope)) {
       return scope.getMethodCall(line);
     }
-    return super.methodCalls
-        .stream()
-        .filter(mc -> mc.containsLine(line))
-        .collect(Collectors.toList());
+    return this.methodCallIndex().containing(line);
   }
 
   public Optional<Variable> getField(final String name) {
@@ -1,31 +1,42 @@
 package meghanada.cache;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import java.io.File;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import meghanada.analyze.Source;
+import meghanada.config.Config;
 import meghanada.project.Project;
 import meghanada.reflect.MemberDescriptor;
+import meghanada.store.ProjectDatabaseHelper;
+import meghanada.utils.ClassNameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class GlobalCache {
 
   private static final int SOURCE_CACHE_MAX = 64;
-  private static final int MEMBER_CACHE_MAX = SOURCE_CACHE_MAX;
 
   private static final Logger log = LogManager.getLogger(GlobalCache.class);
 
   private static GlobalCache globalCache;
   private final Map<File, LoadingCache<File, Source>> sourceCaches;
   private LoadingCache<String, List<MemberDescriptor>> memberCache;
+  private MemberWriteBehind memberWriteBehind;
+  private final AtomicLong memberGeneration = new AtomicLong();
 
   private GlobalCache() {
 
@@ -52,17 +63,23 @@ public class GlobalCache {
 
   public void setMemberCache(final LoadingCache<String, List<MemberDescriptor>> memberCache) {
     this.memberCache = memberCache;
+    this.memberGeneration.incrementAndGet();
   }
 
   public void setupMemberCache() {
     if (this.memberCache != null) {
       return;
     }
-    final MemberCacheLoader memberCacheLoader = new MemberCacheLoader();
+    this.memberWriteBehind = new MemberWriteBehind();
+    final MemberCacheLoader memberCacheLoader = new MemberCacheLoader(this.memberWriteBehind);
+    final long maxWeight = Config.load().getMemberCacheSize();
+    log.debug("member cache size:{}", maxWeight);
     this.memberCache =
         CacheBuilder.newBuilder()
-            .maximumSize(MEMBER_CACHE_MAX)
+            .maximumWeight(maxWeight)
+            .weigher(new MemberWeigher())
             .expireAfterAccess(5, TimeUnit.MINUTES)
+            .recordStats()
             .removalListener(memberCacheLoader)
             .build(memberCacheLoader);
   }
@@ -74,10 +91,70 @@ public class GlobalCache {
   public void replaceMemberDescriptors(
       final String fqcn, final List<MemberDescriptor> memberDescriptors) {
     this.memberCache.put(fqcn, memberDescriptors);
+    if (nonNull(this.memberWriteBehind)) {
+      this.memberWriteBehind.write(fqcn, memberDescriptors);
+    }
   }
 
   public void invalidateMemberDescriptors(final String fqcn) {
     this.memberCache.invalidate(fqcn);
+    this.memberGeneration.incrementAndGet();
+  }
+
+  public void invalidateMemberDescriptors(final Collection<String> classes) {
+    if (classes.isEmpty()) {
+      return;
+    }
+    final Set<String> keys = new HashSet<>(classes.size() * 2);
+    for (final String fqcn : classes) {
+      keys.add(fqcn);
+      keys.add(ClassNameUtils.replaceInnerMark(fqcn));
+    }
+    this.memberCache.invalidateAll(keys);
+    this.memberGeneration.incrementAndGet();
+    // the stored copies are stale too, otherwise the loader brings them back
+    if (nonNull(this.memberWriteBehind)) {
+      this.memberWriteBehind.discard(keys);
+    } else {
+      ProjectDatabaseHelper.deleteMemberDescriptors(keys);
+    }
+  }
+
+  /** Returns a counter that changes whenever member descriptors are invalidated. */
+  public long getMemberGeneration() {
+    return this.memberGeneration.get();
+  }
+
+  public Map<String, Object> getMemberCacheStats() {
+    final Map<String, Object> result = new LinkedHashMap<>(12);
+    if (isNull(this.memberCache)) {
+      return result;
+    }
+    final CacheStats stats = this.memberCache.stats();
+    final MemberWeigher weigher = new MemberWeigher();
+    final long weight =
+        this.memberCache
+            .asMap()
+            .entrySet()
+            .stream()
+            .mapToLong(e -> weigher.weigh(e.getKey(), e.getValue()))
+            .sum();
+    result.put("member-cache-entries", this.memberCache.size());
+    result.put("member-cache-weight", weight);
+    result.put("member-cache-max-weight", Config.load().getMemberCacheSize());
+    result.put("member-cache-hits", stats.hitCount());
+    result.put("member-cache-misses", stats.missCount());
+    result.put("member-cache-hit-rate", stats.hitRate());
+    result.put("member-cache-loads", stats.loadCount());
+    result.put("member-cache-load-errors", stats.loadExceptionCount());
+    result.put(
+        "member-cache-avg-load-ms",
+        TimeUnit.NANOSECONDS.toMillis((long) stats.averageLoadPenalty()));
+    result.put("member-cache-evictions", stats.evictionCount());
+    if (nonNull(this.memberWriteBehind)) {
+      result.putAll(this.memberWriteBehind.getStats());
+    }
+    return result;
   }
 
   public LoadingCache<File, Source> getSourceCache(final Project project) {
@@ -114,8 +191,10 @@ public class GlobalCache {
 
   public void shutdown() throws InterruptedException {
 
-    if (nonNull(this.memberCache)) {
-      this.memberCache.asMap().forEach((k, v) -> this.memberCache.put(k, v));
+    if (nonNull(this.memberCache) && nonNull(this.memberWriteBehind)) {
+      // only lists that differ from the stored copy are written
+      this.memberCache.asMap().forEach(this.memberWriteBehind::write);
+      this.memberWriteBehind.shutdown();
     }
   }
 }
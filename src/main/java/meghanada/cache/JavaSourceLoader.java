@@ -6,12 +6,13 @@ import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import java.io.File;
 import java.io.IOException;
-import java.util.Map;
+import java.util.Collections;
 import java.util.Optional;
 import meghanada.analyze.CompileResult;
 import meghanada.analyze.Source;
 import meghanada.config.Config;
 import meghanada.project.Project;
+import meghanada.store.FileChecksum;
 import meghanada.store.ProjectDatabaseHelper;
 import meghanada.utils.FileUtils;
 import org.apache.logging.log4j.LogManager;
@@ -50,15 +51,18 @@ class JavaSourceLoader extends CacheLoader<File, Source> implements RemovalListe
     }
 
     final String projectRootPath = this.project.getProjectRootPath();
-    final Map<String, String> checksumMap = ProjectDatabaseHelper.getChecksumMap(projectRootPath);
-
     final String path = file.getCanonicalPath();
-    final String md5sum = FileUtils.getChecksum(file);
-    if (checksumMap.containsKey(path)) {
+    final Optional<FileChecksum> prev =
+        ProjectDatabaseHelper.getFileChecksum(projectRootPath, path);
+    if (prev.isPresent()) {
       // compare checksum
-      final String prevSum = checksumMap.get(path);
-      if (md5sum.equals(prevSum)) {
+      final FileChecksum current = FileUtils.getFileChecksum(projectRootPath, file, prev.get());
+      if (prev.get().isSameContent(current)) {
         // not modify
+        if (current != prev.get()) {
+          ProjectDatabaseHelper.saveFileChecksums(
+              projectRootPath, Collections.singletonList(current), Collections.emptyList());
+        }
         // load from cache
         try {
           final Optional<Source> source = loadSource(file);
@@ -2,8 +2,6 @@ package meghanada.cache;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
-import static meghanada.utils.FunctionUtils.wrapIO;
-import static meghanada.utils.FunctionUtils.wrapIOConsumer;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.cache.CacheLoader;
@@ -35,7 +33,11 @@ class MemberCacheLoader extends CacheLoader<String, List<MemberDescriptor>>
 
   private static final Logger log = LogManager.getLogger(MemberCacheLoader.class);
 
-  MemberCacheLoader() {}
+  private final MemberWriteBehind writeBehind;
+
+  MemberCacheLoader(final MemberWriteBehind writeBehind) {
+    this.writeBehind = writeBehind;
+  }
 
   private static List<MemberDescriptor> getCachedMemberDescriptors(String fqcn) {
     Optional<List<MemberDescriptor>> result = ProjectDatabaseHelper.getMemberDescriptors(fqcn);
@@ -55,29 +57,6 @@ class MemberCacheLoader extends CacheLoader<String, List<MemberDescriptor>>
     return null;
   }
 
-  private void storeMembers(final String fqcn, final List<MemberDescriptor> list) {
-
-    final CachedASMReflector reflector = CachedASMReflector.getInstance();
-    reflector
-        .containsClassIndex(fqcn)
-        .map(
-            wrapIO(
-                index ->
-                    ProjectDatabaseHelper.saveMemberDescriptors(index.getRawDeclaration(), list)))
-        .orElseGet(
-            () -> {
-              final String innerFQCN = ClassNameUtils.replaceInnerMark(fqcn);
-              reflector
-                  .containsClassIndex(innerFQCN)
-                  .ifPresent(
-                      wrapIOConsumer(
-                          index ->
-                              ProjectDatabaseHelper.saveMemberDescriptors(
-                                  index.getRawDeclaration(), list)));
-              return true;
-            });
-  }
-
   @Override
   public List<MemberDescriptor> load(final String className) throws IOException {
 
@@ -98,6 +77,7 @@ class MemberCacheLoader extends CacheLoader<String, List<MemberDescriptor>>
     @SuppressWarnings("unchecked")
     final List<MemberDescriptor> cachedResult = MemberCacheLoader.getCachedMemberDescriptors(fqcn);
     if (nonNull(cachedResult)) {
+      this.writeBehind.markStored(className, cachedResult);
       return cachedResult;
     }
     final String initName = ClassNameUtils.getSimpleName(fqcn);
@@ -125,19 +105,18 @@ class MemberCacheLoader extends CacheLoader<String, List<MemberDescriptor>>
 
     log.trace("load fqcn:{} elapsed:{}", fqcn, stopwatch.stop());
 
-    storeMembers(fqcn, members);
+    this.writeBehind.write(className, members);
     return members;
   }
 
   @Override
   public void onRemoval(final RemovalNotification<String, List<MemberDescriptor>> notification) {
+    // a replacing value is written by GlobalCache#replaceMemberDescriptors
     final RemovalCause cause = notification.getCause();
-    if (cause.equals(RemovalCause.EXPIRED)
-        || cause.equals(RemovalCause.SIZE)
-        || cause.equals(RemovalCause.REPLACED)) {
+    if (cause.equals(RemovalCause.EXPIRED) || cause.equals(RemovalCause.SIZE)) {
       final String key = notification.getKey();
       final List<MemberDescriptor> value = notification.getValue();
-      storeMembers(key, value);
+      this.writeBehind.write(key, value);
     }
   }
 }
@@ -0,0 +1,57 @@
+package meghanada.cache;
+
+import static java.util.Objects.nonNull;
+
+import com.google.common.cache.Weigher;
+import java.util.List;
+import meghanada.reflect.MemberDescriptor;
+import meghanada.reflect.MethodDescriptor;
+import meghanada.reflect.MethodParameter;
+
+/**
+ * Approximates the retained size in bytes of a member list. Only the fields are inspected, the
+ * rendered declarations are never built.
+ */
+class MemberWeigher implements Weigher<String, List<MemberDescriptor>> {
+
+  private static final int LIST_OVERHEAD = 40;
+  private static final int MEMBER_OVERHEAD = 96;
+  private static final int PARAMETER_OVERHEAD = 32;
+  private static final int STRING_OVERHEAD = 40;
+
+  private static int sizeOf(final String s) {
+    return nonNull(s) ? STRING_OVERHEAD + s.length() * 2 : 0;
+  }
+
+  static int sizeOf(final MemberDescriptor md) {
+    int size = MEMBER_OVERHEAD;
+    size += sizeOf(md.name);
+    size += sizeOf(md.modifier);
+    size += sizeOf(md.returnType);
+    if (md instanceof MethodDescriptor) {
+      final MethodDescriptor method = (MethodDescriptor) md;
+      if (nonNull(method.parameters)) {
+        for (final MethodParameter p : method.parameters) {
+          size += PARAMETER_OVERHEAD + sizeOf(p.type) + sizeOf(p.name);
+        }
+      }
+      if (nonNull(method.exceptions)) {
+        for (final String e : method.exceptions) {
+          size += sizeOf(e);
+        }
+      }
+      size += sizeOf(method.formalType);
+    }
+    // declaringClass is shared by all members of a class
+    return size;
+  }
+
+  @Override
+  public int weigh(final String key, final List<MemberDescriptor> value) {
+    long size = LIST_OVERHEAD + sizeOf(key);
+    for (final MemberDescriptor md : value) {
+      size += sizeOf(md) + 8;
+    }
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+}
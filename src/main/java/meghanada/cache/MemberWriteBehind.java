@@ -0,0 +1,181 @@
+package meghanada.cache;
+
+import static java.util.Objects.nonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import meghanada.reflect.ClassIndex;
+import meghanada.reflect.MemberDescriptor;
+import meghanada.reflect.asm.CachedASMReflector;
+import meghanada.store.ProjectDatabaseHelper;
+import meghanada.utils.ClassNameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Persists member lists in the background. Writes are coalesced per FQCN and a list that is already
+ * the stored copy of its class is never written again.
+ */
+class MemberWriteBehind {
+
+  private static final Logger log = LogManager.getLogger(MemberWriteBehind.class);
+
+  private static final int BATCH_SIZE = 64;
+  private static final long FLUSH_INTERVAL_MILLIS = 1000;
+  private static final int MAX_RETRIES = 3;
+
+  // latest unwritten list per class
+  private final Map<String, List<MemberDescriptor>> pending = new ConcurrentHashMap<>(64);
+  // list instance that matches the stored copy, weak so evicted lists can be collected
+  private final Map<String, WeakReference<List<MemberDescriptor>>> stored =
+      new ConcurrentHashMap<>(256);
+  // flushes a list was not written in, its class index entity was missing
+  private final Map<String, Integer> retries = new HashMap<>(16);
+  private final AtomicBoolean flushQueued = new AtomicBoolean();
+  private final AtomicLong writes = new AtomicLong();
+  private final AtomicLong skipped = new AtomicLong();
+  private final ScheduledExecutorService executorService;
+
+  MemberWriteBehind() {
+    this.executorService =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "member-write-behind");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.executorService.scheduleWithFixedDelay(
+        this::flushQuietly, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private static Optional<ClassIndex> findClassIndex(final String fqcn) {
+    final CachedASMReflector reflector = CachedASMReflector.getInstance();
+    final Optional<ClassIndex> index = reflector.containsClassIndex(fqcn);
+    if (index.isPresent()) {
+      return index;
+    }
+    return reflector.containsClassIndex(ClassNameUtils.replaceInnerMark(fqcn));
+  }
+
+  private boolean isStored(final String fqcn, final List<MemberDescriptor> members) {
+    final WeakReference<List<MemberDescriptor>> ref = this.stored.get(fqcn);
+    return nonNull(ref) && ref.get() == members;
+  }
+
+  void markStored(final String fqcn, final List<MemberDescriptor> members) {
+    this.stored.put(fqcn, new WeakReference<>(members));
+  }
+
+  void write(final String fqcn, final List<MemberDescriptor> members) {
+    if (this.isStored(fqcn, members)) {
+      this.skipped.incrementAndGet();
+      return;
+    }
+    this.pending.put(fqcn, members);
+    if (this.pending.size() >= BATCH_SIZE
+        && !this.executorService.isShutdown()
+        && this.flushQueued.compareAndSet(false, true)) {
+      this.executorService.execute(this::flushQuietly);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      this.flush();
+    } catch (Throwable t) {
+      log.catching(t);
+    }
+  }
+
+  synchronized void flush() {
+    this.flushQueued.set(false);
+    if (this.pending.isEmpty()) {
+      return;
+    }
+    final Map<String, List<MemberDescriptor>> taken = new HashMap<>(this.pending.size());
+    for (final String fqcn : this.pending.keySet()) {
+      final List<MemberDescriptor> members = this.pending.remove(fqcn);
+      if (nonNull(members)) {
+        taken.put(fqcn, members);
+      }
+    }
+
+    // entities are keyed by the raw declaration of the class index
+    final Map<String, List<MemberDescriptor>> batch = new HashMap<>(taken.size());
+    final Map<String, String> keys = new HashMap<>(taken.size());
+    taken.forEach(
+        (fqcn, members) ->
+            findClassIndex(fqcn)
+                .ifPresent(
+                    index -> {
+                      batch.put(index.getRawDeclaration(), members);
+                      keys.put(fqcn, index.getRawDeclaration());
+                    }));
+    final Set<String> saved =
+        batch.isEmpty()
+            ? Collections.emptySet()
+            : ProjectDatabaseHelper.saveMemberDescriptors(batch);
+    this.writes.addAndGet(saved.size());
+    log.debug("write members classes:{} saved:{}", taken.size(), saved.size());
+
+    taken.forEach(
+        (fqcn, members) -> {
+          final String key = keys.get(fqcn);
+          if (nonNull(key) && saved.contains(key)) {
+            this.retries.remove(fqcn);
+            this.markStored(fqcn, members);
+            return;
+          }
+          // the class index entity may not be committed yet
+          final int retry = this.retries.merge(fqcn, 1, Integer::sum);
+          if (retry <= MAX_RETRIES) {
+            // a newer list written meanwhile wins
+            this.pending.putIfAbsent(fqcn, members);
+          } else {
+            // not marked stored, the next write of the list queues it again
+            this.retries.remove(fqcn);
+          }
+        });
+    this.stored.values().removeIf(ref -> ref.get() == null);
+  }
+
+  synchronized void discard(final Collection<String> classes) {
+    final Set<String> keys = new HashSet<>(classes.size());
+    for (final String fqcn : classes) {
+      this.pending.remove(fqcn);
+      this.stored.remove(fqcn);
+      this.retries.remove(fqcn);
+      keys.add(fqcn);
+      findClassIndex(fqcn).ifPresent(index -> keys.add(index.getRawDeclaration()));
+    }
+    final int deleted = ProjectDatabaseHelper.deleteMemberDescriptors(keys);
+    log.debug("discard members classes:{} deleted:{}", classes.size(), deleted);
+  }
+
+  Map<String, Object> getStats() {
+    final Map<String, Object> result = new LinkedHashMap<>(4);
+    result.put("member-store-pending", this.pending.size());
+    result.put("member-store-writes", this.writes.get());
+    result.put("member-store-skipped", this.skipped.get());
+    return result;
+  }
+
+  void shutdown() {
+    this.executorService.shutdown();
+    this.flush();
+  }
+}
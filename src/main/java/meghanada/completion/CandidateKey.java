@@ -0,0 +1,66 @@
+package meghanada.completion;
+
+import com.google.common.base.Strings;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Function;
+import meghanada.reflect.CandidateUnit;
+
+/**
+ * Sort key of a completion candidate, computed once per candidate. Names starting with the keyword
+ * come first, imported classes before the others and shorter names before longer ones. The rest is
+ * ordered by name. Name and declaration break ties so that pages of a result are stable.
+ */
+final class CandidateKey implements Comparable<CandidateKey> {
+
+  private static final int IMPORTED_PREFIX = 0;
+  private static final int PREFIX = 1;
+  private static final int OTHER = 2;
+
+  private final int rank;
+  private final int length;
+  private final String name;
+  private final String declaration;
+
+  private CandidateKey(
+      final int rank, final int length, final String name, final String declaration) {
+    this.rank = rank;
+    this.length = length;
+    this.name = name;
+    this.declaration = declaration;
+  }
+
+  static Function<CandidateUnit, CandidateKey> ranking(final String keyword) {
+    return ranking(keyword, Collections.emptySet());
+  }
+
+  static Function<CandidateUnit, CandidateKey> ranking(
+      final String keyword, final Set<String> imported) {
+    return c -> {
+      final String name = c.getName();
+      final String declaration = Strings.nullToEmpty(c.getDeclaration());
+      if (!name.startsWith(keyword)) {
+        return new CandidateKey(OTHER, 0, name, declaration);
+      }
+      final int rank = imported.contains(declaration) ? IMPORTED_PREFIX : PREFIX;
+      return new CandidateKey(rank, name.length(), name, declaration);
+    };
+  }
+
+  @Override
+  public int compareTo(final CandidateKey o) {
+    int c = Integer.compare(this.rank, o.rank);
+    if (c != 0) {
+      return c;
+    }
+    c = Integer.compare(this.length, o.length);
+    if (c != 0) {
+      return c;
+    }
+    c = this.name.compareTo(o.name);
+    if (c != 0) {
+      return c;
+    }
+    return this.declaration.compareTo(o.declaration);
+  }
+}
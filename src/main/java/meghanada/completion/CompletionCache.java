@@ -0,0 +1,88 @@
+package meghanada.completion;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import meghanada.analyze.Source;
+import meghanada.cache.GlobalCache;
+import meghanada.reflect.CandidateUnit;
+
+/**
+ * Candidates of recent completions, one entry per file, line and completion target. When a prefix
+ * extends the cached prefix of the same target, the cached candidates are narrowed instead of
+ * collected again. An entry is only valid for the parsed source it was collected from and until
+ * member descriptors are invalidated.
+ */
+class CompletionCache {
+
+  private static final int MAX_ENTRIES = 32;
+
+  private final Cache<String, Entry> entries =
+      CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build();
+
+  /**
+   * Returns the candidates of the prefix. The matcher returns the filter of a prefix, it must
+   * accept a subset of the candidates of a shorter prefix.
+   */
+  Collection<? extends CandidateUnit> get(
+      final Source source,
+      final int line,
+      final String target,
+      final String prefix,
+      final Function<String, Predicate<CandidateUnit>> matcher,
+      final Supplier<Collection<? extends CandidateUnit>> loader) {
+
+    final String key = source.filePath + ':' + line + ':' + target;
+    final long generation = GlobalCache.getInstance().getMemberGeneration();
+    final Entry entry = this.entries.getIfPresent(key);
+    if (entry != null
+        && entry.source == source
+        && entry.generation == generation
+        && prefix.startsWith(entry.prefix)) {
+      final Predicate<CandidateUnit> filter = matcher.apply(prefix);
+      final List<CandidateUnit> narrowed = new ArrayList<>(entry.candidates.size());
+      for (final CandidateUnit c : entry.candidates) {
+        if (filter.test(c)) {
+          narrowed.add(c);
+        }
+      }
+      // an empty result can fall back to other lookups, collect it again
+      if (!narrowed.isEmpty()) {
+        this.entries.put(key, new Entry(source, generation, prefix, narrowed));
+        return narrowed;
+      }
+    }
+
+    final Collection<? extends CandidateUnit> candidates = loader.get();
+    this.entries.put(key, new Entry(source, generation, prefix, new ArrayList<>(candidates)));
+    return candidates;
+  }
+
+  void clear() {
+    this.entries.invalidateAll();
+  }
+
+  private static class Entry {
+
+    private final Source source;
+    private final long generation;
+    private final String prefix;
+    private final List<CandidateUnit> candidates;
+
+    Entry(
+        final Source source,
+        final long generation,
+        final String prefix,
+        final List<CandidateUnit> candidates) {
+      this.source = source;
+      this.generation = generation;
+      this.prefix = prefix;
+      this.candidates = candidates;
+    }
+  }
+}
@@ -12,9 +12,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import meghanada.analyze.AccessSymbol;
 import meghanada.analyze.ClassScope;
 import meghanada.analyze.Source;
@@ -28,14 +30,19 @@ import meghanada.reflect.ClassIndex;
 import meghanada.reflect.FieldDescriptor;
 import meghanada.reflect.MemberDescriptor;
 import meghanada.reflect.asm.CachedASMReflector;
+import meghanada.utils.CancelToken;
 import meghanada.utils.ClassNameUtils;
+import meghanada.utils.TopK;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class JavaCompletion {
 
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
   private static final Logger log = LogManager.getLogger(JavaCompletion.class);
 
+  private final CompletionCache completionCache = new CompletionCache();
   private Project project;
 
   public JavaCompletion(final Project project) {
@@ -43,19 +50,19 @@ public class JavaCompletion {
   }
 
   private static Collection<? extends CandidateUnit> annotationCompletion(
-      final Source source, final int line, final int column, final String prefix) {
+      final Source source, final int line, final int column, final String prefix, final int limit) {
     final boolean useFuzzySearch = Config.load().useClassFuzzySearch();
-    String classPrefix = prefix.substring(1);
-    List<ClassIndex> result;
+    final String classPrefix = prefix.substring(1);
+    final CachedASMReflector reflector = CachedASMReflector.getInstance();
+    final Function<CandidateUnit, CandidateKey> key = CandidateKey.ranking(classPrefix);
+    final List<ClassIndex> result;
     if (useFuzzySearch) {
-      result = CachedASMReflector.getInstance().fuzzySearchAnnotations(classPrefix.toLowerCase());
-
+      result = reflector.fuzzySearchClasses(classPrefix.toLowerCase(), true, key, limit);
     } else {
-      result = CachedASMReflector.getInstance().searchAnnotations(classPrefix.toLowerCase());
+      result = reflector.searchClasses(classPrefix.toLowerCase(), true, true, key, limit);
     }
     return result
         .stream()
-        .sorted(comparing(prefix))
         .map(
             classIndex -> {
               final String name =
@@ -229,8 +236,8 @@ public class JavaCompletion {
         .orElse(Collections.emptyList());
   }
 
-  private static Collection<? extends CandidateUnit> completionSymbols(
-      final Source source, final int line, final String prefix) {
+  private Collection<? extends CandidateUnit> completionSymbols(
+      final Source source, final int line, final String prefix, final int limit) {
     final Set<CandidateUnit> result = new HashSet<>(32);
 
     // prefix search
@@ -242,6 +249,45 @@ public class JavaCompletion {
     }
     final String fqcn = typeScope.get().getFQCN();
 
+    // members and variables only get fewer while the prefix grows
+    result.addAll(
+        this.completionCache.get(
+            source,
+            line,
+            "",
+            prefix,
+            p -> c -> c.getName().startsWith(p),
+            () -> JavaCompletion.completionMembersAndVariables(source, line, fqcn, prefix)));
+
+    for (final Map.Entry<String, String> e : source.getImportedClassMap().entrySet()) {
+      final String k = e.getKey();
+      final String v = e.getValue();
+      if (k.startsWith(prefix)) {
+        result.add(ClassIndex.createClass(v));
+      }
+    }
+
+    final Function<CandidateUnit, CandidateKey> key = ranking(source, prefix);
+
+    // Add class
+    if (Character.isUpperCase(prefix.charAt(0))) {
+      // completion, the best classes of the index are enough to fill the best of all
+      final CachedASMReflector reflector = CachedASMReflector.getInstance();
+      final boolean fuzzySearch = Config.load().useClassFuzzySearch();
+      if (fuzzySearch) {
+        result.addAll(reflector.fuzzySearchClasses(prefix.toLowerCase(), false, key, limit));
+      } else {
+        result.addAll(reflector.searchClasses(prefix.toLowerCase(), true, false, key, limit));
+      }
+    }
+
+    return top(result, key, limit);
+  }
+
+  private static Collection<? extends CandidateUnit> completionMembersAndVariables(
+      final Source source, final int line, final String fqcn, final String prefix) {
+    final Set<CandidateUnit> result = new HashSet<>(32);
+
     // add this member
     for (final MemberDescriptor c : JavaCompletion.reflectSelf(fqcn, true, prefix)) {
       if (c.getName().startsWith(prefix)) {
@@ -267,6 +313,7 @@ public class JavaCompletion {
     }
 
     log.debug("self fqcn:{}", fqcn);
+    CancelToken.checkCancelled();
 
     final Map<String, Variable> symbols = source.getDeclaratorMap(line);
     log.debug("search variables size:{} result:{}", symbols.size(), symbols);
@@ -282,30 +329,7 @@ public class JavaCompletion {
         }
       }
     }
-
-    for (final Map.Entry<String, String> e : source.getImportedClassMap().entrySet()) {
-      final String k = e.getKey();
-      final String v = e.getValue();
-      if (k.startsWith(prefix)) {
-        result.add(ClassIndex.createClass(v));
-      }
-    }
-
-    // Add class
-    if (Character.isUpperCase(prefix.charAt(0))) {
-      // completion
-      final CachedASMReflector reflector = CachedASMReflector.getInstance();
-      final boolean fuzzySearch = Config.load().useClassFuzzySearch();
-      if (fuzzySearch) {
-        result.addAll(reflector.fuzzySearchClasses(prefix.toLowerCase()));
-      } else {
-        result.addAll(reflector.searchClasses(prefix.toLowerCase()));
-      }
-    }
-
-    final List<CandidateUnit> list = new ArrayList<>(result);
-    list.sort(comparing(source, prefix));
-    return list;
+    return result;
   }
 
   private static Collection<? extends CandidateUnit> reflect(
@@ -401,8 +425,9 @@ public class JavaCompletion {
     {
       for (final ClassScope cs : source.getClassScopes()) {
         final String fqcn = cs.getFQCN();
+        // the field is var, the target filters its members
         final Optional<MemberDescriptor> fieldResult =
-            JavaCompletion.reflectSelf(fqcn, true, target)
+            JavaCompletion.reflectSelf(fqcn, true, "")
                 .stream()
                 .filter(c -> c instanceof FieldDescriptor && c.getName().equals(var))
                 .findFirst();
@@ -439,58 +464,17 @@ public class JavaCompletion {
     return res;
   }
 
-  private static Comparator<? super CandidateUnit> comparing(
+  private static Function<CandidateUnit, CandidateKey> ranking(
       final Source src, final String keyword) {
-
     final Set<String> imps = new HashSet<>(src.getImportedClassMap().values());
-
-    return (c1, c2) -> {
-      final String n1 = c1.getName();
-      final String n2 = c2.getName();
-      final String d1 = c1.getDeclaration();
-      final String d2 = c2.getDeclaration();
-
-      if (n1.startsWith(keyword) && n2.startsWith(keyword)) {
-        if (imps.contains(d1) && imps.contains(d2)) {
-          return Integer.compare(n1.length(), n2.length());
-        }
-
-        if (imps.contains(d1)) {
-          return -1;
-        }
-        if (imps.contains(d2)) {
-          return 1;
-        }
-
-        return Integer.compare(n1.length(), n2.length());
-      }
-
-      if (n1.startsWith(keyword)) {
-        return -1;
-      }
-      if (n2.startsWith(keyword)) {
-        return 1;
-      }
-      return n1.compareTo(n2);
-    };
+    return CandidateKey.ranking(keyword, imps);
   }
 
-  private static Comparator<? super CandidateUnit> comparing(final String keyword) {
-    return (c1, c2) -> {
-      final String o1 = c1.getName();
-      final String o2 = c2.getName();
-
-      if (o1.startsWith(keyword) && o2.startsWith(keyword)) {
-        return Integer.compare(o1.length(), o2.length());
-      }
-      if (o1.startsWith(keyword)) {
-        return -1;
-      }
-      if (o2.startsWith(keyword)) {
-        return 1;
-      }
-      return o1.compareTo(o2);
-    };
+  private static <T extends CandidateUnit> List<T> top(
+      final Collection<T> units, final Function<CandidateUnit, CandidateKey> key, final int limit) {
+    final TopK<T, CandidateKey> top = new TopK<>(limit, key);
+    top.addAll(units);
+    return top.toList();
   }
 
   private static Comparator<? super CandidateUnit> defaultComparing() {
@@ -531,29 +515,26 @@ public class JavaCompletion {
     };
   }
 
-  private static List<ClassIndex> completionImport(final String searchWord) {
+  private static List<ClassIndex> completionImport(final String searchWord, final int limit) {
 
     final Config config = Config.load();
     final boolean useFuzzySearch = config.useClassFuzzySearch();
     final int idx = searchWord.lastIndexOf(':');
-    final Stream<ClassIndex> stream;
     final CachedASMReflector reflector = CachedASMReflector.getInstance();
 
     if (idx > 0) {
       final String classPrefix = searchWord.substring(idx + 1, searchWord.length());
+      final Function<CandidateUnit, CandidateKey> key = CandidateKey.ranking(classPrefix);
+      final List<ClassIndex> result;
       if (useFuzzySearch) {
-        stream = reflector.fuzzySearchClassesStream(classPrefix.toLowerCase(), false);
+        result = reflector.fuzzySearchClasses(classPrefix.toLowerCase(), false, key, limit);
       } else {
-        stream = reflector.searchClassesStream(classPrefix.toLowerCase(), true, false);
+        result = reflector.searchClasses(classPrefix.toLowerCase(), true, false, key, limit);
       }
-      return stream
-          .map(
-              cl -> {
-                cl.setMemberType(CandidateUnit.MemberType.IMPORT);
-                return cl;
-              })
-          .sorted(comparing(classPrefix))
-          .collect(Collectors.toList());
+      for (final ClassIndex cl : result) {
+        cl.setMemberType(CandidateUnit.MemberType.IMPORT);
+      }
+      return result;
     }
 
     return Collections.emptyList();
@@ -561,6 +542,8 @@ public class JavaCompletion {
 
   public void setProject(Project project) {
     this.project = project;
+    // the classpath may have changed
+    this.completionCache.clear();
   }
 
   private Source getSource(final File file) throws IOException, ExecutionException {
@@ -570,23 +553,35 @@ public class JavaCompletion {
 
   public Collection<? extends CandidateUnit> completionAt(
       final File file, int line, int column, String prefix) {
+    return this.completionAt(file, line, column, prefix, UNLIMITED);
+  }
+
+  /**
+   * Returns the candidates at the position. Class candidates are selected from the index, only the
+   * best limit of them are ranked and returned.
+   */
+  public Collection<? extends CandidateUnit> completionAt(
+      final File file, int line, int column, String prefix, int limit) {
 
-    log.debug("line={} column={} prefix={}", line, column, prefix);
+    log.debug("line={} column={} prefix={} limit={}", line, column, prefix, limit);
     try {
       if (!file.exists()) {
         return Collections.emptyList();
       }
       final Source source = this.getSource(file);
+      CancelToken.checkCancelled();
       // check type
       if (prefix.startsWith("*")) {
         // special command
-        return this.specialCompletion(source, line, column, prefix);
+        return this.specialCompletion(source, line, column, prefix, limit);
       }
       if (prefix.startsWith("@")) {
-        return JavaCompletion.annotationCompletion(source, line, column, prefix);
+        return JavaCompletion.annotationCompletion(source, line, column, prefix, limit);
       }
       // search symbol
-      return JavaCompletion.completionSymbols(source, line, prefix);
+      return this.completionSymbols(source, line, prefix, limit);
+    } catch (CancellationException e) {
+      throw e;
     } catch (Throwable t) {
       log.catching(t);
       return Collections.emptyList();
@@ -594,7 +589,11 @@ public class JavaCompletion {
   }
 
   private Collection<? extends CandidateUnit> specialCompletion(
-      final Source source, final int line, final int column, final String searchWord) {
+      final Source source,
+      final int line,
+      final int column,
+      final String searchWord,
+      final int limit) {
 
     // special command
     final Config config = Config.load();
@@ -602,28 +601,23 @@ public class JavaCompletion {
 
     if (searchWord.startsWith("*import")) {
 
-      return JavaCompletion.completionImport(searchWord);
+      return JavaCompletion.completionImport(searchWord, limit);
 
     } else if (searchWord.startsWith("*new")) {
 
       // list all classes
       final int idx = searchWord.lastIndexOf(':');
       if (idx > 0) {
-        final List<ClassIndex> result;
         final String classPrefix = searchWord.substring(idx + 1, searchWord.length());
+        final Function<CandidateUnit, CandidateKey> key = ranking(source, classPrefix);
+        final CachedASMReflector reflector = CachedASMReflector.getInstance();
         if (useFuzzySearch) {
-          result = CachedASMReflector.getInstance().fuzzySearchClasses(classPrefix.toLowerCase());
-        } else {
-          result = CachedASMReflector.getInstance().searchClasses(classPrefix.toLowerCase());
+          return reflector.fuzzySearchClasses(classPrefix.toLowerCase(), false, key, limit);
         }
-        result.sort(comparing(source, classPrefix));
-        return result;
+        return reflector.searchClasses(classPrefix.toLowerCase(), true, false, key, limit);
       }
 
-      return JavaCompletion.completionConstructors(source)
-          .stream()
-          .sorted(comparing(source, ""))
-          .collect(Collectors.toList());
+      return top(JavaCompletion.completionConstructors(source), ranking(source, ""), limit);
 
     } else if (searchWord.startsWith("*method")) {
 
@@ -634,9 +628,18 @@ public class JavaCompletion {
       if (classIdx > 0 && prefixIdx > 0) {
         final String prefix = searchWord.substring(prefixIdx + 1);
         // return methods of prefix class
-        String fqcn = searchWord.substring(classIdx + 1, prefixIdx);
-        fqcn = ClassNameUtils.replace(fqcn, ClassNameUtils.CAPTURE_OF, "");
-        return reflectWithFQCN(fqcn, prefix)
+        final String fqcn =
+            ClassNameUtils.replace(
+                searchWord.substring(classIdx + 1, prefixIdx), ClassNameUtils.CAPTURE_OF, "");
+        final String target = prefix.toLowerCase();
+        return this.completionCache
+            .get(
+                source,
+                line,
+                searchWord.substring(0, prefixIdx + 1),
+                target,
+                JavaCompletion::containsMatcher,
+                () -> reflectWithFQCN(fqcn, target))
             .stream()
             .sorted(methodComparing(prefix))
             .collect(Collectors.toList());
@@ -694,18 +697,41 @@ public class JavaCompletion {
     if (idx > 0) {
       final String var = searchWord.substring(1, idx);
       final String prefix = searchWord.substring(idx + 1);
-      return JavaCompletion.completionFieldsOrMethods(source, line, var, prefix.toLowerCase())
+      return this.cachedFieldsOrMethods(source, line, var, prefix.toLowerCase())
           .stream()
           .sorted(methodComparing(prefix))
           .collect(Collectors.toList());
     }
 
-    return JavaCompletion.completionFieldsOrMethods(source, line, searchWord.substring(1), "")
+    return this.cachedFieldsOrMethods(source, line, searchWord.substring(1), "")
         .stream()
         .sorted(defaultComparing())
         .collect(Collectors.toList());
   }
 
+  private Collection<? extends CandidateUnit> cachedFieldsOrMethods(
+      final Source source, final int line, final String var, final String target) {
+    // "var." lists all members, the prefix typed after it narrows them
+    final Function<String, Predicate<CandidateUnit>> matcher;
+    if (var.equals("super")) {
+      matcher = t -> c -> t.isEmpty() || c.getName().toLowerCase().startsWith(t);
+    } else {
+      // inner classes are listed whatever the prefix is
+      matcher = t -> c -> c instanceof ClassIndex || containsMatcher(t).test(c);
+    }
+    return this.completionCache.get(
+        source,
+        line,
+        '*' + var,
+        target,
+        matcher,
+        () -> JavaCompletion.completionFieldsOrMethods(source, line, var, target));
+  }
+
+  private static Predicate<CandidateUnit> containsMatcher(final String target) {
+    return c -> target.isEmpty() || c.getName().toLowerCase().contains(target);
+  }
+
   private Collection<? extends CandidateUnit> completionPackage() {
     final GlobalCache globalCache = GlobalCache.getInstance();
     final LoadingCache<File, Source> sourceCache = globalCache.getSourceCache(project);
@@ -301,6 +301,14 @@ public class Config {
     return c.getBoolean("clear-cache-on-start");
   }
 
+  public long getMemberCacheSize() {
+    return c.getBytes("member-cache-size");
+  }
+
+  public int getCompileShards() {
+    return c.getInt("compile-shards");
+  }
+
   public boolean isBuildWithDependency() {
     return buildWithDependency;
   }
@@ -325,6 +333,18 @@ public class Config {
     return c.getBoolean("skip-build-subprojects");
   }
 
+  public boolean useDependencyParameterNames() {
+    return c.getBoolean("dependency-parameter-names");
+  }
+
+  public String getParameterNamesDir() {
+    return c.getString("parameter-names-dir");
+  }
+
+  public int getCompletionLimit() {
+    return c.getInt("completion-limit");
+  }
+
   @FunctionalInterface
   public interface SimpleSupplier<R> {
 
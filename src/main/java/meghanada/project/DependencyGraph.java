@@ -0,0 +1,226 @@
+package meghanada.project;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import meghanada.store.FileDependencies;
+import meghanada.store.ProjectDatabaseHelper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reverse dependency graph of a project's sources. A file depends on the classes it uses, and a
+ * class depends on its supertypes through its signature. When the signature of a class changes, the
+ * class and its subtypes, transitively, have a changed signature, and every file using one of them
+ * has to be compiled again. A change that keeps the signature affects no other file.
+ */
+class DependencyGraph {
+
+  private static final Logger log = LogManager.getLogger(DependencyGraph.class);
+
+  private final String projectRoot;
+  private final Map<String, FileDependencies> files = new HashMap<>(256);
+  // class -> declaring file
+  private final Map<String, String> declared = new HashMap<>(256);
+  // class -> files using it
+  private final Map<String, Set<String>> users = new HashMap<>(256);
+  // class -> direct subtypes
+  private final Map<String, Set<String>> subtypes = new HashMap<>(64);
+  private final Map<String, FileDependencies> dirty = new HashMap<>(32);
+  private final Set<String> removed = new HashSet<>(8);
+
+  DependencyGraph(final String projectRoot) {
+    this.projectRoot = projectRoot;
+  }
+
+  static DependencyGraph load(final String projectRoot) {
+    final DependencyGraph graph = new DependencyGraph(projectRoot);
+    for (final FileDependencies fd : ProjectDatabaseHelper.loadFileDependencies(projectRoot)) {
+      graph.link(fd);
+    }
+    return graph;
+  }
+
+  synchronized boolean isEmpty() {
+    return this.files.isEmpty();
+  }
+
+  synchronized void clear() {
+    this.files.clear();
+    this.declared.clear();
+    this.users.clear();
+    this.subtypes.clear();
+    this.dirty.clear();
+    this.removed.clear();
+    ProjectDatabaseHelper.deleteAllFileDependencies(this.projectRoot);
+  }
+
+  /**
+   * Replaces the dependencies of a file. The signatures of a file with compile errors are not
+   * trusted, it keeps the last known ones until it compiles again.
+   *
+   * @return classes whose signature changed, including classes the file no longer declares
+   */
+  synchronized Set<String> update(FileDependencies next, final boolean hasError) {
+    final String path = next.getFilePath();
+    final FileDependencies prev = this.unlink(path);
+    final Set<String> changed = new HashSet<>(4);
+    if (hasError) {
+      if (nonNull(prev)) {
+        next =
+            new FileDependencies(path, next.getUses(), prev.getSignatures(), prev.getSupertypes());
+      }
+    } else {
+      final Map<String, String> signatures = next.getSignatures();
+      signatures.forEach(
+          (fqcn, signature) -> {
+            if (isNull(prev) || !signature.equals(prev.getSignatures().get(fqcn))) {
+              changed.add(fqcn);
+            }
+          });
+      if (nonNull(prev)) {
+        prev.getSignatures()
+            .keySet()
+            .stream()
+            .filter(fqcn -> !signatures.containsKey(fqcn))
+            .forEach(changed::add);
+      }
+    }
+    this.link(next);
+    this.dirty.put(path, next);
+    this.removed.remove(path);
+    return changed;
+  }
+
+  /**
+   * Drops files that no longer exist.
+   *
+   * @return classes that were declared by the dropped files
+   */
+  synchronized Set<String> removeMissingFiles() {
+    final Set<String> changed = new HashSet<>(4);
+    for (final String path : new HashSet<>(this.files.keySet())) {
+      if (!new File(path).exists()) {
+        changed.addAll(this.remove(path));
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Drops a deleted file.
+   *
+   * @return classes that were declared by the file
+   */
+  synchronized Set<String> remove(final String path) {
+    final FileDependencies prev = this.unlink(path);
+    if (isNull(prev)) {
+      return Collections.emptySet();
+    }
+    this.dirty.remove(path);
+    this.removed.add(path);
+    return prev.getSignatures().keySet();
+  }
+
+  synchronized Set<String> withSubtypes(final Collection<String> changed) {
+    // a change is inherited by every subtype
+    final Set<String> classes = new HashSet<>(changed);
+    final Deque<String> queue = new ArrayDeque<>(changed);
+    while (!queue.isEmpty()) {
+      for (final String sub : this.subtypes.getOrDefault(queue.poll(), Collections.emptySet())) {
+        if (classes.add(sub)) {
+          queue.add(sub);
+        }
+      }
+    }
+    return classes;
+  }
+
+  synchronized Set<File> getAffectedFiles(final Collection<String> changed) {
+    final Set<String> classes = this.withSubtypes(changed);
+    final Set<File> result = new HashSet<>(classes.size() * 2);
+    for (final String fqcn : classes) {
+      final String file = this.declared.get(fqcn);
+      if (nonNull(file)) {
+        result.add(new File(file));
+      }
+      for (final String user : this.users.getOrDefault(fqcn, Collections.emptySet())) {
+        result.add(new File(user));
+      }
+    }
+    log.debug("{} changed signatures affect {} files", changed.size(), result.size());
+    return result;
+  }
+
+  synchronized Map<String, Set<String>> getCallerMap() {
+    // class -> classes declared in the files using it
+    final Map<String, Set<String>> result = new HashMap<>(this.users.size());
+    this.users.forEach(
+        (fqcn, paths) -> {
+          final Set<String> callers = new HashSet<>(paths.size());
+          for (final String path : paths) {
+            callers.addAll(this.files.get(path).getSignatures().keySet());
+          }
+          result.put(fqcn, callers);
+        });
+    return result;
+  }
+
+  void save() {
+    final Collection<FileDependencies> updated;
+    final Collection<String> deleted;
+    synchronized (this) {
+      updated = new HashSet<>(this.dirty.values());
+      deleted = new HashSet<>(this.removed);
+      this.dirty.clear();
+      this.removed.clear();
+    }
+    ProjectDatabaseHelper.saveFileDependencies(this.projectRoot, updated, deleted);
+  }
+
+  private void link(final FileDependencies fd) {
+    final String path = fd.getFilePath();
+    this.files.put(path, fd);
+    for (final String fqcn : fd.getUses()) {
+      this.users.computeIfAbsent(fqcn, k -> new HashSet<>(4)).add(path);
+    }
+    for (final String fqcn : fd.getSignatures().keySet()) {
+      this.declared.put(fqcn, path);
+      for (final String sup : fd.getSupertypes(fqcn)) {
+        this.subtypes.computeIfAbsent(sup, k -> new HashSet<>(4)).add(fqcn);
+      }
+    }
+  }
+
+  private FileDependencies unlink(final String path) {
+    final FileDependencies fd = this.files.remove(path);
+    if (isNull(fd)) {
+      return null;
+    }
+    for (final String fqcn : fd.getUses()) {
+      final Set<String> set = this.users.get(fqcn);
+      if (nonNull(set) && set.remove(path) && set.isEmpty()) {
+        this.users.remove(fqcn);
+      }
+    }
+    for (final String fqcn : fd.getSignatures().keySet()) {
+      this.declared.remove(fqcn, path);
+      for (final String sup : fd.getSupertypes(fqcn)) {
+        final Set<String> set = this.subtypes.get(sup);
+        if (nonNull(set) && set.remove(fqcn) && set.isEmpty()) {
+          this.subtypes.remove(sup);
+        }
+      }
+    }
+    return fd;
+  }
+}
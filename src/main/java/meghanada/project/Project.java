@@ -27,16 +27,18 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
-import meghanada.analyze.ClassScope;
 import meghanada.analyze.CompileResult;
+import meghanada.analyze.CompileShards;
 import meghanada.analyze.JavaAnalyzer;
 import meghanada.analyze.Source;
 import meghanada.cache.GlobalCache;
 import meghanada.config.Config;
 import meghanada.formatter.JavaFormatter;
+import meghanada.reflect.asm.CachedASMReflector;
+import meghanada.store.FileChecksum;
+import meghanada.store.FileDependencies;
 import meghanada.store.ProjectDatabaseHelper;
 import meghanada.store.Storable;
-import meghanada.utils.ClassNameUtils;
 import meghanada.utils.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -85,10 +87,12 @@ public abstract class Project implements Serializable, Storable {
   protected Boolean isAndroidProject = false;
   protected String name;
   String id;
-  private Map<String, Set<String>> callerMap = new ConcurrentHashMap<>(128);
   private String cachedClasspath;
   private String cachedAllClasspath;
   private transient JavaAnalyzer javaAnalyzer;
+  private transient DependencyGraph dependencyGraph;
+  // dependents found while compiling other source roots
+  private transient Set<File> pendingDependents;
   private String[] prevTest;
   private transient Properties formatProperties;
   private boolean subProject;
@@ -100,11 +104,28 @@ public abstract class Project implements Serializable, Storable {
     this.initialize();
   }
 
-  private static CompileResult clearMemberCache(final CompileResult compileResult) {
-    final Map<File, Source> sourceMap = compileResult.getSources();
-    for (final Source source : sourceMap.values()) {
-      source.invalidateCache();
+  private CompileResult clearMemberCache(final CompileResult compileResult) {
+    if (Config.load().useExternalBuilder()) {
+      // class files are not re-read, so there are no fingerprints to compare
+      final Map<File, Source> sourceMap = compileResult.getSources();
+      for (final Source source : sourceMap.values()) {
+        source.invalidateCache();
+      }
+      return compileResult;
+    }
+    // the compiled classes themselves always go: private members and parameter names
+    // are reflected too but are not part of the fingerprint
+    final Set<String> classes = new HashSet<>(16);
+    for (final Source source : compileResult.getSources().values()) {
+      classes.addAll(source.getDeclaredClasses());
+    }
+    // subtypes only when the inherited ABI changed
+    final Set<String> changed = CachedASMReflector.getInstance().takeChangedClasses();
+    if (!changed.isEmpty()) {
+      classes.addAll(this.dependencyGraph.withSubtypes(changed));
     }
+    GlobalCache.getInstance().invalidateMemberDescriptors(classes);
+    log.debug("invalidate members abi changed:{} total:{}", changed.size(), classes.size());
     return compileResult;
   }
 
@@ -140,7 +161,8 @@ public abstract class Project implements Serializable, Storable {
         System.setProperty(FORMATTER_FILE_KEY, xml.getCanonicalPath());
       }
     }
-    loadCaller();
+    this.dependencyGraph = DependencyGraph.load(this.projectRootPath);
+    this.pendingDependents = ConcurrentHashMap.newKeySet();
     final Config config = Config.load();
     final boolean clearCacheOnStart = config.clearCacheOnStart();
     if (clearCacheOnStart) {
@@ -207,6 +229,25 @@ public abstract class Project implements Serializable, Storable {
     return this.javaAnalyzer;
   }
 
+  private CompileResult analyzeAndCompile(
+      final List<File> files,
+      final String classpath,
+      final Set<File> sourceRoots,
+      final String out,
+      final CompiledSourceHandler handler)
+      throws IOException {
+    final int shards = Config.load().getCompileShards();
+    if (shards <= 1) {
+      return getJavaAnalyzer().analyzeAndCompile(files, classpath, out, true, handler);
+    }
+    final List<List<File>> partition =
+        CompileShards.partition(files, sourceRoots, this.dependencyGraph.getCallerMap(), shards);
+    final String sourcepath =
+        sourceRoots.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator));
+    return getJavaAnalyzer()
+        .analyzeAndCompile(partition, classpath, sourcepath, out, true, handler);
+  }
+
   public String classpath() {
     if (this.cachedClasspath != null) {
       return this.cachedClasspath;
@@ -259,11 +300,11 @@ public abstract class Project implements Serializable, Storable {
       List<File> files = Project.collectJavaFiles(sources);
       if (files != null && !files.isEmpty()) {
 
-        if (this.callerMap.size() == 0) {
+        if (this.dependencyGraph.isEmpty()) {
           force = true;
         }
         if (force) {
-          this.callerMap.clear();
+          this.dependencyGraph.clear();
         }
         final Stopwatch stopwatch = Stopwatch.createStarted();
 
@@ -272,19 +313,20 @@ public abstract class Project implements Serializable, Storable {
                 ? files
                 : FileUtils.getModifiedSources(
                     this.projectRoot, files, this.getSourcesAndResources(), this.output);
-        if (!force) {
-          files = this.getRelatedSources(this.getSourcesAndResources(), files);
-        }
 
         final String classpath = this.classpath();
-
-        this.prepareCompile(files);
-
-        final CompiledSourceHandler handler = new CompiledSourceHandler(this, this.callerMap);
+        final String out = output.getCanonicalPath();
+        final CompiledSourceHandler handler = new CompiledSourceHandler(this);
         final CompileResult compileResult =
             clearMemberCache(
-                getJavaAnalyzer()
-                    .analyzeAndCompile(files, classpath, output.getCanonicalPath(), true, handler));
+                this.compileWithDependents(
+                    files,
+                    this.getSourcesAndResources(),
+                    handler,
+                    targets -> {
+                      this.prepareCompile(targets);
+                      return this.analyzeAndCompile(targets, classpath, this.sources, out, handler);
+                    }));
 
         log.info(
             "project {} compile and analyze (java) {} files. force:{} problem:{} elapsed:{}",
@@ -324,11 +366,11 @@ public abstract class Project implements Serializable, Storable {
 
       List<File> files = Project.collectJavaFiles(testSources);
       if (files != null && !files.isEmpty()) {
-        if (this.callerMap.size() == 0) {
+        if (this.dependencyGraph.isEmpty()) {
           force = true;
         }
         if (force) {
-          this.callerMap.clear();
+          this.dependencyGraph.clear();
         }
 
         final Stopwatch stopwatch = Stopwatch.createStarted();
@@ -338,19 +380,21 @@ public abstract class Project implements Serializable, Storable {
                 ? files
                 : FileUtils.getModifiedSources(
                     projectRoot, files, this.getTestSourcesAndResources(), this.testOutput);
-        if (!force) {
-          files = this.getRelatedSources(this.getTestSourcesAndResources(), files);
-        }
 
         final String classpath = this.allClasspath();
-        this.prepareTestCompile(files);
-
-        final CompiledSourceHandler handler = new CompiledSourceHandler(this, this.callerMap);
+        final String out = testOutput.getCanonicalPath();
+        final CompiledSourceHandler handler = new CompiledSourceHandler(this);
         final CompileResult compileResult =
             clearMemberCache(
-                getJavaAnalyzer()
-                    .analyzeAndCompile(
-                        files, classpath, testOutput.getCanonicalPath(), true, handler));
+                this.compileWithDependents(
+                    files,
+                    this.getTestSourcesAndResources(),
+                    handler,
+                    targets -> {
+                      this.prepareTestCompile(targets);
+                      return this.analyzeAndCompile(
+                          targets, classpath, this.testSources, out, handler);
+                    }));
 
         log.info(
             "project {} compile and analyze (test) {} files. force:{} problem:{} elapsed:{}",
@@ -405,6 +449,144 @@ public abstract class Project implements Serializable, Storable {
     return getJavaAnalyzer().analyzeAndCompile(files, this.allClasspath(), output, false);
   }
 
+  private static CompileResult merge(final CompileResult a, final CompileResult b) {
+    final Map<File, Source> sources = new HashMap<>(a.getSources());
+    sources.putAll(b.getSources());
+    final List<Diagnostic<? extends JavaFileObject>> diagnostics =
+        new ArrayList<>(a.getDiagnostics());
+    diagnostics.addAll(b.getDiagnostics());
+    final Set<File> errorFiles = new HashSet<>(a.getErrorFiles());
+    errorFiles.addAll(b.getErrorFiles());
+    return new CompileResult(a.isSuccess() && b.isSuccess(), sources, diagnostics, errorFiles);
+  }
+
+  private static boolean isUnder(final File file, final Set<File> sourceRoots) throws IOException {
+    final String path = file.getCanonicalPath();
+    for (final File root : sourceRoots) {
+      if (path.startsWith(root.getCanonicalPath() + File.separator)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compiles the files, then the files affected by changed class signatures until nothing changes.
+   * Affected files outside of the source roots are compiled with their own source roots.
+   */
+  private CompileResult compileWithDependents(
+      final List<File> files,
+      final Set<File> sourceRoots,
+      final CompiledSourceHandler handler,
+      final CompileTask task)
+      throws IOException {
+
+    final Set<File> compiled = new HashSet<>(files.size());
+    for (final File file : files) {
+      compiled.add(file.getCanonicalFile());
+    }
+    final List<File> targets = new ArrayList<>(files);
+    for (final File file : this.pendingDependents) {
+      if (isUnder(file, sourceRoots) && this.pendingDependents.remove(file)) {
+        if (file.exists() && compiled.add(file)) {
+          targets.add(file);
+        }
+      }
+    }
+    final Set<String> changed = this.dependencyGraph.removeMissingFiles();
+    // classes of deleted sources leave the class index too
+    CachedASMReflector.getInstance().removeClassIndexes(changed);
+
+    CompileResult result = task.compile(targets);
+    changed.addAll(handler.takeChangedSignatures());
+    while (!changed.isEmpty()) {
+      targets.clear();
+      for (final File file : this.dependencyGraph.getAffectedFiles(changed)) {
+        if (!file.exists() || compiled.contains(file)) {
+          continue;
+        }
+        if (isUnder(file, sourceRoots)) {
+          compiled.add(file);
+          targets.add(file);
+        } else {
+          this.pendingDependents.add(file);
+        }
+      }
+      if (targets.isEmpty()) {
+        break;
+      }
+      log.debug("compile {} dependent files", targets.size());
+      result = merge(result, task.compile(targets));
+      changed.clear();
+      changed.addAll(handler.takeChangedSignatures());
+    }
+    return result;
+  }
+
+  /** Invalidates the cached members of the classes and of their subtypes in this project. */
+  public void invalidateMemberDescriptors(final Collection<String> classes) {
+    final Set<String> invalidate = this.dependencyGraph.withSubtypes(classes);
+    GlobalCache.getInstance().invalidateMemberDescriptors(invalidate);
+  }
+
+  /** Forgets deleted sources, their parsed copies, declared classes and dependency graph nodes. */
+  public void removeSources(final Collection<File> files) throws IOException {
+    final GlobalCache globalCache = GlobalCache.getInstance();
+    final Set<String> classes = new HashSet<>(8);
+    for (final File file : files) {
+      globalCache.invalidateSource(this, file);
+      classes.addAll(this.dependencyGraph.remove(file.getCanonicalPath()));
+    }
+    if (classes.isEmpty()) {
+      return;
+    }
+    // users of the removed classes report them missing on their next compile
+    this.pendingDependents.addAll(this.dependencyGraph.getAffectedFiles(classes));
+    globalCache.invalidateMemberDescriptors(this.dependencyGraph.withSubtypes(classes));
+    CachedASMReflector.getInstance().removeClassIndexes(classes);
+    this.dependencyGraph.save();
+    log.debug("removed {} sources declaring {} classes", files.size(), classes.size());
+  }
+
+  public CompileResult parseFiles(final List<File> files) throws IOException {
+    final List<File> mainFiles = new ArrayList<>(files.size());
+    final List<File> testFiles = new ArrayList<>(files.size());
+    for (final File file : files) {
+      final String filepath = file.getCanonicalPath();
+      boolean isTest = false;
+      for (File source : this.testSources) {
+        if (filepath.startsWith(source.getCanonicalPath())) {
+          isTest = true;
+          break;
+        }
+      }
+      if (isTest) {
+        testFiles.add(file);
+      } else {
+        mainFiles.add(file);
+      }
+    }
+
+    final JavaAnalyzer javaAnalyzer = getJavaAnalyzer();
+    final String classpath = this.allClasspath();
+    CompileResult result = new CompileResult(true);
+    if (!mainFiles.isEmpty()) {
+      result =
+          merge(
+              result,
+              javaAnalyzer.analyzeAndCompile(
+                  mainFiles, classpath, this.output.getCanonicalPath(), false));
+    }
+    if (!testFiles.isEmpty()) {
+      result =
+          merge(
+              result,
+              javaAnalyzer.analyzeAndCompile(
+                  testFiles, classpath, this.testOutput.getCanonicalPath(), false));
+    }
+    return result;
+  }
+
   public CompileResult compileFile(final File file, final boolean force) throws IOException {
     boolean isTest = false;
     final String filepath = file.getCanonicalPath();
@@ -431,18 +613,25 @@ public abstract class Project implements Serializable, Storable {
     final Set<File> sources = isTest ? this.getAllSources() : this.getSourcesAndResources();
     files =
         force ? files : FileUtils.getModifiedSources(projectRoot, files, sources, new File(output));
-    files = this.getRelatedSources(sources, files);
 
-    if (isTest) {
-      this.prepareTestCompile(files);
-    } else {
-      this.prepareCompile(files);
-    }
-
-    final CompiledSourceHandler handler = new CompiledSourceHandler(this, this.callerMap);
+    final boolean test = isTest;
+    final String out = output;
+    final CompiledSourceHandler handler = new CompiledSourceHandler(this);
     final CompileResult compileResult =
         clearMemberCache(
-            getJavaAnalyzer().analyzeAndCompile(files, this.allClasspath(), output, true, handler));
+            this.compileWithDependents(
+                files,
+                sources,
+                handler,
+                targets -> {
+                  if (test) {
+                    this.prepareTestCompile(targets);
+                  } else {
+                    this.prepareCompile(targets);
+                  }
+                  return getJavaAnalyzer()
+                      .analyzeAndCompile(targets, this.allClasspath(), out, true, handler);
+                }));
 
     log.info(
         "project {} compile and analyze {} files. force:{} problem:{} elapsed:{}",
@@ -480,18 +669,25 @@ public abstract class Project implements Serializable, Storable {
 
     files =
         force ? files : FileUtils.getModifiedSources(projectRoot, files, sources, new File(output));
-    files = this.getRelatedSources(sources, files);
 
-    if (isTest) {
-      this.prepareTestCompile(files);
-    } else {
-      this.prepareCompile(files);
-    }
-
-    final CompiledSourceHandler handler = new CompiledSourceHandler(this, this.callerMap);
+    final boolean test = isTest;
+    final String out = output;
+    final CompiledSourceHandler handler = new CompiledSourceHandler(this);
     final CompileResult compileResult =
         clearMemberCache(
-            getJavaAnalyzer().analyzeAndCompile(files, this.allClasspath(), output, true, handler));
+            this.compileWithDependents(
+                files,
+                sources,
+                handler,
+                targets -> {
+                  if (test) {
+                    this.prepareTestCompile(targets);
+                  } else {
+                    this.prepareCompile(targets);
+                  }
+                  return getJavaAnalyzer()
+                      .analyzeAndCompile(targets, this.allClasspath(), out, true, handler);
+                }));
 
     log.info(
         "project {} compile and analyze {} files. force:{} problem:{} elapsed:{}",
@@ -754,49 +950,6 @@ public abstract class Project implements Serializable, Storable {
     Project.loadedProject.put(id, this);
   }
 
-  private List<File> getRelatedSources(final Set<File> sourceRoots, final List<File> files) {
-
-    final Set<File> temp = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>(16));
-    temp.addAll(files);
-    temp.addAll(FileUtils.getPackagePrivateSource(files));
-    sourceRoots
-        .parallelStream()
-        .forEach(
-            root -> {
-              try {
-                final String rootPath = root.getCanonicalPath();
-                for (final File file : files) {
-                  final String path = file.getCanonicalPath();
-                  if (path.startsWith(rootPath)) {
-                    final String p = path.substring(rootPath.length() + 1, path.length() - 5);
-                    final String importClass = ClassNameUtils.replace(p, File.separator, ".");
-                    if (this.callerMap.containsKey(importClass)) {
-                      final Set<String> imports = this.callerMap.get(importClass);
-                      for (final String dep : imports) {
-                        FileUtils.getSourceFile(dep, sourceRoots).ifPresent(temp::add);
-                      }
-                    }
-                  }
-                }
-              } catch (IOException e) {
-                throw new UncheckedIOException(e);
-              }
-            });
-
-    return new ArrayList<>(temp);
-  }
-
-  private synchronized void writeCaller() throws IOException {
-    ProjectDatabaseHelper.saveCallerMap(this.projectRootPath, this.callerMap);
-  }
-
-  private void loadCaller() throws IOException {
-
-    @SuppressWarnings("unchecked")
-    final Map<String, Set<String>> map = ProjectDatabaseHelper.getCallerMap(this.projectRootPath);
-    this.callerMap = map;
-  }
-
   @Override
   public String getStoreId() {
     return this.projectRootPath;
@@ -920,66 +1073,72 @@ public abstract class Project implements Serializable, Storable {
     this.subProject = subProject;
   }
 
+  private interface CompileTask {
+
+    CompileResult compile(List<File> files) throws IOException;
+  }
+
   private static class CompiledSourceHandler implements JavaAnalyzer.SourceAnalyzedHandler {
 
     private final boolean useSourceCache;
-    private final Map<String, Set<String>> callerMap;
-    private final Map<String, String> checksumMap;
+    private final Map<String, FileChecksum> checksums = new ConcurrentHashMap<>(64);
+    private final Set<String> invalidChecksums = ConcurrentHashMap.newKeySet(8);
+    private final Set<String> changedSignatures = ConcurrentHashMap.newKeySet(8);
     private final Project project;
 
-    CompiledSourceHandler(final Project project, final Map<String, Set<String>> callerMap)
-        throws IOException {
+    CompiledSourceHandler(final Project project) throws IOException {
 
       this.project = project;
-      this.callerMap = callerMap;
       final Config config = Config.load();
       this.useSourceCache = config.useSourceCache();
-      this.checksumMap = ProjectDatabaseHelper.getChecksumMap(project.projectRootPath);
+    }
+
+    Set<String> takeChangedSignatures() {
+      final Set<String> result = new HashSet<>(this.changedSignatures);
+      this.changedSignatures.removeAll(result);
+      return result;
     }
 
     @Override
     public void analyzed(final Source source) throws IOException {
 
+      final File sourceFile = source.getFile();
+      final String path = sourceFile.getCanonicalPath();
+      final FileDependencies dependencies =
+          new FileDependencies(
+              path,
+              new HashSet<>(source.usingClasses),
+              new HashMap<>(source.signatures),
+              new HashMap<>(source.supertypes));
+      this.changedSignatures.addAll(
+          this.project.dependencyGraph.update(dependencies, source.hasCompileError));
+      source.usingClasses.clear();
+
       if (!useSourceCache) {
         return;
       }
 
       final GlobalCache globalCache = GlobalCache.getInstance();
-      List<ClassScope> classScopes = source.getClassScopes();
-      for (ClassScope cs : classScopes) {
-        final String fqcn = cs.getFQCN();
-        for (String clazz : source.usingClasses) {
-          if (this.callerMap.containsKey(clazz)) {
-            final Set<String> set = this.callerMap.get(clazz);
-            set.add(fqcn);
-            this.callerMap.put(clazz, set);
-          } else {
-            final Set<String> set = new HashSet<>(16);
-            set.add(fqcn);
-            this.callerMap.put(clazz, set);
-          }
-        }
-        source.usingClasses.clear();
-      }
-
-      final File sourceFile = source.getFile();
-      final String path = sourceFile.getCanonicalPath();
       if (!source.hasCompileError) {
-        final String md5sum = FileUtils.getChecksum(sourceFile);
-        checksumMap.put(path, md5sum);
+        final String root = this.project.projectRootPath;
+        final FileChecksum prev = ProjectDatabaseHelper.getFileChecksum(root, path).orElse(null);
+        checksums.put(path, FileUtils.getFileChecksum(root, sourceFile, prev));
+        invalidChecksums.remove(path);
         globalCache.replaceSource(this.project, source);
         ProjectDatabaseHelper.saveSource(source);
       } else {
         // error
-        checksumMap.remove(path);
+        checksums.remove(path);
+        invalidChecksums.add(path);
         globalCache.invalidateSource(this.project, sourceFile);
       }
     }
 
     @Override
     public void complete() throws IOException {
-      ProjectDatabaseHelper.saveChecksumMap(this.project.projectRootPath, this.checksumMap);
-      this.project.writeCaller();
+      ProjectDatabaseHelper.saveFileChecksums(
+          this.project.projectRootPath, this.checksums.values(), this.invalidChecksums);
+      this.project.dependencyGraph.save();
     }
   }
 }
@@ -34,6 +34,8 @@ public class ClassIndex implements CandidateUnit, Cloneable, Serializable, Stora
   private String filePath;
   private MemberType memberType = MemberType.CLASS;
   private EntityId entityID;
+  // ABI fingerprint of a project class file, not stored
+  private transient String fingerprint;
 
   public ClassIndex(
       final String declaration, final List<String> typeParameters, final List<String> supers) {
@@ -205,6 +207,14 @@ public class ClassIndex implements CandidateUnit, Cloneable, Serializable, Stora
     this.filePath = filePath;
   }
 
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public void setFingerprint(String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
   public void addSuper(String clazz) {
     this.supers.add(clazz);
   }
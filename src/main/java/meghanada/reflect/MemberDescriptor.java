@@ -184,14 +184,29 @@ public abstract class MemberDescriptor implements CandidateUnit, Cloneable, Seri
   }
 
   @Override
-  public synchronized MemberDescriptor clone() {
-    final MemberDescriptor descriptor;
+  public MemberDescriptor clone() {
+    final MemberDescriptor descriptor = this.shallowCopy();
+    descriptor.typeParameterMap = new HashMap<>(this.typeParameterMap);
+    return descriptor;
+  }
+
+  /**
+   * Returns a view of this descriptor bound to the type arguments of its declaring class. All other
+   * state is shared with this descriptor, neither of them may be modified afterwards.
+   */
+  public MemberDescriptor withTypeArguments(
+      final Map<String, String> typeArguments, final String declaringClass) {
+    final MemberDescriptor descriptor = this.shallowCopy();
+    descriptor.typeParameterMap = typeArguments;
+    descriptor.declaringClass = declaringClass;
+    return descriptor;
+  }
+
+  private MemberDescriptor shallowCopy() {
     try {
-      descriptor = (MemberDescriptor) super.clone();
+      return (MemberDescriptor) super.clone();
     } catch (CloneNotSupportedException e) {
       throw new UnsupportedOperationException(e);
     }
-    descriptor.typeParameterMap = new HashMap<>(this.typeParameterMap);
-    return descriptor;
   }
 }
@@ -5,6 +5,8 @@ import static java.util.Objects.nonNull;
 import static meghanada.utils.FunctionUtils.wrapIO;
 import static meghanada.utils.FunctionUtils.wrapIOConsumer;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -15,17 +17,15 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import meghanada.config.Config;
@@ -55,8 +55,12 @@ public class ASMReflector {
         "org.jboss.forge.roaster._shade.org.eclipse.core.internal"
       };
   private static final Logger log = LogManager.getLogger(ASMReflector.class);
+  private static final int JAR_MEMBERS_CACHE_SIZE = 2048;
   private static ASMReflector asmReflector;
   private final Set<String> allowClass = new HashSet<>(16);
+  // members of classes in jars, shared by every subclass that inherits them
+  private final Cache<JarClassKey, List<MemberDescriptor>> jarMembers =
+      CacheBuilder.newBuilder().maximumSize(JAR_MEMBERS_CACHE_SIZE).build();
 
   private ASMReflector() {
     Config.load().getAllowClass().forEach(this::addAllowClass);
@@ -138,12 +142,10 @@ public class ASMReflector {
 
   private static void readClassIndex(
       final Map<ClassIndex, File> indexes,
-      final InputStream in,
+      final ClassReader classReader,
       final File file,
-      boolean allowSuper)
-      throws IOException {
+      boolean allowSuper) {
 
-    final ClassReader classReader = new ClassReader(in);
     final String className = ClassNameUtils.replaceSlash(classReader.getClassName());
 
     final boolean projectOutput = file.isDirectory();
@@ -163,7 +165,7 @@ public class ASMReflector {
     }
     if (projectOutput) {
       final ClassAnalyzeVisitor classAnalyzeVisitor =
-          new ClassAnalyzeVisitor(className, true, false);
+          new ClassAnalyzeVisitor(className, true, false).withFingerprint();
       classReader.accept(classAnalyzeVisitor, 0);
       final ClassIndex classIndex = classAnalyzeVisitor.getClassIndex();
       classIndex.setInterface(isInterface);
@@ -242,6 +244,12 @@ public class ASMReflector {
     return supers;
   }
 
+  void releaseJars() {
+    // cached members keep their mapping alive
+    this.jarMembers.invalidateAll();
+    MappedJar.releaseAll();
+  }
+
   private void addAllowClass(final String clazz) {
     this.allowClass.add(clazz);
   }
@@ -286,31 +294,20 @@ public class ASMReflector {
     final Map<ClassIndex, File> indexes = new ConcurrentHashMap<>(32);
 
     if (file.isFile() && file.getName().endsWith("jar")) {
-      try (final JarFile jarFile = new JarFile(file);
-          final Stream<JarEntry> jarStream = jarFile.stream().parallel();
-          final Stream<JarEntry> stream =
-              jarStream
-                  .filter(jarEntry -> jarEntry.getName().endsWith(".class"))
-                  .collect(Collectors.toList())
-                  .parallelStream()) {
-
-        stream.forEach(
-            wrapIOConsumer(
-                jarEntry -> {
-                  final String entryName = jarEntry.getName();
-                  if (!entryName.endsWith(".class")) {
-                    return;
-                  }
-                  final String className =
-                      ClassNameUtils.replaceSlash(entryName.substring(0, entryName.length() - 6));
-                  if (this.ignorePackage(className)) {
-                    return;
-                  }
-                  try (final InputStream in = jarFile.getInputStream(jarEntry)) {
-                    ASMReflector.readClassIndex(indexes, in, file, false);
-                  }
-                }));
-      }
+      final MappedJar jar = MappedJar.open(file);
+      jar.getClassEntryNames()
+          .parallelStream()
+          .forEach(
+              wrapIOConsumer(
+                  entryName -> {
+                    final String className =
+                        ClassNameUtils.replaceSlash(entryName.substring(0, entryName.length() - 6));
+                    if (this.ignorePackage(className)) {
+                      return;
+                    }
+                    ASMReflector.readClassIndex(
+                        indexes, jar.getClassReader(entryName), file, false);
+                  }));
 
     } else if (file.isFile() && file.getName().endsWith(".class")) {
       final String entryName = file.getName();
@@ -323,7 +320,7 @@ public class ASMReflector {
         return indexes;
       }
       try (final InputStream in = new FileInputStream(file)) {
-        ASMReflector.readClassIndex(indexes, in, file, true);
+        ASMReflector.readClassIndex(indexes, new ClassReader(in), file, true);
       }
 
     } else if (file.isDirectory()) {
@@ -348,7 +345,7 @@ public class ASMReflector {
                     return;
                   }
                   try (final InputStream in = new FileInputStream(classFile)) {
-                    ASMReflector.readClassIndex(indexes, in, file, true);
+                    ASMReflector.readClassIndex(indexes, new ClassReader(in), file, true);
                   }
                 }));
       }
@@ -356,12 +353,38 @@ public class ASMReflector {
     return indexes;
   }
 
+  Map<ClassIndex, File> getClasses(final File output, final Collection<File> classFiles) {
+
+    final Map<ClassIndex, File> indexes = new ConcurrentHashMap<>(classFiles.size());
+    classFiles
+        .parallelStream()
+        .filter(File::isFile)
+        .forEach(
+            wrapIOConsumer(
+                classFile -> {
+                  final String entryName = classFile.getName();
+                  if (!entryName.endsWith(".class")) {
+                    return;
+                  }
+                  final String className =
+                      ClassNameUtils.replaceSlash(entryName.substring(0, entryName.length() - 6));
+                  if (this.ignorePackage(className)) {
+                    return;
+                  }
+                  try (final InputStream in = new FileInputStream(classFile)) {
+                    // read as project output, like a walk of the output directory
+                    ASMReflector.readClassIndex(indexes, new ClassReader(in), output, true);
+                  }
+                }));
+    return indexes;
+  }
+
   public List<MemberDescriptor> reflectAll(final InheritanceInfo info) {
 
     final Map<String, List<MemberDescriptor>> collect =
         info.classFileMap
             .entrySet()
-            .stream()
+            .parallelStream()
             .map(
                 wrapIO(
                     entry ->
@@ -404,64 +427,22 @@ public class ASMReflector {
 
     if (file.isFile() && file.getName().endsWith(".jar")) {
 
-      try (final JarFile jarFile = new JarFile(file)) {
-        final Enumeration<JarEntry> entries = jarFile.entries();
-        final List<MemberDescriptor> results = new ArrayList<>(64);
-        while (entries.hasMoreElements()) {
-          if (targetClasses.isEmpty()) {
-            break;
-          }
-          final JarEntry jarEntry = entries.nextElement();
-          final String entryName = jarEntry.getName();
-          if (!entryName.endsWith(".class")) {
-            continue;
-          }
-          final String className =
-              ClassNameUtils.replaceSlash(entryName.substring(0, entryName.length() - 6));
-          if (this.ignorePackage(className)) {
-            continue;
-          }
-          final Iterator<String> classIterator = targetClasses.iterator();
-
-          while (classIterator.hasNext()) {
-            final String nameWithTP = classIterator.next();
-            if (nonNull(nameWithTP)) {
-              final boolean isSuper = !targetClass.equals(nameWithTP);
-              final String nameWithoutTP = ClassNameUtils.removeTypeParameter(nameWithTP);
-
-              if (className.equals(nameWithoutTP)) {
-                try (final InputStream in = jarFile.getInputStream(jarEntry)) {
-                  final ClassReader classReader = new ClassReader(in);
-                  final List<MemberDescriptor> members =
-                      this.getMemberFromJar(file, classReader, nameWithoutTP, nameWithTP);
-                  if (isSuper) {
-                    replaceDescriptorsType(nameWithTP, members);
-                  }
-                  results.addAll(members);
-                  classIterator.remove();
-                  break;
-                }
-              }
-
-              final String innerClassName = ClassNameUtils.replaceInnerMark(className);
-              if (innerClassName.equals(nameWithoutTP)) {
-                try (final InputStream in = jarFile.getInputStream(jarEntry)) {
-                  final ClassReader classReader = new ClassReader(in);
-                  final List<MemberDescriptor> members =
-                      this.getMemberFromJar(file, classReader, innerClassName, nameWithTP);
-                  if (isSuper) {
-                    replaceDescriptorsType(nameWithTP, members);
-                  }
-                  results.addAll(members);
-                  classIterator.remove();
-                  break;
-                }
-              }
-            }
-          }
-        }
-        return results;
-      }
+      final MappedJar jar = MappedJar.open(file);
+      return targetClasses
+          .parallelStream()
+          .filter(Objects::nonNull)
+          .distinct()
+          .map(
+              wrapIO(
+                  nameWithTP -> {
+                    final List<MemberDescriptor> members = this.getJarMembers(jar, nameWithTP);
+                    if (!targetClass.equals(nameWithTP)) {
+                      replaceDescriptorsType(nameWithTP, members);
+                    }
+                    return members;
+                  }))
+          .flatMap(Collection::stream)
+          .collect(Collectors.toList());
     } else if (file.isFile() && file.getName().endsWith(".class")) {
 
       for (String nameWithTP : targetClasses) {
@@ -533,50 +514,7 @@ public class ASMReflector {
   private List<MemberDescriptor> reflect(final File file, final String name) throws IOException {
     final String nameWithoutTP = ClassNameUtils.removeTypeParameter(name);
     if (file.isFile() && file.getName().endsWith(".jar")) {
-      try (final JarFile jarFile = new JarFile(file);
-          final Stream<JarEntry> jarStream = jarFile.stream().parallel();
-          final Stream<JarEntry> stream =
-              jarStream
-                  .filter(jarEntry -> jarEntry.getName().endsWith(".class"))
-                  .collect(Collectors.toList())
-                  .parallelStream()) {
-
-        return stream
-            .map(
-                wrapIO(
-                    jarEntry -> {
-                      final String entryName = jarEntry.getName();
-                      if (!entryName.endsWith(".class")) {
-                        return new ArrayList<MemberDescriptor>(0);
-                      }
-                      String className =
-                          ClassNameUtils.replaceSlash(
-                              entryName.substring(0, entryName.length() - 6));
-                      if (this.ignorePackage(className)) {
-                        return new ArrayList<MemberDescriptor>(0);
-                      }
-                      if (className.equals(nameWithoutTP)) {
-                        try (final InputStream in = jarFile.getInputStream(jarEntry)) {
-                          final ClassReader classReader = new ClassReader(in);
-                          return getMemberFromJar(file, classReader, nameWithoutTP, name);
-                        }
-                      }
-
-                      // To bin name
-                      className = ClassNameUtils.replaceInnerMark(className);
-                      if (className.equals(nameWithoutTP)) {
-                        try (final InputStream in = jarFile.getInputStream(jarEntry)) {
-                          final ClassReader classReader = new ClassReader(in);
-                          return getMemberFromJar(file, classReader, nameWithoutTP, name);
-                        }
-                      }
-
-                      return new ArrayList<MemberDescriptor>(0);
-                    }))
-            .filter(list -> list.size() > 0)
-            .findFirst()
-            .orElse(Collections.emptyList());
-      }
+      return this.getJarMembers(MappedJar.open(file), name);
     } else if (file.isFile() && file.getName().endsWith(".class")) {
       final List<MemberDescriptor> members = getMembersFromClassFile(file, file, nameWithoutTP);
       if (nonNull(members)) {
@@ -596,6 +534,49 @@ public class ASMReflector {
     return Collections.emptyList();
   }
 
+  private List<MemberDescriptor> getJarMembers(final MappedJar jar, final String nameWithTP)
+      throws IOException {
+    final JarClassKey key = new JarClassKey(jar, nameWithTP);
+    List<MemberDescriptor> members = this.jarMembers.getIfPresent(key);
+    if (isNull(members)) {
+      final String nameWithoutTP = ClassNameUtils.removeTypeParameter(nameWithTP);
+      final String entryName = this.findClassEntry(jar, nameWithoutTP);
+      if (isNull(entryName)) {
+        return new ArrayList<>(0);
+      }
+      final ClassReader classReader = jar.getClassReader(entryName);
+      members =
+          Collections.unmodifiableList(
+              this.getMemberFromJar(jar.getFile(), classReader, nameWithoutTP, nameWithTP));
+      this.jarMembers.put(key, members);
+    }
+    // callers rewrite type parameters in place
+    final List<MemberDescriptor> result = new ArrayList<>(members.size());
+    for (final MemberDescriptor md : members) {
+      result.add(md.clone());
+    }
+    return result;
+  }
+
+  private String findClassEntry(final MappedJar jar, final String fqcn) {
+    // inner classes may be given with '.', try each enclosing level as '$'
+    final StringBuilder sb = new StringBuilder(fqcn.replace('.', '/'));
+    int sep = sb.length();
+    while (sep > 0) {
+      final String entryName = sb.toString() + ".class";
+      if (jar.contains(entryName)) {
+        final String className =
+            ClassNameUtils.replaceSlash(entryName.substring(0, entryName.length() - 6));
+        return this.ignorePackage(className) ? null : entryName;
+      }
+      sep = sb.lastIndexOf("/", sep - 1);
+      if (sep > 0) {
+        sb.setCharAt(sep, '$');
+      }
+    }
+    return null;
+  }
+
   private List<MemberDescriptor> getMembersFromClassFile(File parent, File file, String fqcn)
       throws IOException {
     return getMembersFromClassFile(parent, file, fqcn, true);
@@ -724,4 +705,33 @@ public class ASMReflector {
     Collections.reverse(supers);
     supers.forEach(superClass -> this.searchReflectInfo(index, superClass, info));
   }
+
+  private static class JarClassKey {
+
+    // identity of the mapping, a rewritten jar gets a new one
+    private final MappedJar jar;
+    private final String nameWithTP;
+
+    private JarClassKey(final MappedJar jar, final String nameWithTP) {
+      this.jar = jar;
+      this.nameWithTP = nameWithTP;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof JarClassKey)) {
+        return false;
+      }
+      final JarClassKey that = (JarClassKey) o;
+      return this.jar == that.jar && this.nameWithTP.equals(that.nameWithTP);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(this.jar) + this.nameWithTP.hashCode();
+    }
+  }
 }
@@ -1,8 +1,11 @@
 package meghanada.reflect.asm;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static meghanada.utils.FunctionUtils.wrapIOConsumer;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.File;
@@ -10,16 +13,17 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -31,19 +35,29 @@ import meghanada.reflect.MemberDescriptor;
 import meghanada.store.ProjectDatabaseHelper;
 import meghanada.utils.ClassName;
 import meghanada.utils.ClassNameUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class CachedASMReflector {
 
   private static final int CACHE_SIZE = 1024 * 16;
+  private static final int PARAMETERIZED_CACHE_SIZE = 256;
   private static final Logger log = LogManager.getLogger(CachedASMReflector.class);
 
   private static final Pattern PACKAGE_RE = Pattern.compile("\\.\\*");
   private static CachedASMReflector cachedASMReflector;
 
   private final Map<String, ClassIndex> globalClassIndex = new ConcurrentHashMap<>(CACHE_SIZE);
+  private final ClassSearchIndex searchIndex = new ClassSearchIndex();
+  // package -> (simple name -> FQCN)
+  private final Map<String, Map<String, String>> packageClasses = new ConcurrentHashMap<>(256);
+  // outer FQCN -> inner FQCNs, every enclosing class is a key
+  private final Map<String, Set<String>> innerClasses = new ConcurrentHashMap<>(CACHE_SIZE);
+  // project classes whose class file fingerprint changed since the last take
+  private final Set<String> changedClasses = ConcurrentHashMap.newKeySet(64);
+  // parameterized type -> member views, rebuilt when the cached members are replaced
+  private final Cache<String, ParameterizedMembers> parameterizedMembers =
+      CacheBuilder.newBuilder().maximumSize(PARAMETERIZED_CACHE_SIZE).build();
 
   private final Set<File> jars = new HashSet<>(64);
   private final Set<File> directories = new HashSet<>(8);
@@ -61,52 +75,42 @@ public class CachedASMReflector {
     return cachedASMReflector;
   }
 
-  private static boolean containsKeyword(
-      final String keyword, final boolean partial, final ClassIndex index) {
-
-    final String name = index.getName();
-    if (ClassNameUtils.isAnonymousClass(name)) {
-      return false;
-    }
-    if (partial) {
-      final String lowerKeyword = keyword.toLowerCase();
-      final String className = name.toLowerCase();
-      return className.contains(lowerKeyword);
-    } else {
-      return name.equals(keyword)
-          || name.endsWith('$' + keyword)
-          || index.getDeclaration().equals(keyword);
-    }
-  }
-
   private static List<MemberDescriptor> replaceTypeParameters(
       final String className, final String classWithTP, final List<MemberDescriptor> members) {
     final int idx1 = classWithTP.indexOf('<');
-    if (idx1 >= 0) {
-      final List<String> types = ClassNameUtils.parseTypeParameter(classWithTP);
-      final List<String> realTypes = ClassNameUtils.parseTypeParameter(className);
-      // log.warn("className {} types {} realTypes {}", className, types, realTypes);
-      for (final MemberDescriptor md : members) {
-        if (md.hasTypeParameters()) {
-          md.clearTypeParameterMap();
-          int realSize = realTypes.size();
-          for (int i = 0; i < types.size(); i++) {
-            final String t = types.get(i);
-            if (realSize > i) {
-              final String real = realTypes.get(i);
-              md.putTypeParameter(t, real);
-              // log.debug("put t:{}, real:{}", t, real);
-            }
+    if (idx1 < 0) {
+      return members;
+    }
+    final List<String> types = ClassNameUtils.parseTypeParameter(classWithTP);
+    final List<String> realTypes = ClassNameUtils.parseTypeParameter(className);
+    // log.warn("className {} types {} realTypes {}", className, types, realTypes);
+    final List<MemberDescriptor> result = new ArrayList<>(members.size());
+    for (final MemberDescriptor md : members) {
+      Map<String, String> typeArguments = md.typeParameterMap;
+      if (md.hasTypeParameters()) {
+        typeArguments = new HashMap<>(types.size());
+        final int realSize = realTypes.size();
+        for (int i = 0; i < types.size() && i < realSize; i++) {
+          final String t = types.get(i);
+          if (md.getTypeParameters().contains(t)) {
+            typeArguments.put(t, realTypes.get(i));
           }
         }
+      }
 
-        final String declaringClass = ClassNameUtils.removeTypeParameter(md.getDeclaringClass());
-        if (className.startsWith(declaringClass)) {
-          md.setDeclaringClass(className);
-        }
+      String declaringClass = md.getDeclaringClass();
+      if (className.startsWith(ClassNameUtils.removeTypeParameter(declaringClass))) {
+        declaringClass = className;
+      }
+
+      if (typeArguments == md.typeParameterMap && declaringClass.equals(md.getDeclaringClass())) {
+        // nothing to bind, share it
+        result.add(md);
+      } else {
+        result.add(md.withTypeArguments(typeArguments, declaringClass));
       }
     }
-    return members;
+    return result;
   }
 
   public void addClasspath(final Collection<File> depends) {
@@ -128,40 +132,60 @@ public class CachedASMReflector {
   public void createClassIndexes() {
     log.debug("start createClassIndexes");
 
-    this.jars
-        .parallelStream()
-        .forEach(
-            wrapIOConsumer(
-                root -> {
-                  // TODO is loaded ?
-                  final ASMReflector reflector = ASMReflector.getInstance();
-                  reflector
-                      .getClasses(root)
-                      .entrySet()
-                      .parallelStream()
-                      .forEach(entry -> addClassIndex(entry.getKey(), entry.getValue()));
-                }));
+    this.jars.parallelStream().forEach(wrapIOConsumer(this::createJarClassIndexes));
 
     this.updateClassIndexFromDirectory();
-    this.saveAllClassIndexes();
   }
 
-  private void saveAllClassIndexes() {
-    List<ClassIndex> jarIndexes =
-        globalClassIndex
-            .values()
-            .stream()
-            .filter(classIndex -> classIndex.getFilePath().endsWith(".jar"))
-            .collect(Collectors.toList());
-    List<ClassIndex> otherIndexes =
-        globalClassIndex
-            .values()
-            .stream()
-            .filter(classIndex -> !classIndex.getFilePath().endsWith(".jar"))
-            .collect(Collectors.toList());
+  private void createJarClassIndexes(final File jar) throws IOException {
+    final JarFingerprint fingerprint = JarFingerprint.of(jar);
+    final String filePath = fingerprint.getFilePath();
+    final Optional<JarFingerprint> stored = ProjectDatabaseHelper.getJarFingerprint(filePath);
+
+    if (stored.isPresent() && stored.get().isSameFile(fingerprint)) {
+      // unchanged, load from the project database without reading the jar
+      final Optional<List<ClassIndex>> loaded = ProjectDatabaseHelper.loadClassIndexes(filePath);
+      if (!loaded.isPresent()) {
+        log.warn("class indexes of {} are unreadable, rescan", filePath);
+      } else if (loaded.get().size() == stored.get().getClasses()) {
+        final List<ClassIndex> indexes = loaded.get();
+        indexes.forEach(this::putClassIndex);
+        log.debug("load {} class indexes from {}", indexes.size(), filePath);
+        return;
+      } else {
+        log.debug(
+            "class indexes of {} are incomplete {}/{}, rescan",
+            filePath,
+            loaded.get().size(),
+            stored.get().getClasses());
+      }
+    }
 
-    ProjectDatabaseHelper.saveClassIndexes(jarIndexes, false);
-    ProjectDatabaseHelper.saveClassIndexes(otherIndexes, true);
+    if (stored.isPresent()) {
+      // changed or incomplete, drop the old entries and their member caches
+      ProjectDatabaseHelper.deleteClassIndexes(filePath);
+    }
+    final ASMReflector reflector = ASMReflector.getInstance();
+    final Map<ClassIndex, File> classes = reflector.getClasses(jar);
+    classes
+        .entrySet()
+        .parallelStream()
+        .forEach(entry -> addClassIndex(entry.getKey(), entry.getValue()));
+
+    // an existing entry of another jar is not overwritten, so it is not counted for this one
+    final int owned =
+        classes.size()
+            - ProjectDatabaseHelper.countClassIndexesOfOtherFiles(
+                classes
+                    .keySet()
+                    .stream()
+                    .map(ClassIndex::getRawDeclaration)
+                    .collect(Collectors.toList()),
+                filePath);
+    ProjectDatabaseHelper.saveClassIndexes(classes.keySet(), false);
+    fingerprint.setClasses(owned);
+    // queued after the class indexes, so it is never stored without them
+    ProjectDatabaseHelper.saveJarFingerprint(fingerprint);
   }
 
   private void updateClassIndexes() {
@@ -175,7 +199,16 @@ public class CachedASMReflector {
     ProjectDatabaseHelper.saveClassIndexes(otherIndexes, true);
   }
 
-  private void addClassIndex(ClassIndex newIndex, File file) {
+  private boolean addClassIndex(ClassIndex newIndex, File file) {
+    try {
+      newIndex.setFilePath(file.getCanonicalPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return this.putClassIndex(newIndex);
+  }
+
+  private boolean putClassIndex(ClassIndex newIndex) {
 
     final String fqcn = newIndex.getRawDeclaration();
     ClassIndex old = this.globalClassIndex.get(fqcn);
@@ -187,33 +220,75 @@ public class CachedASMReflector {
         newIndex.setEntityID(entityId);
       }
     }
-    try {
-      newIndex.setFilePath(file.getCanonicalPath());
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
+    final String fingerprint = newIndex.getFingerprint();
+    final boolean changed =
+        isNull(fingerprint) || isNull(old) || !fingerprint.equals(old.getFingerprint());
+    if (changed && nonNull(fingerprint)) {
+      this.changedClasses.add(fqcn);
     }
 
     this.globalClassIndex.put(fqcn, newIndex);
+    this.searchIndex.add(newIndex);
+
+    this.packageClasses
+        .computeIfAbsent(newIndex.getPackage(), k -> new ConcurrentHashMap<>(64))
+        .putIfAbsent(newIndex.getName(), fqcn);
+    for (int i = fqcn.indexOf('$'); i > 0; i = fqcn.indexOf('$', i + 1)) {
+      this.innerClasses
+          .computeIfAbsent(fqcn.substring(0, i), k -> ConcurrentHashMap.newKeySet())
+          .add(fqcn);
+    }
+    return changed;
+  }
+
+  private void removeClassIndex(final String fqcn) {
+    final ClassIndex old = this.globalClassIndex.remove(fqcn);
+    if (isNull(old)) {
+      return;
+    }
+    this.searchIndex.remove(fqcn);
+    final Map<String, String> classes = this.packageClasses.get(old.getPackage());
+    if (nonNull(classes)) {
+      classes.remove(old.getName(), fqcn);
+    }
+    for (int i = fqcn.indexOf('$'); i > 0; i = fqcn.indexOf('$', i + 1)) {
+      final Set<String> inners = this.innerClasses.get(fqcn.substring(0, i));
+      if (nonNull(inners)) {
+        inners.remove(fqcn);
+      }
+    }
+    // evicted from the member cache with the changed classes
+    this.changedClasses.add(fqcn);
+  }
+
+  /** Removes the classes of deleted sources and their nested classes from the class index. */
+  public void removeClassIndexes(final Collection<String> classes) {
+    final Set<String> removed = new HashSet<>(classes.size() * 2);
+    for (final String fqcn : classes) {
+      if (this.globalClassIndex.containsKey(fqcn)) {
+        removed.add(fqcn);
+        removed.addAll(this.innerClasses.getOrDefault(fqcn, Collections.emptySet()));
+      }
+    }
+    if (removed.isEmpty()) {
+      return;
+    }
+    removed.forEach(this::removeClassIndex);
+    ProjectDatabaseHelper.deleteClassIndexes(removed);
+    log.debug("remove class indexes:{}", removed.size());
+  }
+
+  /** Releases the jar mappings, jars rebuilt in place are mapped again on the next read. */
+  public void releaseJars() {
+    ASMReflector.getInstance().releaseJars();
   }
 
   public void createClassIndexes(final Collection<File> addJars) {
     addJars
         .parallelStream()
-        .forEach(
-            wrapIOConsumer(
-                jar -> {
-                  if (this.jars.contains(jar)) {
-                    return;
-                  }
-                  final ASMReflector reflector = ASMReflector.getInstance();
-                  reflector
-                      .getClasses(jar)
-                      .entrySet()
-                      .parallelStream()
-                      .forEach(entry -> addClassIndex(entry.getKey(), entry.getValue()));
-                }));
+        .filter(jar -> !this.jars.contains(jar))
+        .forEach(wrapIOConsumer(this::createJarClassIndexes));
     this.jars.addAll(addJars);
-    this.saveAllClassIndexes();
   }
 
   public void updateClassIndexFromDirectory() {
@@ -234,6 +309,74 @@ public class CachedASMReflector {
     this.updateClassIndexes();
   }
 
+  public void updateClassIndexFromFiles(final File output, final Collection<File> classFiles)
+      throws IOException {
+    if (classFiles.isEmpty()) {
+      return;
+    }
+    final File canonical = output.getCanonicalFile();
+    final Optional<File> directory =
+        this.directories.stream().filter(dir -> isSameFile(dir, canonical)).findFirst();
+    if (!directory.isPresent()) {
+      // the written files can not be resolved against a class directory, walk them all
+      log.debug("{} is not a registered class directory, walk the class directories", output);
+      this.updateClassIndexFromDirectory();
+      return;
+    }
+
+    final ASMReflector reflector = ASMReflector.getInstance();
+    final Map<ClassIndex, File> classes = reflector.getClasses(directory.get(), classFiles);
+    final List<ClassIndex> updated = new ArrayList<>(classes.size());
+    final Set<String> written = new HashSet<>(classes.size());
+    classes.forEach(
+        (classIndex, file) -> {
+          written.add(classIndex.getRawDeclaration());
+          if (this.addClassIndex(classIndex, file)) {
+            updated.add(classIndex);
+          }
+        });
+
+    // a rewritten top level class brings all of its nested classes, the others are gone.
+    // their class files belong to the build tool and are left in place
+    final Set<String> removed = new HashSet<>(4);
+    for (final String fqcn : written) {
+      if (fqcn.indexOf('$') < 0) {
+        for (final String inner : this.innerClasses.getOrDefault(fqcn, Collections.emptySet())) {
+          if (!written.contains(inner)) {
+            removed.add(inner);
+          }
+        }
+      }
+    }
+    removed.forEach(this::removeClassIndex);
+
+    if (!updated.isEmpty()) {
+      ProjectDatabaseHelper.saveClassIndexes(updated, true);
+    }
+    if (!removed.isEmpty()) {
+      ProjectDatabaseHelper.deleteClassIndexes(removed);
+    }
+    log.debug(
+        "update class index written:{} updated:{} removed:{}",
+        written.size(),
+        updated.size(),
+        removed.size());
+  }
+
+  private static boolean isSameFile(final File dir, final File canonical) {
+    try {
+      return dir.getCanonicalFile().equals(canonical);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public Set<String> takeChangedClasses() {
+    final Set<String> result = new HashSet<>(this.changedClasses);
+    this.changedClasses.removeAll(result);
+    return result;
+  }
+
   public boolean containsFQCN(String fqcn) {
     return this.globalClassIndex.containsKey(fqcn);
   }
@@ -258,15 +401,11 @@ public class CachedASMReflector {
       packageName = PACKAGE_RE.matcher(packageName).replaceAll("");
     }
 
-    final Map<String, String> result = new HashMap<>(64);
-
-    for (final ClassIndex ci : this.globalClassIndex.values()) {
-      if (ci.getPackage().equals(packageName)) {
-        result.putIfAbsent(ci.getName(), ci.getRawDeclaration());
-      }
+    final Map<String, String> classes = this.packageClasses.get(packageName);
+    if (isNull(classes)) {
+      return new HashMap<>(0);
     }
-
-    return result;
+    return new HashMap<>(classes);
   }
 
   public List<ClassIndex> fuzzySearchClasses(final String keyword) {
@@ -278,61 +417,54 @@ public class CachedASMReflector {
   }
 
   private List<ClassIndex> fuzzySearchClasses(final String keyword, final boolean anno) {
-    final int length = keyword.length() + 1;
+    return this.fuzzySearchClasses(keyword, anno, ClassSearchIndex.UNLIMITED);
+  }
 
-    final List<ClassIndex> result = new ArrayList<>(64);
-    for (final ClassIndex c : this.globalClassIndex.values()) {
-      if (anno && !c.isAnnotation()) {
-        continue;
-      }
-      final String name = c.getName();
-      final int score = StringUtils.getFuzzyDistance(name, keyword, Locale.ENGLISH);
-      if (score >= length) {
-        result.add(c.clone());
-      }
-    }
-    return result;
+  public List<ClassIndex> fuzzySearchClasses(
+      final String keyword, final boolean anno, final int limit) {
+    return this.searchIndex.fuzzySearch(keyword, anno, limit);
+  }
+
+  /** Returns the best limit classes by key, the key is computed once per matching class. */
+  public <K extends Comparable<? super K>> List<ClassIndex> fuzzySearchClasses(
+      final String keyword,
+      final boolean anno,
+      final Function<? super ClassIndex, K> key,
+      final int limit) {
+    return this.searchIndex.fuzzySearch(keyword, anno, key, limit);
   }
 
   public Stream<ClassIndex> fuzzySearchClassesStream(final String keyword, final boolean anno) {
-    final int length = keyword.length() + 1;
-    return this.globalClassIndex
-        .values()
-        .parallelStream()
-        .filter(
-            classIndex -> {
-              if (anno && !classIndex.isAnnotation()) {
-                return false;
-              }
-              final String name = classIndex.getName();
-              final int score = StringUtils.getFuzzyDistance(name, keyword, Locale.ENGLISH);
-              return score >= length;
-            })
-        .map(ClassIndex::clone);
+    return this.fuzzySearchClasses(keyword, anno).stream();
   }
 
   public List<ClassIndex> searchInnerClasses(final String parent) {
-    return this.globalClassIndex
-        .values()
-        .parallelStream()
-        .filter(classIndex -> classIndex.getReturnType().startsWith(parent + '$'))
-        .map(ClassIndex::clone)
-        .collect(Collectors.toList());
+    final List<ClassIndex> result = new ArrayList<>(16);
+    this.addInnerClasses(parent, result);
+    return result;
   }
 
   public List<ClassIndex> searchInnerClasses(final Set<String> parents) {
     final List<ClassIndex> result = new ArrayList<>(16);
-    for (final ClassIndex ci : this.globalClassIndex.values()) {
-      final String returnType = ci.getReturnType();
-      for (final String parent : parents) {
-        if (returnType.startsWith(parent + '$')) {
-          result.add(ci.clone());
-        }
-      }
+    for (final String parent : parents) {
+      this.addInnerClasses(parent, result);
     }
     return result;
   }
 
+  private void addInnerClasses(final String parent, final List<ClassIndex> result) {
+    final Set<String> inners = this.innerClasses.get(parent);
+    if (isNull(inners)) {
+      return;
+    }
+    for (final String fqcn : inners) {
+      final ClassIndex ci = this.globalClassIndex.get(fqcn);
+      if (nonNull(ci)) {
+        result.add(ci.clone());
+      }
+    }
+  }
+
   public List<ClassIndex> searchClasses(final String keyword) {
     return this.searchClasses(keyword, true, false);
   }
@@ -343,36 +475,27 @@ public class CachedASMReflector {
 
   public List<ClassIndex> searchClasses(
       final String keyword, final boolean partial, final boolean anno) {
+    return this.searchClasses(keyword, partial, anno, ClassSearchIndex.UNLIMITED);
+  }
 
-    final List<ClassIndex> result = new ArrayList<>(64);
-    for (final ClassIndex c : this.globalClassIndex.values()) {
-      if (keyword.isEmpty()) {
-        result.add(c.clone());
-      } else {
-        if (!(anno && !c.isAnnotation())
-            && CachedASMReflector.containsKeyword(keyword, partial, c)) {
-          result.add(c.clone());
-        }
-      }
-    }
-    return result;
+  public List<ClassIndex> searchClasses(
+      final String keyword, final boolean partial, final boolean anno, final int limit) {
+    return this.searchIndex.search(keyword, partial, anno, limit);
+  }
+
+  /** Returns the best limit classes by key, the key is computed once per matching class. */
+  public <K extends Comparable<? super K>> List<ClassIndex> searchClasses(
+      final String keyword,
+      final boolean partial,
+      final boolean anno,
+      final Function<? super ClassIndex, K> key,
+      final int limit) {
+    return this.searchIndex.search(keyword, partial, anno, key, limit);
   }
 
   public Stream<ClassIndex> searchClassesStream(
       final String keyword, final boolean partial, final boolean anno) {
-    return this.globalClassIndex
-        .values()
-        .parallelStream()
-        .filter(
-            classIndex -> {
-              if (keyword.isEmpty()) {
-                // match all
-                return true;
-              }
-              return !(anno && !classIndex.isAnnotation())
-                  && CachedASMReflector.containsKeyword(keyword, partial, classIndex);
-            })
-        .map(ClassIndex::clone);
+    return this.searchClasses(keyword, partial, anno).stream();
   }
 
   public Stream<ClassIndex> allClassStream() {
@@ -392,21 +515,22 @@ public class CachedASMReflector {
             });
   }
 
+  /**
+   * Returns the members of the class in a new list. The descriptors are shared with the member
+   * cache and must not be modified, members of a parameterized type are views bound to its type
+   * arguments.
+   */
   public List<MemberDescriptor> reflect(final String className) {
     final ClassName cn = new ClassName(className);
     // check type parameter
     final String classWithoutTP = cn.getName();
     final GlobalCache globalCache = GlobalCache.getInstance();
     try {
-      final List<MemberDescriptor> members = new ArrayList<>(16);
-      List<MemberDescriptor> list = globalCache.getMemberDescriptors(classWithoutTP);
-      for (final MemberDescriptor md : list) {
-        members.add(md.clone());
-      }
+      final List<MemberDescriptor> members = globalCache.getMemberDescriptors(classWithoutTP);
       if (cn.hasTypeParameter()) {
-        return this.replaceMembers(classWithoutTP, className, members);
+        return new ArrayList<>(this.replaceMembers(classWithoutTP, className, members));
       }
-      return members;
+      return new ArrayList<>(members);
     } catch (ExecutionException e) {
       throw new UncheckedExecutionException(e);
     }
@@ -416,10 +540,18 @@ public class CachedASMReflector {
       final String classWithoutTP, final String className, final List<MemberDescriptor> members) {
 
     final ClassIndex classIdx = this.globalClassIndex.get(classWithoutTP);
-    if (classIdx != null) {
-      return replaceTypeParameters(className, classIdx.getDisplayDeclaration(), members);
+    if (isNull(classIdx)) {
+      return members;
     }
-    return members;
+    final String classWithTP = classIdx.getDisplayDeclaration();
+    final ParameterizedMembers cached = this.parameterizedMembers.getIfPresent(className);
+    if (nonNull(cached) && cached.isViewOf(members, classWithTP)) {
+      return cached.view;
+    }
+    final List<MemberDescriptor> view =
+        Collections.unmodifiableList(replaceTypeParameters(className, classWithTP, members));
+    this.parameterizedMembers.put(className, new ParameterizedMembers(members, classWithTP, view));
+    return view;
   }
 
   private Stream<MemberDescriptor> reflectStream(final String className) {
@@ -505,4 +637,24 @@ public class CachedASMReflector {
     this.standardClasses = map;
     return this.standardClasses;
   }
+
+  private static class ParameterizedMembers {
+
+    private final List<MemberDescriptor> members;
+    private final String classWithTP;
+    private final List<MemberDescriptor> view;
+
+    ParameterizedMembers(
+        final List<MemberDescriptor> members,
+        final String classWithTP,
+        final List<MemberDescriptor> view) {
+      this.members = members;
+      this.classWithTP = classWithTP;
+      this.view = view;
+    }
+
+    boolean isViewOf(final List<MemberDescriptor> members, final String classWithTP) {
+      return this.members == members && this.classWithTP.equals(classWithTP);
+    }
+  }
 }
@@ -1,8 +1,14 @@
 package meghanada.reflect.asm;
 
+import static java.util.Objects.nonNull;
+
 import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +29,7 @@ class ClassAnalyzeVisitor extends ClassVisitor {
   private static final String CLASS_INIT = "<init>";
   private static final String CLINIT = "<clinit>";
   private static final String FUNCTIONAL = "Ljava/lang/FunctionalInterface;";
+  private static final int HIDDEN = Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC;
   private static Logger log = LogManager.getLogger(ClassAnalyzeVisitor.class);
 
   final String className;
@@ -33,6 +40,8 @@ class ClassAnalyzeVisitor extends ClassVisitor {
   private int access;
   private ClassIndex classIndex;
   private String classNameWithType;
+  // what other classes compile against, only collected for project classes
+  private List<String> abi;
 
   ClassAnalyzeVisitor(
       final String className, final boolean classOnly, final boolean includePrivate) {
@@ -56,12 +65,28 @@ class ClassAnalyzeVisitor extends ClassVisitor {
     this(className, false, false);
   }
 
+  ClassAnalyzeVisitor withFingerprint() {
+    this.abi = new ArrayList<>(32);
+    return this;
+  }
+
   @Override
   public void visit(
       int api, int access, String name, String signature, String superClass, String[] interfaces) {
     // log.debug("Name:{}", name);
     // call class
     this.access = access;
+    if (nonNull(this.abi)) {
+      this.abi.add(
+          "class "
+              + (access & ~Opcodes.ACC_SUPER)
+              + ' '
+              + signature
+              + ' '
+              + superClass
+              + ' '
+              + Arrays.toString(interfaces));
+    }
     final boolean isInterface = (Opcodes.ACC_INTERFACE & access) == Opcodes.ACC_INTERFACE;
     // log.debug("name {} sig {} IF:{}", name, signature, isInterface);
 
@@ -95,6 +120,10 @@ class ClassAnalyzeVisitor extends ClassVisitor {
   @Override
   public MethodVisitor visitMethod(
       int access, String name, String desc, String sig, String[] exceptions) {
+    if (nonNull(this.abi) && (access & HIDDEN) == 0 && !name.equals(CLINIT)) {
+      this.abi.add(
+          "method " + access + ' ' + name + desc + ' ' + sig + ' ' + Arrays.toString(exceptions));
+    }
     if (this.classOnly) {
       return super.visitMethod(access, name, desc, sig, exceptions);
     }
@@ -140,6 +169,10 @@ class ClassAnalyzeVisitor extends ClassVisitor {
 
   @Override
   public FieldVisitor visitField(int access, String name, String desc, String sig, Object o) {
+    if (nonNull(this.abi) && (access & HIDDEN) == 0) {
+      // constant values are inlined by callers
+      this.abi.add("field " + access + ' ' + name + ' ' + desc + ' ' + sig + " = " + o);
+    }
     if (this.classOnly) {
       return super.visitField(access, name, desc, sig, o);
     }
@@ -191,6 +224,19 @@ class ClassAnalyzeVisitor extends ClassVisitor {
     return super.visitAnnotation(desc, visible);
   }
 
+  @Override
+  public void visitEnd() {
+    if (nonNull(this.abi) && nonNull(this.classIndex)) {
+      Collections.sort(this.abi);
+      final Hasher hasher = Hashing.murmur3_128().newHasher();
+      for (final String line : this.abi) {
+        hasher.putString(line, StandardCharsets.UTF_8).putByte((byte) '\n');
+      }
+      this.classIndex.setFingerprint(hasher.hash().toString());
+    }
+    super.visitEnd();
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
@@ -0,0 +1,421 @@
+package meghanada.reflect.asm;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import meghanada.reflect.ClassIndex;
+import meghanada.utils.ClassNameUtils;
+import meghanada.utils.TopK;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * In-memory search index over the simple names of all known classes.
+ *
+ * <p>Exact lookups use the last inner-class segment of the name, prefix lookups a sorted name map
+ * and partial (contains) lookups the intersection of trigram postings. Fuzzy lookups only score
+ * names that share at least one bigram with the keyword: {@link StringUtils#getFuzzyDistance}
+ * cannot reach {@code keyword.length() + 1} without an adjacent match.
+ */
+class ClassSearchIndex {
+
+  static final int UNLIMITED = Integer.MAX_VALUE;
+
+  private static final int INITIAL_CAPACITY = 1024 * 16;
+  private static final int EXACT_SCORE = 2;
+  private static final int PREFIX_SCORE = 1;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // id -> entry, removed entries are null
+  private final List<ClassIndex> entries = new ArrayList<>(INITIAL_CAPACITY);
+  private final List<String> names = new ArrayList<>(INITIAL_CAPACITY);
+  private final List<String> lowerNames = new ArrayList<>(INITIAL_CAPACITY);
+  private final Map<String, Integer> ids = new HashMap<>(INITIAL_CAPACITY);
+
+  private final NavigableMap<String, IntList> prefixes = new TreeMap<>();
+  private final Map<String, IntList> segments = new HashMap<>(INITIAL_CAPACITY);
+  private final Map<String, IntList> bigrams = new HashMap<>(INITIAL_CAPACITY);
+  private final Map<String, IntList> trigrams = new HashMap<>(INITIAL_CAPACITY);
+
+  private static String toLower(final String s) {
+    return s.toLowerCase(Locale.ENGLISH);
+  }
+
+  private static String lastSegment(final String name) {
+    final int i = Math.max(name.lastIndexOf('.'), name.lastIndexOf('$'));
+    return name.substring(i + 1);
+  }
+
+  private static Set<String> grams(final String s, final int n) {
+    final int len = s.length();
+    if (len < n) {
+      return Collections.emptySet();
+    }
+    final Set<String> result = new HashSet<>(len);
+    for (int i = 0; i <= len - n; i++) {
+      result.add(s.substring(i, i + n));
+    }
+    return result;
+  }
+
+  private static void post(final Map<String, IntList> postings, final String key, final int id) {
+    postings.computeIfAbsent(key, k -> new IntList()).add(id);
+  }
+
+  private static boolean matchExact(final String keyword, final ClassIndex index) {
+    final String name = index.getName();
+    if (ClassNameUtils.isAnonymousClass(name)) {
+      return false;
+    }
+    return name.equals(keyword)
+        || name.endsWith('$' + keyword)
+        || index.getDeclaration().equals(keyword);
+  }
+
+  void add(final ClassIndex classIndex) {
+    final String fqcn = classIndex.getRawDeclaration();
+    final String name = classIndex.getName();
+    this.lock.writeLock().lock();
+    try {
+      final Integer old = this.ids.get(fqcn);
+      if (nonNull(old)) {
+        if (this.names.get(old).equals(name)) {
+          this.entries.set(old, classIndex);
+          return;
+        }
+        this.entries.set(old, null);
+      }
+
+      final int id = this.entries.size();
+      final String lowerName = toLower(name);
+      this.entries.add(classIndex);
+      this.names.add(name);
+      this.lowerNames.add(lowerName);
+      this.ids.put(fqcn, id);
+
+      post(this.prefixes, lowerName, id);
+      post(this.segments, lastSegment(name), id);
+      for (final String gram : grams(lowerName, 2)) {
+        post(this.bigrams, gram, id);
+      }
+      for (final String gram : grams(lowerName, 3)) {
+        post(this.trigrams, gram, id);
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  void remove(final String fqcn) {
+    this.lock.writeLock().lock();
+    try {
+      // postings keep the id, lookups skip null entries
+      final Integer old = this.ids.remove(fqcn);
+      if (nonNull(old)) {
+        this.entries.set(old, null);
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  List<ClassIndex> search(
+      final String keyword, final boolean partial, final boolean anno, final int limit) {
+    final List<ClassIndex> result;
+    this.lock.readLock().lock();
+    try {
+      result = this.find(keyword, partial, anno, limit);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    return cloneAll(result);
+  }
+
+  /**
+   * Returns the best limit matches ordered by key. The key is computed once per match and only the
+   * returned entries are copied.
+   */
+  <K extends Comparable<? super K>> List<ClassIndex> search(
+      final String keyword,
+      final boolean partial,
+      final boolean anno,
+      final Function<? super ClassIndex, K> key,
+      final int limit) {
+    final TopK<ClassIndex, K> top = new TopK<>(limit, key);
+    this.lock.readLock().lock();
+    try {
+      top.addAll(this.find(keyword, partial, anno, UNLIMITED));
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    return cloneAll(top.toList());
+  }
+
+  List<ClassIndex> fuzzySearch(final String keyword, final boolean anno, final int limit) {
+    final List<ClassIndex> result;
+    this.lock.readLock().lock();
+    try {
+      result = this.fuzzyFind(keyword, anno, limit);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    return cloneAll(result);
+  }
+
+  <K extends Comparable<? super K>> List<ClassIndex> fuzzySearch(
+      final String keyword,
+      final boolean anno,
+      final Function<? super ClassIndex, K> key,
+      final int limit) {
+    final TopK<ClassIndex, K> top = new TopK<>(limit, key);
+    this.lock.readLock().lock();
+    try {
+      top.addAll(this.fuzzyFind(keyword, anno, UNLIMITED));
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    return cloneAll(top.toList());
+  }
+
+  private List<ClassIndex> find(
+      final String keyword, final boolean partial, final boolean anno, final int limit) {
+    if (keyword.isEmpty()) {
+      // match all
+      final IntList hits = new IntList();
+      for (int id = 0; id < this.entries.size(); id++) {
+        if (nonNull(this.entries.get(id))) {
+          hits.add(id);
+        }
+      }
+      return this.select(hits, null, limit);
+    }
+    if (partial) {
+      return this.searchPartial(toLower(keyword), anno, limit);
+    }
+    return this.searchExact(keyword, anno, limit);
+  }
+
+  private List<ClassIndex> fuzzyFind(final String keyword, final boolean anno, final int limit) {
+    final int length = keyword.length() + 1;
+    final BitSet seen = new BitSet(this.entries.size());
+    for (final String gram : grams(toLower(keyword), 2)) {
+      final IntList posting = this.bigrams.get(gram);
+      if (nonNull(posting)) {
+        posting.forEach(seen::set);
+      }
+    }
+
+    final IntList hits = new IntList();
+    final IntList scores = new IntList();
+    for (int id = seen.nextSetBit(0); id >= 0; id = seen.nextSetBit(id + 1)) {
+      final ClassIndex c = this.entries.get(id);
+      if (isNull(c) || (anno && !c.isAnnotation())) {
+        continue;
+      }
+      final int score = StringUtils.getFuzzyDistance(c.getName(), keyword, Locale.ENGLISH);
+      if (score >= length) {
+        hits.add(id);
+        scores.add(score);
+      }
+    }
+    return this.select(hits, scores, limit);
+  }
+
+  private List<ClassIndex> searchExact(final String keyword, final boolean anno, final int limit) {
+    final IntList hits = new IntList();
+    final IntList posting = this.segments.get(lastSegment(keyword));
+    if (nonNull(posting)) {
+      posting.forEach(
+          id -> {
+            final ClassIndex c = this.entries.get(id);
+            if (nonNull(c) && !(anno && !c.isAnnotation()) && matchExact(keyword, c)) {
+              hits.add(id);
+            }
+          });
+    }
+    return this.select(hits, null, limit);
+  }
+
+  private List<ClassIndex> searchPartial(
+      final String lowerKeyword, final boolean anno, final int limit) {
+
+    if (limit != UNLIMITED) {
+      // exact and prefix matches always rank first, so they are enough when there are many
+      final IntList hits = new IntList();
+      final IntList scores = new IntList();
+      final String to = lowerKeyword + Character.MAX_VALUE;
+      for (final IntList posting : this.prefixes.subMap(lowerKeyword, true, to, false).values()) {
+        posting.forEach(
+            id -> {
+              if (this.acceptPartial(id, anno)) {
+                hits.add(id);
+                scores.add(this.partialScore(id, lowerKeyword));
+              }
+            });
+      }
+      if (hits.size() >= limit) {
+        return this.select(hits, scores, limit);
+      }
+    }
+
+    final IntList candidates = this.partialCandidates(lowerKeyword);
+    final IntList hits = new IntList();
+    final IntList scores = new IntList();
+    candidates.forEach(
+        id -> {
+          if (this.acceptPartial(id, anno) && this.lowerNames.get(id).contains(lowerKeyword)) {
+            hits.add(id);
+            scores.add(this.partialScore(id, lowerKeyword));
+          }
+        });
+    return this.select(hits, scores, limit);
+  }
+
+  private IntList partialCandidates(final String lowerKeyword) {
+    final int len = lowerKeyword.length();
+    if (len == 2) {
+      final IntList posting = this.bigrams.get(lowerKeyword);
+      return isNull(posting) ? new IntList() : posting;
+    }
+    if (len < 2) {
+      final IntList all = new IntList();
+      for (int id = 0; id < this.entries.size(); id++) {
+        all.add(id);
+      }
+      return all;
+    }
+
+    final List<IntList> postings = new ArrayList<>(len);
+    for (final String gram : grams(lowerKeyword, 3)) {
+      final IntList posting = this.trigrams.get(gram);
+      if (isNull(posting)) {
+        return new IntList();
+      }
+      postings.add(posting);
+    }
+    postings.sort(Comparator.comparingInt(IntList::size));
+
+    final IntList smallest = postings.get(0);
+    final List<IntList> others = postings.subList(1, postings.size());
+    final IntList result = new IntList();
+    smallest.forEach(
+        id -> {
+          for (final IntList other : others) {
+            if (!other.contains(id)) {
+              return;
+            }
+          }
+          result.add(id);
+        });
+    return result;
+  }
+
+  private boolean acceptPartial(final int id, final boolean anno) {
+    final ClassIndex c = this.entries.get(id);
+    return nonNull(c)
+        && !(anno && !c.isAnnotation())
+        && !ClassNameUtils.isAnonymousClass(this.names.get(id));
+  }
+
+  private int partialScore(final int id, final String lowerKeyword) {
+    final String lowerName = this.lowerNames.get(id);
+    if (lowerName.equals(lowerKeyword)) {
+      return EXACT_SCORE;
+    }
+    return lowerName.startsWith(lowerKeyword) ? PREFIX_SCORE : 0;
+  }
+
+  /**
+   * Returns the entries of hits. When limit is bounded only the best limit entries are returned,
+   * ordered by descending score, then by shorter and alphabetically smaller name.
+   */
+  private List<ClassIndex> select(final IntList hits, final IntList scores, final int limit) {
+    final int size = hits.size();
+    if (limit == UNLIMITED) {
+      final List<ClassIndex> result = new ArrayList<>(size);
+      hits.forEach(id -> result.add(this.entries.get(id)));
+      return result;
+    }
+
+    final Comparator<Integer> rank =
+        Comparator.<Integer>comparingInt(i -> isNull(scores) ? 0 : -scores.get(i))
+            .thenComparingInt(i -> this.names.get(hits.get(i)).length())
+            .thenComparing(i -> this.lowerNames.get(hits.get(i)))
+            .thenComparing(i -> this.entries.get(hits.get(i)).getRawDeclaration());
+
+    final PriorityQueue<Integer> queue =
+        new PriorityQueue<>(Math.min(size, limit) + 1, rank.reversed());
+    for (int i = 0; i < size; i++) {
+      queue.add(i);
+      if (queue.size() > limit) {
+        queue.poll();
+      }
+    }
+    final List<Integer> top = new ArrayList<>(queue);
+    top.sort(rank);
+    final List<ClassIndex> result = new ArrayList<>(top.size());
+    for (final Integer i : top) {
+      result.add(this.entries.get(hits.get(i)));
+    }
+    return result;
+  }
+
+  private static List<ClassIndex> cloneAll(final Collection<ClassIndex> indexes) {
+    final List<ClassIndex> result = new ArrayList<>(indexes.size());
+    for (final ClassIndex c : indexes) {
+      result.add(c.clone());
+    }
+    return result;
+  }
+
+  private static class IntList {
+
+    private int[] data = new int[4];
+    private int size;
+
+    void add(final int value) {
+      if (this.size == this.data.length) {
+        this.data = Arrays.copyOf(this.data, this.size * 2);
+      }
+      this.data[this.size++] = value;
+    }
+
+    int get(final int index) {
+      return this.data[index];
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    boolean contains(final int value) {
+      // ids are appended in ascending order
+      return Arrays.binarySearch(this.data, 0, this.size, value) >= 0;
+    }
+
+    void forEach(final IntConsumer consumer) {
+      for (int i = 0; i < this.size; i++) {
+        consumer.accept(this.data[i]);
+      }
+    }
+  }
+}
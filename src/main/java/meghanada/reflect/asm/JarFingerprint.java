@@ -0,0 +1,107 @@
+package meghanada.reflect.asm;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import meghanada.store.Storable;
+
+public class JarFingerprint implements Storable {
+
+  public static final String ENTITY_TYPE = "JarFingerprint";
+
+  private final String filePath;
+  private final long size;
+  private final long lastModified;
+  private int classes;
+
+  public JarFingerprint(
+      final String filePath, final long size, final long lastModified, final int classes) {
+    this.filePath = filePath;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.classes = classes;
+  }
+
+  static JarFingerprint of(final File jar) throws IOException {
+    return new JarFingerprint(jar.getCanonicalPath(), jar.length(), jar.lastModified(), 0);
+  }
+
+  public String getFilePath() {
+    return filePath;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public int getClasses() {
+    return classes;
+  }
+
+  void setClasses(int classes) {
+    this.classes = classes;
+  }
+
+  boolean isSameFile(final JarFingerprint other) {
+    return this.filePath.equals(other.filePath)
+        && this.size == other.size
+        && this.lastModified == other.lastModified;
+  }
+
+  @Override
+  public String getStoreId() {
+    return this.filePath;
+  }
+
+  @Override
+  public String getEntityType() {
+    return ENTITY_TYPE;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Map<String, Comparable> getSaveProperties() {
+    Map<String, Comparable> map = new HashMap<>(3);
+    map.put("size", this.size);
+    map.put("lastModified", this.lastModified);
+    map.put("classes", this.classes);
+    return map;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    JarFingerprint that = (JarFingerprint) o;
+    return size == that.size
+        && lastModified == that.lastModified
+        && classes == that.classes
+        && Objects.equal(filePath, that.filePath);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(filePath, size, lastModified, classes);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("filePath", filePath)
+        .add("size", size)
+        .add("lastModified", lastModified)
+        .add("classes", classes)
+        .toString();
+  }
+}
@@ -0,0 +1,368 @@
+package meghanada.reflect.asm;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Read-only, memory-mapped view of the class entries of a jar file.
+ *
+ * <p>The central directory is parsed once into an entry name to offset table. Class bytes are
+ * copied or inflated from the mapping into per-thread buffers, so a returned {@link ClassReader}
+ * must be consumed before the next read on the same thread. Instances are cached per path and
+ * reopened when the file size or modification time changes.
+ *
+ * <p>A jar rewritten in place under a live mapping faults on access. Such a read, and every later
+ * read of the same instance, falls back to {@link ZipFile}.
+ */
+final class MappedJar {
+
+  private static final Logger log = LogManager.getLogger(MappedJar.class);
+
+  private static final String CLASS_EXT = ".class";
+
+  private static final int LOCAL_HEADER_SIG = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+  private static final int END_SIG = 0x06054b50;
+  private static final int ZIP64_END_SIG = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_SIZE = 22;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+
+  private static final Map<String, MappedJar> cache = new ConcurrentHashMap<>(64);
+  private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+  private final File file;
+  private final String key;
+  private final long length;
+  private final long lastModified;
+  private final Map<String, Entry> entries;
+  // null once released, reads then go through ZipFile
+  private volatile ByteBuffer buffer;
+
+  private MappedJar(final File file, final String key) throws IOException {
+    this.file = file;
+    this.key = key;
+    this.length = file.length();
+    this.lastModified = file.lastModified();
+    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new ZipException("jar file too large: " + file);
+      }
+      // the mapping stays valid after the channel is closed
+      this.buffer =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    Map<String, Entry> entries;
+    try {
+      entries = this.readCentralDirectory();
+    } catch (InternalError e) {
+      log.warn("jar changed while mapping, fall back to zip file: {}", file);
+      this.buffer = null;
+      entries = this.readZipEntries();
+    }
+    this.entries = entries;
+  }
+
+  static MappedJar open(final File file) throws IOException {
+    final String key = file.getAbsolutePath();
+    final MappedJar cached = cache.get(key);
+    if (nonNull(cached)) {
+      if (cached.length == file.length() && cached.lastModified == file.lastModified()) {
+        return cached;
+      }
+      cached.release();
+    }
+    final MappedJar jar = new MappedJar(file, key);
+    cache.put(key, jar);
+    return jar;
+  }
+
+  static void releaseAll() {
+    // drop the mappings so that the files can be replaced, the memory is unmapped on GC
+    cache.values().forEach(MappedJar::release);
+    cache.clear();
+  }
+
+  private void release() {
+    this.buffer = null;
+    cache.remove(this.key, this);
+  }
+
+  File getFile() {
+    return this.file;
+  }
+
+  Set<String> getClassEntryNames() {
+    return Collections.unmodifiableSet(this.entries.keySet());
+  }
+
+  boolean contains(final String entryName) {
+    return this.entries.containsKey(entryName);
+  }
+
+  ClassReader getClassReader(final String entryName) throws IOException {
+    final Entry entry = this.entries.get(entryName);
+    if (isNull(entry)) {
+      return null;
+    }
+    final ByteBuffer mapped = this.buffer;
+    if (nonNull(mapped)) {
+      try {
+        return this.readMapped(mapped, entry, entryName);
+      } catch (InternalError | ZipException e) {
+        // truncated or rewritten under the mapping
+        log.warn("jar changed while mapped, fall back to zip file: {} {}", this.file, entryName);
+        this.release();
+      }
+    }
+    return this.readZipEntry(entryName);
+  }
+
+  private ClassReader readMapped(final ByteBuffer mapped, final Entry entry, final String entryName)
+      throws ZipException {
+    final Buffers buf = buffers.get();
+    final byte[] out = buf.output(entry.size);
+    final ByteBuffer src = mapped.duplicate();
+    final int offset = dataOffset(mapped, entry, entryName);
+    if (offset + (long) entry.compressedSize > mapped.limit()) {
+      throw new ZipException("entry out of bounds: " + entryName);
+    }
+    src.position(offset);
+
+    if (entry.method == STORED) {
+      src.get(out, 0, entry.size);
+    } else if (entry.method == DEFLATED) {
+      // nowrap inflater needs an extra dummy byte
+      final byte[] in = buf.input(entry.compressedSize + 1);
+      src.get(in, 0, entry.compressedSize);
+      in[entry.compressedSize] = 0;
+      inflate(buf.inflater, in, entry.compressedSize + 1, out, entry.size, entryName);
+    } else {
+      throw new ZipException("unsupported compression method " + entry.method + ": " + entryName);
+    }
+    return new ClassReader(out, 0, entry.size);
+  }
+
+  private ClassReader readZipEntry(final String entryName) throws IOException {
+    try (final ZipFile zipFile = new ZipFile(this.file)) {
+      final ZipEntry zipEntry = zipFile.getEntry(entryName);
+      if (isNull(zipEntry)) {
+        return null;
+      }
+      try (final InputStream in = zipFile.getInputStream(zipEntry)) {
+        return new ClassReader(in);
+      }
+    }
+  }
+
+  private Map<String, Entry> readZipEntries() throws IOException {
+    try (final ZipFile zipFile = new ZipFile(this.file)) {
+      final Map<String, Entry> result = new HashMap<>(zipFile.size() * 2);
+      zipFile
+          .stream()
+          .filter(zipEntry -> zipEntry.getName().endsWith(CLASS_EXT))
+          .forEach(
+              zipEntry ->
+                  result.put(
+                      zipEntry.getName(),
+                      new Entry(
+                          zipEntry.getMethod(),
+                          (int) zipEntry.getCompressedSize(),
+                          (int) zipEntry.getSize(),
+                          -1)));
+      return result;
+    }
+  }
+
+  private static void inflate(
+      final Inflater inflater,
+      final byte[] in,
+      final int inLength,
+      final byte[] out,
+      final int outLength,
+      final String entryName)
+      throws ZipException {
+    inflater.reset();
+    inflater.setInput(in, 0, inLength);
+    int n = 0;
+    try {
+      while (n < outLength) {
+        final int read = inflater.inflate(out, n, outLength - n);
+        if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+          break;
+        }
+        n += read;
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage() + ": " + entryName);
+    }
+    if (n != outLength) {
+      throw new ZipException("invalid entry size " + n + ": " + entryName);
+    }
+  }
+
+  private static int dataOffset(final ByteBuffer mapped, final Entry entry, final String entryName)
+      throws ZipException {
+    final int pos = (int) entry.offset;
+    if (pos < 0 || pos + LOCAL_HEADER_SIZE > mapped.limit()) {
+      throw new ZipException("invalid local header offset: " + entryName);
+    }
+    if (mapped.getInt(pos) != LOCAL_HEADER_SIG) {
+      throw new ZipException("invalid local header: " + entryName);
+    }
+    final int nameLength = mapped.getShort(pos + 26) & 0xFFFF;
+    final int extraLength = mapped.getShort(pos + 28) & 0xFFFF;
+    return pos + LOCAL_HEADER_SIZE + nameLength + extraLength;
+  }
+
+  private Map<String, Entry> readCentralDirectory() throws ZipException {
+    final ByteBuffer buf = this.buffer;
+    final int end = this.findEnd();
+    long count = buf.getShort(end + 10) & 0xFFFF;
+    long offset = buf.getInt(end + 16) & ZIP64_MAGIC;
+
+    final int locator = end - ZIP64_LOCATOR_SIZE;
+    if ((count == 0xFFFF || offset == ZIP64_MAGIC)
+        && locator >= 0
+        && buf.getInt(locator) == ZIP64_LOCATOR_SIG) {
+      final int zip64End = (int) buf.getLong(locator + 8);
+      if (buf.getInt(zip64End) == ZIP64_END_SIG) {
+        count = buf.getLong(zip64End + 32);
+        offset = buf.getLong(zip64End + 48);
+      }
+    }
+
+    final Map<String, Entry> result = new HashMap<>((int) Math.min(count, 1 << 20) * 2);
+    int pos = (int) offset;
+    for (long i = 0; i < count; i++) {
+      if (buf.getInt(pos) != CENTRAL_HEADER_SIG) {
+        throw new ZipException("invalid central directory header: " + this.file);
+      }
+      final int method = buf.getShort(pos + 10) & 0xFFFF;
+      long compressedSize = buf.getInt(pos + 20) & ZIP64_MAGIC;
+      long size = buf.getInt(pos + 24) & ZIP64_MAGIC;
+      final int nameLength = buf.getShort(pos + 28) & 0xFFFF;
+      final int extraLength = buf.getShort(pos + 30) & 0xFFFF;
+      final int commentLength = buf.getShort(pos + 32) & 0xFFFF;
+      long localOffset = buf.getInt(pos + 42) & ZIP64_MAGIC;
+
+      final String name = this.readString(pos + CENTRAL_HEADER_SIZE, nameLength);
+      if (name.endsWith(CLASS_EXT)) {
+        if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localOffset == ZIP64_MAGIC) {
+          // the real values are in the zip64 extra field, in this order
+          int extra = pos + CENTRAL_HEADER_SIZE + nameLength;
+          final int extraEnd = extra + extraLength;
+          while (extra + 4 <= extraEnd) {
+            final int id = buf.getShort(extra) & 0xFFFF;
+            final int dataSize = buf.getShort(extra + 2) & 0xFFFF;
+            if (id == ZIP64_EXTRA_ID) {
+              int p = extra + 4;
+              if (size == ZIP64_MAGIC) {
+                size = buf.getLong(p);
+                p += 8;
+              }
+              if (compressedSize == ZIP64_MAGIC) {
+                compressedSize = buf.getLong(p);
+                p += 8;
+              }
+              if (localOffset == ZIP64_MAGIC) {
+                localOffset = buf.getLong(p);
+              }
+              break;
+            }
+            extra += 4 + dataSize;
+          }
+        }
+        result.put(name, new Entry(method, (int) compressedSize, (int) size, localOffset));
+      }
+      pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+    }
+    return result;
+  }
+
+  private int findEnd() throws ZipException {
+    final int limit = Math.max(0, this.buffer.limit() - END_SIZE - MAX_COMMENT_SIZE);
+    for (int pos = this.buffer.limit() - END_SIZE; pos >= limit; pos--) {
+      if (this.buffer.getInt(pos) == END_SIG) {
+        return pos;
+      }
+    }
+    throw new ZipException("end of central directory not found: " + this.file);
+  }
+
+  private String readString(final int pos, final int length) {
+    final byte[] bytes = new byte[length];
+    final ByteBuffer src = this.buffer.duplicate();
+    src.position(pos);
+    src.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class Entry {
+
+    private final int method;
+    private final int compressedSize;
+    private final int size;
+    private final long offset;
+
+    private Entry(final int method, final int compressedSize, final int size, final long offset) {
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.offset = offset;
+    }
+  }
+
+  private static class Buffers {
+
+    private final Inflater inflater = new Inflater(true);
+    private byte[] input = new byte[1024 * 8];
+    private byte[] output = new byte[1024 * 16];
+
+    private byte[] input(final int size) {
+      if (this.input.length < size) {
+        this.input = new byte[Math.max(size, this.input.length * 2)];
+      }
+      return this.input;
+    }
+
+    private byte[] output(final int size) {
+      if (this.output.length < size) {
+        this.output = new byte[Math.max(size, this.output.length * 2)];
+      }
+      return this.output;
+    }
+  }
+}
@@ -1,7 +1,6 @@
 package meghanada.reflect.asm;
 
 import com.google.common.base.MoreObjects;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -10,9 +9,8 @@ import java.util.stream.Collectors;
 import meghanada.reflect.CandidateUnit;
 import meghanada.reflect.MethodDescriptor;
 import meghanada.reflect.MethodParameter;
-import meghanada.reflect.names.MethodParameterNames;
 import meghanada.reflect.names.ParameterName;
-import meghanada.store.Serializer;
+import meghanada.reflect.names.ParameterNamesDatabase;
 import meghanada.utils.ClassNameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -239,28 +237,12 @@ class MethodAnalyzeVisitor extends MethodVisitor {
 
   private boolean tryGetParameterName(final String className, final String name) {
     // log.debug("search {}", name);
-    final String path = ClassNameUtils.replace(className, ".", "/");
-    try (final InputStream in = getClass().getResourceAsStream("/params/" + path + ".param")) {
-      if (in == null) {
-        return false;
-      }
-
-      final MethodParameterNames mn = Serializer.readObject(in, MethodParameterNames.class);
-      final List<List<ParameterName>> pmsList = mn.names.get(name);
-      if (pmsList == null) {
-        return false;
-      }
-      final boolean result = this.searchParameterNames(pmsList);
-      if (result) {
-        return true;
-      }
-      // fallback
+    final List<List<ParameterName>> pmsList =
+        ParameterNamesDatabase.search(className, name, this.parameterTypes.size());
+    if (pmsList.isEmpty()) {
       return false;
-    } catch (Exception e) {
-      log.debug(e.getMessage());
     }
-
-    return false;
+    return this.searchParameterNames(pmsList);
   }
 
   private boolean searchParameterNames(List<List<ParameterName>> pmsList) {
@@ -19,7 +19,8 @@ public class ParameterNameVisitor extends VoidVisitorAdapter<Object> {
 
   private static final Logger log = LogManager.getLogger(ParameterNameVisitor.class);
 
-  String pkg;
+  // empty in the default package
+  String pkg = "";
   String originClassName;
   String className;
   MethodParameterNames names = new MethodParameterNames();
@@ -45,7 +46,7 @@ public class ParameterNameVisitor extends VoidVisitorAdapter<Object> {
       final SimpleName simpleName = n.getName();
       final String clazz = simpleName.getId();
       // String clazz = n.getName();
-      this.className = this.pkg + '.' + clazz;
+      this.className = this.qualify(clazz);
       log.debug("class {}", this.className);
       int i = 0;
       for (final BodyDeclaration<?> body : members) {
@@ -59,7 +60,7 @@ public class ParameterNameVisitor extends VoidVisitorAdapter<Object> {
           final ClassOrInterfaceDeclaration classOrInterfaceDeclaration =
               (ClassOrInterfaceDeclaration) body;
           String name = classOrInterfaceDeclaration.getName().getIdentifier();
-          String key = this.pkg + '.' + name;
+          String key = this.qualify(name);
           name = this.originClassName + '.' + name;
           for (MethodParameterNames mpn : this.parameterNamesList) {
             if (mpn != null && mpn.className != null && mpn.className.equals(key)) {
@@ -76,6 +77,10 @@ public class ParameterNameVisitor extends VoidVisitorAdapter<Object> {
     }
   }
 
+  private String qualify(final String name) {
+    return this.pkg.isEmpty() ? name : this.pkg + '.' + name;
+  }
+
   private void getParameterNames(MethodDeclaration methodDeclaration, boolean isInterface) {
     final EnumSet<Modifier> modifiers = methodDeclaration.getModifiers();
     if (isInterface || modifiers.contains(Modifier.PUBLIC)) {
@@ -0,0 +1,397 @@
+package meghanada.reflect.names;
+
+import static java.util.Objects.isNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Read-only, memory-mapped database of method parameter names, written by {@link
+ * ParameterNamesIndexer}.
+ *
+ * <p>The file holds a header, a string offset table, a class table sorted by name, a method table
+ * sorted by class, name and arity, a parameter table and the string data. Every distinct string is
+ * stored once and referenced by id. Names are compared as UTF-8 bytes, so a lookup is two binary
+ * searches over the mapping and only decodes the parameters it returns.
+ */
+public final class ParameterNamesDatabase {
+
+  public static final String RESOURCE = "/params.db";
+
+  private static final Logger log = LogManager.getLogger(ParameterNamesDatabase.class);
+
+  private static final int MAGIC = 0x4d504e44;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int CLASS_SIZE = 12;
+  private static final int METHOD_SIZE = 12;
+  private static final int PARAM_SIZE = 8;
+
+  private static final Comparator<byte[]> BYTES_ORDER = ParameterNamesDatabase::compare;
+
+  private static ParameterNamesDatabase database;
+  // indexed from the -sources.jar of dependencies
+  private static final Map<File, ParameterNamesDatabase> dependencies = new ConcurrentHashMap<>(16);
+
+  private final ByteBuffer buffer;
+  private final int stringCount;
+  private final int classCount;
+  private final int methodCount;
+  private final int stringTable;
+  private final int classTable;
+  private final int methodTable;
+  private final int paramTable;
+
+  private ParameterNamesDatabase() {
+    // nothing found, used when the database can not be loaded
+    this.buffer = ByteBuffer.allocate(0);
+    this.stringCount = 0;
+    this.classCount = 0;
+    this.methodCount = 0;
+    this.stringTable = 0;
+    this.classTable = 0;
+    this.methodTable = 0;
+    this.paramTable = 0;
+  }
+
+  private ParameterNamesDatabase(final ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE
+        || buffer.getInt(0) != MAGIC
+        || buffer.getInt(4) != VERSION) {
+      throw new IOException("invalid parameter names database");
+    }
+    this.stringCount = buffer.getInt(8);
+    this.classCount = buffer.getInt(12);
+    this.methodCount = buffer.getInt(16);
+    final int paramCount = buffer.getInt(20);
+    this.stringTable = HEADER_SIZE;
+    this.classTable = this.stringTable + this.stringCount * 4;
+    this.methodTable = this.classTable + this.classCount * CLASS_SIZE;
+    this.paramTable = this.methodTable + this.methodCount * METHOD_SIZE;
+    if (this.paramTable + paramCount * PARAM_SIZE > buffer.capacity()) {
+      throw new IOException("truncated parameter names database");
+    }
+  }
+
+  public static synchronized ParameterNamesDatabase getInstance() {
+    if (isNull(database)) {
+      try {
+        database = load();
+      } catch (IOException e) {
+        log.warn("fail load parameter names:{}", e.getMessage());
+        database = new ParameterNamesDatabase();
+      }
+    }
+    return database;
+  }
+
+  /** Adds or replaces the database of a dependency and returns the classes it knows. */
+  public static List<String> addDependency(final File file) throws IOException {
+    final ParameterNamesDatabase db = open(file);
+    dependencies.put(file.getCanonicalFile(), db);
+    return db.getClassNames();
+  }
+
+  static void clearDependencies() {
+    dependencies.clear();
+  }
+
+  /** Looks up the JDK first, then the dependencies. */
+  public static List<List<ParameterName>> search(
+      final String className, final String methodName, final int arity) {
+    final List<List<ParameterName>> result = getInstance().find(className, methodName, arity);
+    if (!result.isEmpty()) {
+      return result;
+    }
+    for (final ParameterNamesDatabase db : dependencies.values()) {
+      final List<List<ParameterName>> names = db.find(className, methodName, arity);
+      if (!names.isEmpty()) {
+        return names;
+      }
+    }
+    return result;
+  }
+
+  private static ParameterNamesDatabase load() throws IOException {
+    final URL url = ParameterNamesDatabase.class.getResource(RESOURCE);
+    if (isNull(url)) {
+      throw new IOException(RESOURCE + " not found");
+    }
+    if ("file".equals(url.getProtocol())) {
+      try {
+        return open(new File(url.toURI()));
+      } catch (URISyntaxException e) {
+        throw new IOException(e);
+      }
+    }
+    // a resource in a jar can not be mapped, extract it once per process
+    final File temp = File.createTempFile("meghanada-params", ".db");
+    temp.deleteOnExit();
+    try (final InputStream in = url.openStream()) {
+      Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return open(temp);
+  }
+
+  public static ParameterNamesDatabase open(final File file) throws IOException {
+    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("parameter names database too large: " + file);
+      }
+      // the mapping stays valid after the channel is closed
+      final ByteBuffer buffer =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.BIG_ENDIAN);
+      return new ParameterNamesDatabase(buffer);
+    }
+  }
+
+  /**
+   * Writes the parameter names of each class, keyed by the class name the reflector uses (inner
+   * classes joined by '$').
+   */
+  public static void write(final Map<String, MethodParameterNames> classes, final File file)
+      throws IOException {
+
+    final Map<byte[], Integer> ids = new TreeMap<>(BYTES_ORDER);
+    final Map<String, byte[]> encoded = new HashMap<>(classes.size() * 8);
+    for (final Map.Entry<String, MethodParameterNames> entry : classes.entrySet()) {
+      intern(encoded, ids, entry.getKey());
+      for (final Map.Entry<String, List<List<ParameterName>>> method :
+          entry.getValue().names.entrySet()) {
+        intern(encoded, ids, method.getKey());
+        for (final List<ParameterName> params : method.getValue()) {
+          for (final ParameterName param : params) {
+            intern(encoded, ids, param.type);
+            intern(encoded, ids, param.name);
+          }
+        }
+      }
+    }
+    // ids follow byte order, so comparing ids compares names
+    int id = 0;
+    for (final Map.Entry<byte[], Integer> entry : ids.entrySet()) {
+      entry.setValue(id++);
+    }
+
+    final Map<byte[], String> byName = new TreeMap<>(BYTES_ORDER);
+    for (final Map.Entry<String, MethodParameterNames> entry : classes.entrySet()) {
+      byName.put(encoded.get(entry.getKey()), entry.getKey());
+    }
+
+    final List<int[]> classRows = new ArrayList<>(classes.size());
+    final List<int[]> methodRows = new ArrayList<>(classes.size() * 8);
+    final List<int[]> paramRows = new ArrayList<>(classes.size() * 32);
+    for (final Map.Entry<byte[], String> entry : byName.entrySet()) {
+      final MethodParameterNames mpn = classes.get(entry.getValue());
+      final List<int[]> methods = new ArrayList<>(mpn.names.size() * 2);
+      for (final Map.Entry<String, List<List<ParameterName>>> method : mpn.names.entrySet()) {
+        final int nameId = ids.get(encoded.get(method.getKey()));
+        for (final List<ParameterName> params : method.getValue()) {
+          // overloads with the same arity keep their source order, the sort below is stable
+          methods.add(new int[] {nameId, params.size(), paramRows.size()});
+          for (final ParameterName param : params) {
+            paramRows.add(
+                new int[] {ids.get(encoded.get(param.type)), ids.get(encoded.get(param.name))});
+          }
+        }
+      }
+      methods.sort(Comparator.<int[]>comparingInt(m -> m[0]).thenComparingInt(m -> m[1]));
+      classRows.add(new int[] {ids.get(entry.getKey()), methodRows.size(), methods.size()});
+      methodRows.addAll(methods);
+    }
+
+    final int stringCount = ids.size();
+    final int stringData =
+        HEADER_SIZE
+            + stringCount * 4
+            + classRows.size() * CLASS_SIZE
+            + methodRows.size() * METHOD_SIZE
+            + paramRows.size() * PARAM_SIZE;
+    int size = stringData;
+    for (final byte[] bytes : ids.keySet()) {
+      size += 2 + bytes.length;
+    }
+
+    final ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+    out.putInt(MAGIC)
+        .putInt(VERSION)
+        .putInt(stringCount)
+        .putInt(classRows.size())
+        .putInt(methodRows.size())
+        .putInt(paramRows.size());
+    int offset = stringData;
+    for (final byte[] bytes : ids.keySet()) {
+      out.putInt(offset);
+      offset += 2 + bytes.length;
+    }
+    for (final int[] row : classRows) {
+      out.putInt(row[0]).putInt(row[1]).putInt(row[2]);
+    }
+    for (final int[] row : methodRows) {
+      out.putInt(row[0]).putInt(row[1]).putInt(row[2]);
+    }
+    for (final int[] row : paramRows) {
+      out.putInt(row[0]).putInt(row[1]);
+    }
+    for (final byte[] bytes : ids.keySet()) {
+      out.putShort((short) bytes.length).put(bytes);
+    }
+    Files.write(file.toPath(), out.array());
+  }
+
+  private static void intern(
+      final Map<String, byte[]> encoded, final Map<byte[], Integer> ids, final String s) {
+    final byte[] bytes = encoded.computeIfAbsent(s, k -> k.getBytes(StandardCharsets.UTF_8));
+    if (bytes.length > 0xFFFF) {
+      throw new IllegalArgumentException("too long name: " + s);
+    }
+    ids.putIfAbsent(bytes, 0);
+  }
+
+  private static int compare(final byte[] a, final byte[] b) {
+    final int len = Math.min(a.length, b.length);
+    for (int i = 0; i < len; i++) {
+      final int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return a.length - b.length;
+  }
+
+  /** Returns the parameter lists of the overloads of the method with the given arity. */
+  public List<List<ParameterName>> find(
+      final String className, final String methodName, final int arity) {
+    final int clazz = this.findClass(className.getBytes(StandardCharsets.UTF_8));
+    if (clazz < 0) {
+      return Collections.emptyList();
+    }
+    final int nameId = this.findString(methodName.getBytes(StandardCharsets.UTF_8));
+    if (nameId < 0) {
+      return Collections.emptyList();
+    }
+
+    final int row = this.classTable + clazz * CLASS_SIZE;
+    final int first = this.buffer.getInt(row + 4);
+    final int end = first + this.buffer.getInt(row + 8);
+    // lower bound of (name, arity)
+    int lo = first;
+    int hi = end;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final int pos = this.methodTable + mid * METHOD_SIZE;
+      final int name = this.buffer.getInt(pos);
+      if (name < nameId || (name == nameId && this.buffer.getInt(pos + 4) < arity)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+
+    final List<List<ParameterName>> result = new ArrayList<>(2);
+    for (int i = lo; i < end; i++) {
+      final int pos = this.methodTable + i * METHOD_SIZE;
+      if (this.buffer.getInt(pos) != nameId || this.buffer.getInt(pos + 4) != arity) {
+        break;
+      }
+      final int firstParam = this.buffer.getInt(pos + 8);
+      final List<ParameterName> params = new ArrayList<>(arity);
+      for (int p = 0; p < arity; p++) {
+        final int param = this.paramTable + (firstParam + p) * PARAM_SIZE;
+        final ParameterName parameterName = new ParameterName();
+        parameterName.type = this.getString(this.buffer.getInt(param));
+        parameterName.name = this.getString(this.buffer.getInt(param + 4));
+        params.add(parameterName);
+      }
+      result.add(params);
+    }
+    return result;
+  }
+
+  List<String> getClassNames() {
+    final List<String> result = new ArrayList<>(this.classCount);
+    for (int i = 0; i < this.classCount; i++) {
+      result.add(this.getString(this.buffer.getInt(this.classTable + i * CLASS_SIZE)));
+    }
+    return result;
+  }
+
+  private int findClass(final byte[] key) {
+    int lo = 0;
+    int hi = this.classCount - 1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      final int c = this.compareString(this.buffer.getInt(this.classTable + mid * CLASS_SIZE), key);
+      if (c < 0) {
+        lo = mid + 1;
+      } else if (c > 0) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private int findString(final byte[] key) {
+    int lo = 0;
+    int hi = this.stringCount - 1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      final int c = this.compareString(mid, key);
+      if (c < 0) {
+        lo = mid + 1;
+      } else if (c > 0) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private int compareString(final int id, final byte[] key) {
+    final int offset = this.buffer.getInt(this.stringTable + id * 4);
+    final int length = this.buffer.getShort(offset) & 0xFFFF;
+    final int len = Math.min(length, key.length);
+    for (int i = 0; i < len; i++) {
+      final int c = (this.buffer.get(offset + 2 + i) & 0xFF) - (key[i] & 0xFF);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return length - key.length;
+  }
+
+  private String getString(final int id) {
+    final int offset = this.buffer.getInt(this.stringTable + id * 4);
+    final int length = this.buffer.getShort(offset) & 0xFFFF;
+    final byte[] bytes = new byte[length];
+    final ByteBuffer src = this.buffer.duplicate();
+    src.position(offset + 2);
+    src.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
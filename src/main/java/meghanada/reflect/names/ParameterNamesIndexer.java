@@ -1,21 +1,38 @@
 package meghanada.reflect.names;
 
+import static java.util.Objects.nonNull;
+
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.google.common.hash.Hashing;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Enumeration;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import meghanada.cache.GlobalCache;
-import meghanada.store.Serializer;
 import meghanada.utils.ClassNameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.nustaq.serialization.FSTConfiguration;
 
-@SuppressWarnings("CheckReturnValue")
+/**
+ * Builds {@link ParameterNamesDatabase} files from source archives. Sources are parsed in parallel
+ * and the database is written once per archive. The JDK database is bundled, a dependency is
+ * indexed from its -sources.jar into a per-archive file that is kept until the archive changes, so
+ * an interrupted run resumes with the archives it did not finish.
+ */
 public class ParameterNamesIndexer {
 
   private static final String[] filterPackage =
@@ -30,31 +47,30 @@ public class ParameterNamesIndexer {
         "netscape"
       };
 
-  private static FSTConfiguration fstConfiguration = FSTConfiguration.createDefaultConfiguration();
+  private static final String SOURCES_SUFFIX = "-sources.jar";
 
   private static Logger log = LogManager.getLogger(ParameterNamesIndexer.class);
 
-  static {
-    fstConfiguration.registerClass(ParameterName.class, MethodParameterNames.class);
-  }
+  private final ForkJoinPool pool;
 
-  private ParameterNamesIndexer() {}
+  public ParameterNamesIndexer(final int parallelism) {
+    this.pool = new ForkJoinPool(Math.max(1, parallelism));
+  }
 
   public static void main(String args[]) throws Exception {
-    ParameterNamesIndexer parameterNamesIndexer = new ParameterNamesIndexer();
+    ParameterNamesIndexer parameterNamesIndexer =
+        new ParameterNamesIndexer(Runtime.getRuntime().availableProcessors());
     File srcZip = new File(System.getProperty("java.home"), "../src.zip");
-    parameterNamesIndexer.createIndex(srcZip);
-  }
-
-  private static MethodParameterNames deserialize(File file) throws Exception {
-    return Serializer.readObjectFromFile(file, MethodParameterNames.class);
-  }
-
-  private static void serialize(MethodParameterNames mpn, File file) throws Exception {
-    Serializer.writeObjectToFile(file, mpn);
+    try {
+      parameterNamesIndexer.createIndex(
+          srcZip, new File("./resources" + ParameterNamesDatabase.RESOURCE), true);
+    } finally {
+      parameterNamesIndexer.shutdown();
+      GlobalCache.getInstance().shutdown();
+    }
   }
 
-  private boolean ignorePackage(String target) {
+  private static boolean ignorePackage(String target) {
     for (String pkg : ParameterNamesIndexer.filterPackage) {
       if (target.startsWith(pkg)) {
         return true;
@@ -63,50 +79,156 @@ public class ParameterNamesIndexer {
     return false;
   }
 
-  private void createIndex(File src) throws Exception {
-    try (final ZipFile zipFile = new ZipFile(src)) {
-      Enumeration<? extends ZipEntry> entries = zipFile.entries();
-      while (entries.hasMoreElements()) {
-        ZipEntry zipEntry = entries.nextElement();
-        String fileName = zipEntry.getName();
-        String javaName = fileName.replace(File.separator, ".");
-
-        if (fileName.endsWith(".java") && !ignorePackage(javaName)) {
-          // log.debug("javaName {}", javaName);
-          this.serializeParams(zipFile, zipEntry, javaName);
+  /** Returns the -sources.jar next to the jar, in the same or a sibling directory. */
+  public static Optional<File> findSourcesJar(final File jar) {
+    final String name = jar.getName();
+    if (!name.endsWith(".jar") || name.endsWith(SOURCES_SUFFIX)) {
+      return Optional.empty();
+    }
+    final String sourcesName = name.substring(0, name.length() - 4) + SOURCES_SUFFIX;
+    final File dir = jar.getParentFile();
+    if (dir == null) {
+      return Optional.empty();
+    }
+    final File sibling = new File(dir, sourcesName);
+    if (sibling.isFile()) {
+      return Optional.of(sibling);
+    }
+    // the gradle cache keeps each artifact file in its own hash directory
+    final File[] versionDirs =
+        nonNull(dir.getParentFile()) ? dir.getParentFile().listFiles() : null;
+    if (nonNull(versionDirs)) {
+      for (final File versionDir : versionDirs) {
+        final File file = new File(versionDir, sourcesName);
+        if (file.isFile()) {
+          return Optional.of(file);
         }
       }
     }
+    return Optional.empty();
+  }
+
+  /** Returns the database file of the sources jar in dir. */
+  public static File getDatabaseFile(final File dir, final File sourcesJar) throws IOException {
+    final String key =
+        Hashing.murmur3_128()
+            .hashString(sourcesJar.getCanonicalPath(), StandardCharsets.UTF_8)
+            .toString();
+    return new File(dir, key + ".db");
+  }
+
+  /** Returns the database of the jar's sources in dir when it is up to date. */
+  public static Optional<File> findDatabase(final File dir, final File jar) throws IOException {
+    final Optional<File> sourcesJar = findSourcesJar(jar);
+    if (sourcesJar.isPresent()) {
+      final File db = getDatabaseFile(dir, sourcesJar.get());
+      if (isIndexed(db, sourcesJar.get())) {
+        return Optional.of(db);
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static boolean isIndexed(final File db, final File sourcesJar) {
+    return db.isFile() && db.lastModified() >= sourcesJar.lastModified();
+  }
+
+  public void shutdown() {
+    this.pool.shutdown();
+  }
+
+  /**
+   * Indexes the sources jar of each jar that has one and is not indexed yet. Returns the database
+   * files that were written.
+   */
+  public List<File> indexDependencies(final Collection<File> jars, final File dir)
+      throws IOException {
+    if (!dir.exists() && !dir.mkdirs()) {
+      throw new IOException("fail mkdirs path:" + dir);
+    }
+    final List<File> written = new ArrayList<>(8);
+    for (final File jar : jars) {
+      final Optional<File> sourcesJar = findSourcesJar(jar);
+      if (!sourcesJar.isPresent()) {
+        continue;
+      }
+      final File out = getDatabaseFile(dir, sourcesJar.get());
+      if (isIndexed(out, sourcesJar.get())) {
+        continue;
+      }
+      try {
+        this.createIndex(sourcesJar.get(), out, false);
+        written.add(out);
+      } catch (IOException e) {
+        log.warn("fail index {}:{}", sourcesJar.get(), e.getMessage());
+      }
+    }
+    return written;
+  }
+
+  public void createIndex(final File src, final File out, final boolean jdk) throws IOException {
+    final Map<String, MethodParameterNames> classes = new ConcurrentHashMap<>(1024);
+    try (final ZipFile zipFile = new ZipFile(src)) {
+      final List<? extends ZipEntry> entries =
+          zipFile
+              .stream()
+              .filter(
+                  entry -> {
+                    final String fileName = entry.getName();
+                    return fileName.endsWith(".java")
+                        && !(jdk && ignorePackage(fileName.replace('/', '.')));
+                  })
+              .collect(Collectors.toList());
+      // ZipFile entry streams can be read concurrently
+      this.pool
+          .submit(
+              () ->
+                  entries.parallelStream().forEach(entry -> collectParams(zipFile, entry, classes)))
+          .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+
+    // write and rename, a partial file is never taken as done
+    final File temp = new File(out.getPath() + ".tmp");
+    ParameterNamesDatabase.write(classes, temp);
+    Files.move(
+        temp.toPath(),
+        out.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    log.info("write {} classes of {} to {}", classes.size(), src, out);
   }
 
-  private void serializeParams(
-      final ZipFile zipFile, final ZipEntry zipEntry, final String javaName) throws Exception {
+  private static void collectParams(
+      final ZipFile zipFile,
+      final ZipEntry zipEntry,
+      final Map<String, MethodParameterNames> classes) {
 
+    final String javaName = zipEntry.getName().replace('/', '.');
+    final String fqcn = javaName.substring(0, javaName.length() - 5);
     try (InputStream in = zipFile.getInputStream(zipEntry)) {
-      String fqcn = javaName.substring(0, javaName.length() - 5);
       CompilationUnit cu = JavaParser.parse(in, StandardCharsets.UTF_8);
       ParameterNameVisitor visitor = new ParameterNameVisitor(fqcn);
-      visitor.visit(cu, this);
+      visitor.visit(cu, classes);
 
-      // log.debug("{} classes {}", javaName, visitor.parameterNamesList.size());
       for (final MethodParameterNames mpn : visitor.parameterNamesList) {
         if (mpn.names.size() > 0) {
-          // log.debug("{} {}", javaName, mpn.className);
-          String pkg = ClassNameUtils.getPackage(fqcn);
-          String dirPath = pkg.replace(".", "/");
-          String fileName = mpn.className.substring(pkg.length() + 1).replace(".", "$") + ".param";
-
-          File outFile = new File("./resources/params/" + dirPath, fileName);
-          boolean result = outFile.getParentFile().mkdirs();
-
-          log.info("start {} size:{}", javaName, mpn.names.size());
-          serialize(mpn, outFile);
-          MethodParameterNames names = deserialize(outFile);
-          assert names.equals(mpn);
-          log.info("end   {} size:{}", javaName, mpn.names.size());
+          final String pkg = ClassNameUtils.getPackage(fqcn);
+          final String className =
+              pkg.isEmpty()
+                  ? mpn.className.replace('.', '$')
+                  : pkg + '.' + mpn.className.substring(pkg.length() + 1).replace('.', '$');
+          log.debug("add {} size:{}", className, mpn.names.size());
+          classes.put(className, mpn);
         }
       }
+    } catch (Exception e) {
+      // a broken source file only loses its own names
+      log.debug("fail parse {}:{}", javaName, e.getMessage());
     }
-    GlobalCache.getInstance().shutdown();
   }
 }
@@ -10,13 +10,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import meghanada.analyze.CompileResult;
+import meghanada.completion.JavaCompletion;
 import meghanada.completion.LocalVariable;
+import meghanada.config.Config;
 import meghanada.docs.declaration.Declaration;
 import meghanada.location.Location;
 import meghanada.reflect.CandidateUnit;
@@ -41,7 +44,11 @@ public class CommandHandler {
   }
 
   private void writeError(final long id, final Throwable t) {
-    log.catching(t);
+    if (t instanceof CancellationException) {
+      log.debug("cancelled id:{}", id);
+    } else {
+      log.catching(t);
+    }
     try {
       final String out = outputFormatter.error(id, t);
       writer.write(out);
@@ -105,12 +112,46 @@ public class CommandHandler {
       final String line,
       final String column,
       final String prefix) {
+    this.autocomplete(id, path, line, column, prefix, "0");
+  }
+
+  private static int parseOffset(final String offset) {
+    // older clients send <fmt> in this place, it starts from the first page
+    try {
+      return Math.max(0, Integer.parseInt(offset));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Writes one page of candidates starting at offset. When more candidates follow, the offset of
+   * the next page is written with the page, the client passes it back to continue.
+   */
+  public void autocomplete(
+      final long id,
+      final String path,
+      final String line,
+      final String column,
+      final String prefix,
+      final String offset) {
     try {
       final int lineInt = Integer.parseInt(line);
       final int columnInt = Integer.parseInt(column);
-      final Collection<? extends CandidateUnit> units =
-          session.completionAt(path, lineInt, columnInt, prefix);
-      final String out = outputFormatter.autocomplete(id, units);
+      final int from = parseOffset(offset);
+      final int pageSize = Config.load().getCompletionLimit();
+      final int to =
+          pageSize > 0
+              ? (int) Math.min((long) from + pageSize, JavaCompletion.UNLIMITED - 1)
+              : JavaCompletion.UNLIMITED;
+      // one more than the page tells whether a next page follows
+      final int limit = to == JavaCompletion.UNLIMITED ? to : to + 1;
+      final List<CandidateUnit> units =
+          new ArrayList<>(session.completionAt(path, lineInt, columnInt, prefix, limit));
+      final int size = units.size();
+      final List<CandidateUnit> page = units.subList(Math.min(from, size), Math.min(to, size));
+      final int next = size > to ? to : -1;
+      final String out = outputFormatter.autocomplete(id, page, next);
       writer.write(out);
       writer.newLine();
     } catch (Throwable t) {
@@ -206,6 +247,31 @@ public class CommandHandler {
     }
   }
 
+  public void showMetrics(final long id) {
+    try {
+      final Map<String, Object> metrics = session.getMetrics();
+      final String out = outputFormatter.showMetrics(id, metrics);
+      writer.write(out);
+      writer.newLine();
+    } catch (Throwable t) {
+      writeError(id, t);
+    }
+  }
+
+  public void cancel(final long id, final boolean result) {
+    try {
+      final String out = outputFormatter.cancel(id, result);
+      writer.write(out);
+      writer.newLine();
+    } catch (Throwable t) {
+      writeError(id, t);
+    }
+  }
+
+  public void cancelled(final long id) {
+    writeError(id, new CancellationException("request cancelled"));
+  }
+
   public void jumpDeclaration(
       final long id, final String path, final String line, final String col, final String symbol) {
     final int lineInt = Integer.parseInt(line);
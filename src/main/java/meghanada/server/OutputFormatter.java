@@ -19,7 +19,7 @@ public interface OutputFormatter {
 
   String diagnostics(long id, CompileResult compileResult, String path);
 
-  String autocomplete(long id, Collection<? extends CandidateUnit> units);
+  String autocomplete(long id, Collection<? extends CandidateUnit> units, int next);
 
   String parse(long id, boolean result);
 
@@ -43,5 +43,9 @@ public interface OutputFormatter {
 
   String showDeclaration(long id, Declaration declaration);
 
+  String showMetrics(long id, Map<String, Object> metrics);
+
+  String cancel(long id, boolean result);
+
   String error(long id, Throwable t);
 }
@@ -15,30 +15,63 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import meghanada.server.CommandHandler;
 import meghanada.server.OutputFormatter;
 import meghanada.server.Server;
 import meghanada.server.formatter.SexpOutputFormatter;
 import meghanada.session.Session;
+import meghanada.utils.CancelToken;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Line based s-expression server. A plain request {@code (cmd args...)} is handled on the
+ * connection thread and answered in order. A tagged request {@code (id cmd args...)} is handled in
+ * the background and may be answered out of order, its response starts with {@code ;;ID id}.
+ * Completion and parse requests are superseded by a newer one for the same file and {@code (id ca
+ * target)} cancels a tagged request.
+ */
 public class EmacsServer implements Server {
 
   private static final Logger log = LogManager.getLogger(EmacsServer.class);
   private static final String EOT = ";;EOT";
+  private static final String ID = ";;ID ";
+  private static final int QUERY_THREADS = 4;
+  private static final int QUERY_QUEUE_SIZE = 64;
+  // commands that do not modify sources, outputs or the project
+  private static final Set<String> QUERY_COMMANDS =
+      new HashSet<>(Arrays.asList("ap", "lv", "jd", "sd", "bj", "st", "ia", "sm", "ping"));
+
   private final ServerSocket serverSocket;
   private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+  // tagged requests, queries run concurrently and updates in arrival order
+  private final ExecutorService queryExecutorService =
+      new ThreadPoolExecutor(
+          QUERY_THREADS,
+          QUERY_THREADS,
+          0L,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(QUERY_QUEUE_SIZE),
+          new ThreadPoolExecutor.CallerRunsPolicy());
+  private final ExecutorService updateExecutorService = Executors.newSingleThreadExecutor();
   private final OUTPUT outputFormat;
   private final String projectRoot;
   private final String host;
@@ -59,9 +92,9 @@ public class EmacsServer implements Server {
     this.outputEOT = true;
   }
 
-  private boolean dispatch(final List<String> argList, final CommandHandler handler) {
+  private boolean dispatch(
+      final long id, final List<String> argList, final CommandHandler handler) {
     final Stopwatch stopwatch = Stopwatch.createStarted();
-    id++;
     final boolean result =
         match(argList)
             .when(headTail(eq("pc"), any()))
@@ -84,8 +117,13 @@ public class EmacsServer implements Server {
             .get(
                 args -> {
                   // ap : Autocomplete Prefix
-                  // usage: ap <filepath> <line> <column> <prefix> <fmt>
-                  handler.autocomplete(id, args.get(0), args.get(1), args.get(2), args.get(3));
+                  // usage: ap <filepath> <line> <column> <prefix> [<offset>|<fmt>]
+                  if (args.size() > 4) {
+                    handler.autocomplete(
+                        id, args.get(0), args.get(1), args.get(2), args.get(3), args.get(4));
+                  } else {
+                    handler.autocomplete(id, args.get(0), args.get(1), args.get(2), args.get(3));
+                  }
                   return true;
                 })
             .when(headTail(eq("c"), any()))
@@ -212,6 +250,14 @@ public class EmacsServer implements Server {
                   handler.localVariable(id, args.get(0), args.get(1));
                   return true;
                 })
+            .when(headTail(eq("sm"), any()))
+            .get(
+                args -> {
+                  // sm : Show metrics
+                  // usage: sm
+                  handler.showMetrics(id);
+                  return true;
+                })
             .when(headTail(eq("ping"), any()))
             .get(
                 args -> {
@@ -253,6 +299,8 @@ public class EmacsServer implements Server {
       try {
         this.serverSocket.close();
         this.executorService.shutdownNow();
+        this.queryExecutorService.shutdownNow();
+        this.updateExecutorService.shutdownNow();
         if (nonNull(this.session)) {
           this.session.shutdown(3);
         }
@@ -293,6 +341,8 @@ public class EmacsServer implements Server {
 
             final CommandHandler handler =
                 new CommandHandler(session, writer, getOutputFormatter());
+            final List<Future<?>> tagged = new ArrayList<>(16);
+            final RequestTracker tracker = new RequestTracker();
             boolean start = true;
             final SExprParser parser = new SExprParser();
             while (start) {
@@ -307,16 +357,46 @@ public class EmacsServer implements Server {
                   lst.stream().map(sExpr -> sExpr.value().toString()).collect(Collectors.toList());
 
               log.debug("receive command line:{} expr:{} args:{}", line, expr, args);
-              start = dispatch(args, handler);
-              if (!start) {
-                log.info("stop client ... args:{}", args);
-              }
-              if (this.outputEOT) {
-                writer.write(EmacsServer.EOT);
-                writer.newLine();
+              if (isTagged(args)) {
+                // (<id> <command> <args> ...)
+                final long requestId = Long.parseLong(args.get(0));
+                final List<String> command = args.subList(1, args.size());
+                if (command.size() == 1 && command.get(0).equals("q")) {
+                  log.info("stop client ... args:{}", args);
+                  break;
+                }
+                if (command.get(0).equals("ca")) {
+                  // ca : Cancel request, answered at once
+                  // usage: ca <id>
+                  final boolean result = cancel(tracker, command);
+                  this.respond(writer, requestId, h -> h.cancel(requestId, result));
+                  continue;
+                }
+                tagged.removeIf(Future::isDone);
+                tagged.add(this.submitTagged(requestId, command, writer, tracker));
+                continue;
               }
 
-              writer.flush();
+              synchronized (writer) {
+                if (args.get(0).equals("ca")) {
+                  handler.cancel(++this.id, cancel(tracker, args));
+                } else {
+                  start = dispatch(++this.id, args, handler);
+                }
+                if (!start) {
+                  log.info("stop client ... args:{}", args);
+                }
+                if (this.outputEOT) {
+                  writer.write(EmacsServer.EOT);
+                  writer.newLine();
+                }
+
+                writer.flush();
+              }
+            }
+            tracker.cancelAll();
+            for (final Future<?> future : tagged) {
+              future.get();
             }
             log.info("close client ...");
           } catch (Throwable e) {
@@ -332,6 +412,91 @@ public class EmacsServer implements Server {
         });
   }
 
+  private static boolean isTagged(final List<String> args) {
+    if (args.size() < 2) {
+      return false;
+    }
+    final String head = args.get(0);
+    if (head.isEmpty() || head.length() > 18) {
+      return false;
+    }
+    for (int i = 0; i < head.length(); i++) {
+      if (!Character.isDigit(head.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean cancel(final RequestTracker tracker, final List<String> command) {
+    try {
+      return command.size() > 1 && tracker.cancel(Long.parseLong(command.get(1)));
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private Future<?> submitTagged(
+      final long requestId,
+      final List<String> command,
+      final BufferedWriter out,
+      final RequestTracker tracker) {
+    final boolean query = QUERY_COMMANDS.contains(command.get(0));
+    final ExecutorService executor = query ? this.queryExecutorService : this.updateExecutorService;
+    final CancelToken token =
+        query || command.get(0).equals("p") ? tracker.start(requestId, command) : null;
+    return executor.submit(
+        () -> {
+          try {
+            this.respond(
+                out,
+                requestId,
+                handler -> {
+                  if (nonNull(token) && token.isCancelled()) {
+                    // superseded while queued
+                    handler.cancelled(requestId);
+                    return;
+                  }
+                  CancelToken.attach(token);
+                  try {
+                    dispatch(requestId, command, handler);
+                  } finally {
+                    CancelToken.detach();
+                  }
+                });
+          } finally {
+            if (nonNull(token)) {
+              tracker.finish(requestId, command, token);
+            }
+          }
+        });
+  }
+
+  private void respond(
+      final BufferedWriter out, final long requestId, final Consumer<CommandHandler> fn) {
+    // buffer the whole response, responses of different requests must not interleave
+    final StringWriter buffer = new StringWriter(1024);
+    try (final BufferedWriter writer = new BufferedWriter(buffer)) {
+      fn.accept(new CommandHandler(session, writer, getOutputFormatter()));
+    } catch (Throwable e) {
+      log.catching(e);
+    }
+    try {
+      synchronized (out) {
+        out.write(EmacsServer.ID + requestId);
+        out.newLine();
+        out.write(buffer.toString());
+        if (this.outputEOT) {
+          out.write(EmacsServer.EOT);
+          out.newLine();
+        }
+        out.flush();
+      }
+    } catch (IOException e) {
+      log.catching(e);
+    }
+  }
+
   private OutputFormatter getOutputFormatter() {
     if (this.outputFormat == OUTPUT.SEXP) {
       return new SexpOutputFormatter();
@@ -0,0 +1,65 @@
+package meghanada.server.emacs;
+
+import static java.util.Objects.nonNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import meghanada.utils.CancelToken;
+
+/**
+ * Tracks the in-flight tagged requests of a connection. A newer request of a superseding command
+ * for the same file cancels the older one.
+ */
+class RequestTracker {
+
+  // completion and parse only care about the latest state of a file
+  private static final Set<String> SUPERSEDING_COMMANDS = new HashSet<>(Arrays.asList("ap", "p"));
+
+  private final Map<Long, CancelToken> inflight = new ConcurrentHashMap<>(16);
+  private final Map<String, CancelToken> latest = new ConcurrentHashMap<>(16);
+
+  private static String supersedeKey(final List<String> command) {
+    if (command.size() > 1 && SUPERSEDING_COMMANDS.contains(command.get(0))) {
+      return command.get(0) + ' ' + command.get(1);
+    }
+    return null;
+  }
+
+  CancelToken start(final long id, final List<String> command) {
+    final CancelToken token = new CancelToken();
+    this.inflight.put(id, token);
+    final String key = supersedeKey(command);
+    if (nonNull(key)) {
+      final CancelToken old = this.latest.put(key, token);
+      if (nonNull(old)) {
+        old.cancel();
+      }
+    }
+    return token;
+  }
+
+  void finish(final long id, final List<String> command, final CancelToken token) {
+    this.inflight.remove(id, token);
+    final String key = supersedeKey(command);
+    if (nonNull(key)) {
+      this.latest.remove(key, token);
+    }
+  }
+
+  boolean cancel(final long id) {
+    final CancelToken token = this.inflight.get(id);
+    if (nonNull(token)) {
+      token.cancel();
+      return true;
+    }
+    return false;
+  }
+
+  void cancelAll() {
+    this.inflight.values().forEach(CancelToken::cancel);
+  }
+}
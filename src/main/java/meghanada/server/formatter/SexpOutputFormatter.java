@@ -152,7 +152,8 @@ public class SexpOutputFormatter implements OutputFormatter {
   }
 
   @Override
-  public String autocomplete(final long id, Collection<? extends CandidateUnit> units) {
+  public String autocomplete(
+      final long id, final Collection<? extends CandidateUnit> units, final int next) {
     final StringBuilder sb = new StringBuilder(LPAREN);
 
     final String s =
@@ -172,6 +173,10 @@ public class SexpOutputFormatter implements OutputFormatter {
             .collect(Collectors.joining(LIST_SEP));
     sb.append(s);
     sb.append(')');
+    if (next >= 0) {
+      // offset of the next page
+      sb.append(LIST_SEP).append(next);
+    }
     return success(sb.toString());
   }
 
@@ -293,6 +298,31 @@ public class SexpOutputFormatter implements OutputFormatter {
     return success(result);
   }
 
+  @Override
+  public String showMetrics(final long id, final Map<String, Object> metrics) {
+    final String s =
+        metrics
+            .entrySet()
+            .stream()
+            .map(
+                e -> {
+                  final Object v = e.getValue();
+                  final String value =
+                      v instanceof Number ? v.toString() : doubleQuote(v.toString());
+                  return LPAREN + doubleQuote(e.getKey()) + " . " + value + RPAREN;
+                })
+            .collect(Collectors.joining(LIST_SEP));
+    return success(LPAREN + s + RPAREN);
+  }
+
+  @Override
+  public String cancel(final long id, final boolean result) {
+    if (result) {
+      return success(LPAREN + "success" + RPAREN);
+    }
+    return success(LPAREN + "error" + RPAREN);
+  }
+
   @Override
   public String error(final long id, final Throwable t) {
     return error(t.getMessage());
@@ -0,0 +1,147 @@
+package meghanada.session;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs session events on a small fixed set of priority lanes. Each lane has its own bounded set of
+ * worker threads, so long running bulk work (class index, full compile) can never take the threads
+ * that watcher requests run on, and the total thread count stays constant. User requests do not go
+ * through the event bus, the server runs them on its own threads.
+ */
+class LaneExecutor {
+
+  private final Map<Lane, LanePool> pools = new LinkedHashMap<>(4);
+
+  LaneExecutor() {
+    for (final Lane lane : Lane.values()) {
+      this.pools.put(lane, new LanePool(lane));
+    }
+  }
+
+  void execute(final Lane lane, final Runnable task) {
+    this.pools.get(lane).execute(task);
+  }
+
+  void shutdown() {
+    this.pools.values().forEach(pool -> pool.executor.shutdown());
+  }
+
+  void shutdownNow() {
+    this.pools.values().forEach(pool -> pool.executor.shutdownNow());
+  }
+
+  boolean isShutdown() {
+    return this.pools.values().stream().allMatch(pool -> pool.executor.isShutdown());
+  }
+
+  boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (final LanePool pool : this.pools.values()) {
+      final long remain = deadline - System.nanoTime();
+      if (!pool.executor.awaitTermination(Math.max(0, remain), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  Map<String, Object> getStats() {
+    final Map<String, Object> result = new LinkedHashMap<>(16);
+    this.pools.values().forEach(pool -> pool.putStats(result));
+    return result;
+  }
+
+  enum Lane {
+    // watcher driven parse and watch registration
+    BACKGROUND(1, Thread.NORM_PRIORITY - 1),
+    // class index and full compile
+    BULK(1, Thread.MIN_PRIORITY);
+
+    private final int parallelism;
+    private final int priority;
+
+    Lane(final int parallelism, final int priority) {
+      this.parallelism = parallelism;
+      this.priority = priority;
+    }
+  }
+
+  private static class LanePool {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong runNanos = new AtomicLong();
+
+    LanePool(final Lane lane) {
+      this.name = lane.name().toLowerCase(Locale.ENGLISH);
+      final AtomicInteger count = new AtomicInteger();
+      this.executor =
+          new ThreadPoolExecutor(
+              lane.parallelism,
+              lane.parallelism,
+              60L,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              r -> {
+                final Thread thread =
+                    new Thread(r, "session-" + this.name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(lane.priority);
+                return thread;
+              });
+      this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    void execute(final Runnable task) {
+      final long enqueued = System.nanoTime();
+      final int depth = this.queued.incrementAndGet();
+      this.maxQueued.accumulateAndGet(depth, Math::max);
+      try {
+        this.executor.execute(
+            () -> {
+              final long start = System.nanoTime();
+              this.queued.decrementAndGet();
+              final long wait = start - enqueued;
+              this.waitNanos.addAndGet(wait);
+              this.maxWaitNanos.accumulateAndGet(wait, Math::max);
+              try {
+                task.run();
+              } finally {
+                this.runNanos.addAndGet(System.nanoTime() - start);
+                this.completed.incrementAndGet();
+              }
+            });
+      } catch (RuntimeException e) {
+        this.queued.decrementAndGet();
+        throw e;
+      }
+    }
+
+    void putStats(final Map<String, Object> result) {
+      final long done = this.completed.get();
+      final String prefix = "event-" + this.name + "-";
+      result.put(prefix + "queued", this.queued.get());
+      result.put(prefix + "max-queued", this.maxQueued.get());
+      result.put(prefix + "completed", done);
+      result.put(
+          prefix + "wait-avg-ms",
+          done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.waitNanos.get() / done));
+      result.put(prefix + "wait-max-ms", TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos.get()));
+      result.put(
+          prefix + "run-avg-ms",
+          done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.runNanos.get() / done));
+    }
+  }
+}
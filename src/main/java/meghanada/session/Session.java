@@ -22,12 +22,16 @@ import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -35,6 +39,7 @@ import java.util.stream.Stream;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 import meghanada.analyze.CompileResult;
+import meghanada.analyze.JavaAnalyzer;
 import meghanada.analyze.Source;
 import meghanada.cache.GlobalCache;
 import meghanada.completion.JavaCompletion;
@@ -52,6 +57,8 @@ import meghanada.project.maven.MavenProject;
 import meghanada.project.meghanada.MeghanadaProject;
 import meghanada.reflect.CandidateUnit;
 import meghanada.reflect.asm.CachedASMReflector;
+import meghanada.store.ProjectDatabaseHelper;
+import meghanada.utils.CancelToken;
 import meghanada.utils.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -67,11 +74,14 @@ public class Session {
   private final Deque<Location> jumpDecHistory = new ArrayDeque<>(16);
   private final HashMap<File, Project> projects = new HashMap<>(2);
 
-  private Project currentProject;
-  private JavaCompletion completion;
-  private JavaVariableCompletion variableCompletion;
-  private LocationSearcher locationSearcher;
-  private DeclarationSearcher declarationSearcher;
+  // the project is switched under the write lock, commands run under the read lock
+  private final ReadWriteLock projectLock = new ReentrantReadWriteLock();
+
+  private volatile Project currentProject;
+  private volatile JavaCompletion completion;
+  private volatile JavaVariableCompletion variableCompletion;
+  private volatile LocationSearcher locationSearcher;
+  private volatile DeclarationSearcher declarationSearcher;
 
   private boolean started;
 
@@ -355,26 +365,78 @@ public class Session {
     return variableCompletion;
   }
 
-  public synchronized Collection<? extends CandidateUnit> completionAt(
-      String path, int line, int column, String prefix) {
+  /**
+   * Switches to the project of path when needed and returns the held read lock, so the project
+   * cannot change again until the caller unlocks it.
+   */
+  private Lock lockProject(final String path) {
+    final Lock readLock = this.projectLock.readLock();
+    readLock.lock();
+    final File file = new File(path);
+    if (!this.started || !this.isOtherProject(file)) {
+      return readLock;
+    }
+    readLock.unlock();
+
+    boolean changed = false;
+    final Lock writeLock = this.projectLock.writeLock();
+    writeLock.lock();
+    try {
+      // checked again, another thread may have switched already
+      changed = this.searchAndChangeProject(file);
+    } catch (IOException e) {
+      log.catching(e);
+    } finally {
+      // downgrade, the project stays switched until the command has run
+      readLock.lock();
+      writeLock.unlock();
+    }
+    if (changed) {
+      this.sessionEventBus.requestCreateCache();
+    }
+    return readLock;
+  }
+
+  private boolean isOtherProject(final File file) {
+    if (!file.exists()) {
+      return false;
+    }
+    final File projectRoot = Session.findProjectRoot(file);
+    return nonNull(projectRoot) && !this.currentProject.getProjectRoot().equals(projectRoot);
+  }
+
+  public Collection<? extends CandidateUnit> completionAt(
+      String path, int line, int column, String prefix, int limit) {
     // java file only
     File file = normalize(path);
     if (!FileUtils.isJavaFile(file)) {
       return Collections.emptyList();
     }
-    boolean b = this.changeProject(path);
-    return getCompletion().completionAt(file, line, column, prefix);
+    final Lock lock = this.lockProject(path);
+    try {
+      return getCompletion().completionAt(file, line, column, prefix, limit);
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized boolean changeProject(final String path) {
+  /** Must not be called while holding the project read lock. */
+  public boolean changeProject(final String path) {
     final File file = new File(path);
 
     if (this.started) {
       try {
-        if (!file.exists()) {
+        if (!this.isOtherProject(file)) {
+          // not change, don't wait for running commands
           return false;
         }
-        final boolean changed = this.searchAndChangeProject(file);
+        final boolean changed;
+        this.projectLock.writeLock().lock();
+        try {
+          changed = this.searchAndChangeProject(file);
+        } finally {
+          this.projectLock.writeLock().unlock();
+        }
         if (changed) {
           this.sessionEventBus.requestCreateCache();
           return true;
@@ -389,15 +451,19 @@ public class Session {
     return false;
   }
 
-  public synchronized Optional<LocalVariable> localVariable(final String path, final int line)
+  public Optional<LocalVariable> localVariable(final String path, final int line)
       throws ExecutionException, IOException {
     // java file only
     final File file = normalize(path);
     if (!FileUtils.isJavaFile(file)) {
       return Optional.of(new LocalVariable("void", Collections.emptyList()));
     }
-    boolean b = this.changeProject(path);
-    return getVariableCompletion().localVariable(file, line);
+    final Lock lock = this.lockProject(path);
+    try {
+      return getVariableCompletion().localVariable(file, line);
+    } finally {
+      lock.unlock();
+    }
   }
 
   public synchronized boolean addImport(final String path, final String fqcn)
@@ -407,9 +473,13 @@ public class Session {
     if (!FileUtils.isJavaFile(file)) {
       return false;
     }
-    boolean b = this.changeProject(path);
     log.debug("addImport path={} fqcn={}", path, fqcn);
-    return parseJavaSource(file).map(source -> source.addImportIfAbsent(fqcn)).orElse(false);
+    final Lock lock = this.lockProject(path);
+    try {
+      return parseJavaSource(file).map(source -> source.addImportIfAbsent(fqcn)).orElse(false);
+    } finally {
+      lock.unlock();
+    }
   }
 
   public synchronized void optimizeImport(final String path) throws ExecutionException {
@@ -418,67 +488,71 @@ public class Session {
     if (!FileUtils.isJavaFile(file)) {
       return;
     }
-    boolean b = this.changeProject(path);
-
-    parseJavaSource(file)
-        .ifPresent(
-            source -> {
-              final List<String> optimized = source.optimizeImports();
-              boolean addLine = false;
-              final StringBuilder sb = new StringBuilder(1024 * 4);
-              if (!source.getPackageName().isEmpty()) {
-                sb.append("package ").append(source.getPackageName()).append(";\n");
-              }
-
-              if (source.staticImportClass.size() > 0) {
-                sb.append('\n');
-                addLine = true;
-                source
-                    .staticImportClass
-                    .entrySet()
-                    .stream()
-                    .map(
-                        e -> {
-                          final String method = e.getKey();
-                          final String fqcn = e.getValue();
-                          return fqcn + '.' + method;
-                        })
-                    .sorted(Comparator.naturalOrder())
-                    .forEach(s -> sb.append("import static ").append(s).append(";\n"));
-                sb.append('\n');
-              }
-              if (optimized.size() > 0) {
-                if (!addLine) {
+
+    final Lock lock = this.lockProject(path);
+    try {
+      parseJavaSource(file)
+          .ifPresent(
+              source -> {
+                final List<String> optimized = source.optimizeImports();
+                boolean addLine = false;
+                final StringBuilder sb = new StringBuilder(1024 * 4);
+                if (!source.getPackageName().isEmpty()) {
+                  sb.append("package ").append(source.getPackageName()).append(";\n");
+                }
+
+                if (source.staticImportClass.size() > 0) {
                   sb.append('\n');
+                  addLine = true;
+                  source
+                      .staticImportClass
+                      .entrySet()
+                      .stream()
+                      .map(
+                          e -> {
+                            final String method = e.getKey();
+                            final String fqcn = e.getValue();
+                            return fqcn + '.' + method;
+                          })
+                      .sorted(Comparator.naturalOrder())
+                      .forEach(s -> sb.append("import static ").append(s).append(";\n"));
+                  sb.append('\n');
+                }
+                if (optimized.size() > 0) {
+                  if (!addLine) {
+                    sb.append('\n');
+                  }
+                  for (final String fqcn : optimized) {
+                    sb.append("import ").append(fqcn).append(";\n");
+                  }
                 }
-                for (final String fqcn : optimized) {
-                  sb.append("import ").append(fqcn).append(";\n");
+
+                try (final Stream<String> stream =
+                    Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
+                  int startLine = source.getClassStartLine();
+                  stream
+                      .skip(startLine)
+                      .forEach(
+                          s -> {
+                            if (startLine > 0 || !s.contains("package ")) {
+                              sb.append(s).append('\n');
+                            }
+                          });
+                  Files.write(
+                      Paths.get(path),
+                      sb.toString().getBytes(StandardCharsets.UTF_8),
+                      StandardOpenOption.WRITE,
+                      StandardOpenOption.TRUNCATE_EXISTING);
+                } catch (final IOException e) {
+                  throw new UncheckedIOException(e);
                 }
-              }
-
-              try (final Stream<String> stream =
-                  Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
-                int startLine = source.getClassStartLine();
-                stream
-                    .skip(startLine)
-                    .forEach(
-                        s -> {
-                          if (startLine > 0 || !s.contains("package ")) {
-                            sb.append(s).append('\n');
-                          }
-                        });
-                Files.write(
-                    Paths.get(path),
-                    sb.toString().getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.WRITE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
-              } catch (final IOException e) {
-                throw new UncheckedIOException(e);
-              }
-            });
-  }
-
-  public synchronized Map<String, List<String>> searchMissingImport(final String path)
+              });
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Map<String, List<String>> searchMissingImport(final String path)
       throws ExecutionException {
     // java file only
     final File file = normalize(path);
@@ -486,8 +560,12 @@ public class Session {
       return Collections.emptyMap();
     }
 
-    boolean b = this.changeProject(path);
-    return parseJavaSource(file).map(Source::searchMissingImport).orElse(Collections.emptyMap());
+    final Lock lock = this.lockProject(path);
+    try {
+      return parseJavaSource(file).map(Source::searchMissingImport).orElse(Collections.emptyMap());
+    } finally {
+      lock.unlock();
+    }
   }
 
   private Optional<Source> parseJavaSource(final File file) throws ExecutionException {
@@ -504,24 +582,91 @@ public class Session {
     if (!FileUtils.isJavaFile(file)) {
       return false;
     }
-    boolean b = this.changeProject(path);
-    final GlobalCache globalCache = GlobalCache.getInstance();
-    globalCache.invalidateSource(currentProject, file);
-    Optional<Source> source = this.parseJavaSource(file);
-    return source.isPresent();
+    // a superseded parse stops here, a started parse is shared through the source cache
+    CancelToken.checkCancelled();
+    final Lock lock = this.lockProject(path);
+    try {
+      final GlobalCache globalCache = GlobalCache.getInstance();
+      globalCache.invalidateSource(currentProject, file);
+      Optional<Source> source = this.parseJavaSource(file);
+      return source.isPresent();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public synchronized void parseFiles(final List<File> files)
+      throws ExecutionException, IOException {
+    // group java files by project so each project is parsed in one analyzer pass
+    final List<File> javaFiles =
+        files.stream().filter(FileUtils::isJavaFile).collect(Collectors.toList());
+    final Map<File, List<File>> byProject = this.groupByProject(javaFiles);
+
+    for (final List<File> projectFiles : byProject.values()) {
+      CancelToken.checkCancelled();
+      final Lock lock = this.lockProject(projectFiles.get(0).getPath());
+      try {
+        final GlobalCache globalCache = GlobalCache.getInstance();
+        final CompileResult result = this.currentProject.parseFiles(projectFiles);
+        final Map<File, Source> sources = result.getSources();
+        for (final File file : projectFiles) {
+          final Source source = sources.get(file);
+          if (nonNull(source)) {
+            globalCache.replaceSource(this.currentProject, source);
+          } else {
+            globalCache.invalidateSource(this.currentProject, file);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  public synchronized void removeFiles(final List<File> files) throws IOException {
+    final Map<File, List<File>> byProject = this.groupByProject(files);
+    // deleted files never switch the project
+    final Lock lock = this.projectLock.readLock();
+    lock.lock();
+    try {
+      for (final Map.Entry<File, List<File>> entry : byProject.entrySet()) {
+        final Project project = this.projects.get(entry.getKey());
+        if (nonNull(project)) {
+          project.removeSources(entry.getValue());
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Map<File, List<File>> groupByProject(final List<File> files) throws IOException {
+    final Map<File, List<File>> byProject = new LinkedHashMap<>(2);
+    for (final File f : files) {
+      final File file = f.getCanonicalFile();
+      File projectRoot = Session.findProjectRoot(file);
+      if (isNull(projectRoot)) {
+        projectRoot = this.currentProject.getProjectRoot();
+      }
+      byProject.computeIfAbsent(projectRoot, k -> new ArrayList<>(4)).add(file);
+    }
+    return byProject;
   }
 
   public synchronized CompileResult compileFile(final String path) throws IOException {
     // java file only
     final File file = normalize(path);
-    boolean b = this.changeProject(path);
-    return currentProject.compileFile(file, true);
+    // javac runs on the resolved project without holding the project lock, a waiting
+    // project switch would block every new query behind the compile otherwise
+    final Project project = this.resolveProject(path);
+    return project.compileFile(file, true);
   }
 
   public synchronized CompileResult compileProject(final String path, final boolean force)
       throws IOException {
 
-    final Project project = currentProject;
+    // javac runs without the project lock, see compileFile
+    final Project project = this.currentProject;
     final CompileResult result = project.compileJava(force);
     if (result.hasDiagnostics()) {
       log.warn("project {} compile report:{}", project.getName(), result.getDiagnosticsSummary());
@@ -541,6 +686,24 @@ public class Session {
     return result;
   }
 
+  private Project resolveProject(final String path) {
+    final Lock lock = this.lockProject(path);
+    try {
+      return this.currentProject;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Map<String, Object> getMetrics() {
+    final Map<String, Object> metrics = new LinkedHashMap<>(32);
+    metrics.putAll(ProjectDatabaseHelper.getStoreMetrics());
+    metrics.putAll(GlobalCache.getInstance().getMemberCacheStats());
+    metrics.putAll(JavaAnalyzer.getFileManagerStats());
+    metrics.putAll(this.sessionEventBus.getStats());
+    return metrics;
+  }
+
   public Collection<File> getDependentJars() {
     return currentProject
         .getDependencies()
@@ -558,13 +721,11 @@ public class Session {
   }
 
   public InputStream runJUnit(String path, String test) throws IOException {
-    boolean b = this.changeProject(path);
-    return currentProject.runJUnit(test);
+    return this.resolveProject(path).runJUnit(test);
   }
 
   public Optional<String> switchTest(final String path) throws IOException {
-    boolean b = this.changeProject(path);
-    Project project = currentProject;
+    final Project project = this.resolveProject(path);
     String root = null;
     Set<File> roots;
     boolean isTest;
@@ -617,18 +778,26 @@ public class Session {
     return Optional.empty();
   }
 
-  public synchronized Optional<Location> jumpDeclaration(
+  public Optional<Location> jumpDeclaration(
       final String path, final int line, final int column, final String symbol)
       throws ExecutionException, IOException {
 
-    boolean b = this.changeProject(path);
-    final Optional<Location> location =
-        this.getLocationSearcher().searchDeclarationLocation(new File(path), line, column, symbol);
+    final Optional<Location> location;
+    final Lock lock = this.lockProject(path);
+    try {
+      location =
+          this.getLocationSearcher()
+              .searchDeclarationLocation(new File(path), line, column, symbol);
+    } finally {
+      lock.unlock();
+    }
 
     location.ifPresent(
         a -> {
           Location backLocation = new Location(path, line, column);
-          this.jumpDecHistory.addLast(backLocation);
+          synchronized (this.jumpDecHistory) {
+            this.jumpDecHistory.addLast(backLocation);
+          }
         });
 
     if (!location.isPresent()) {
@@ -637,8 +806,10 @@ public class Session {
     return location;
   }
 
-  public synchronized Location backDeclaration() {
-    return this.jumpDecHistory.pollLast();
+  public Location backDeclaration() {
+    synchronized (this.jumpDecHistory) {
+      return this.jumpDecHistory.pollLast();
+    }
   }
 
   public InputStream runTask(List<String> args) throws Exception {
@@ -646,8 +817,7 @@ public class Session {
   }
 
   public void formatCode(final String path) throws IOException {
-    boolean b = this.changeProject(path);
-    final Project project = currentProject;
+    final Project project = this.resolveProject(path);
     final Optional<Properties> formatProperties = project.getFormatProperties();
     if (!formatProperties.isPresent()) {
       FileUtils.formatJavaFile(path);
@@ -659,16 +829,25 @@ public class Session {
   public void reloadProject() throws IOException {
     final Project currentProject = this.currentProject;
     final File projectRoot = currentProject.getProjectRoot();
-    this.projects.clear();
+    // parsing the build file can take long, only the swap is done under the write lock
+    final Optional<Project> loaded;
     if (currentProject instanceof GradleProject) {
-      loadProject(projectRoot, Project.GRADLE_PROJECT_FILE)
-          .ifPresent(project -> setProject(projectRoot, project));
+      loaded = loadProject(projectRoot, Project.GRADLE_PROJECT_FILE);
     } else if (currentProject instanceof MavenProject) {
-      loadProject(projectRoot, Project.MVN_PROJECT_FILE)
-          .ifPresent(project -> setProject(projectRoot, project));
+      loaded = loadProject(projectRoot, Project.MVN_PROJECT_FILE);
     } else {
-      loadProject(projectRoot, Config.MEGHANADA_CONF_FILE)
-          .ifPresent(project -> setProject(projectRoot, project));
+      loaded = loadProject(projectRoot, Config.MEGHANADA_CONF_FILE);
+    }
+
+    this.projectLock.writeLock().lock();
+    try {
+      this.projects.clear();
+      // dependency jars may have been rebuilt in place
+      JavaAnalyzer.clearFileManagers();
+      CachedASMReflector.getInstance().releaseJars();
+      loaded.ifPresent(project -> setProject(projectRoot, project));
+    } finally {
+      this.projectLock.writeLock().unlock();
     }
 
     final Set<File> temp = new HashSet<>(this.currentProject.getSources());
@@ -685,9 +864,13 @@ public class Session {
   public Optional<Declaration> showDeclaration(
       final String path, final int line, final int column, final String symbol)
       throws IOException, ExecutionException {
-    boolean b = this.changeProject(path);
-    final DeclarationSearcher searcher = this.getDeclarationSearcher();
-    return searcher.searchDeclaration(new File(path), line, column, symbol);
+    final Lock lock = this.lockProject(path);
+    try {
+      final DeclarationSearcher searcher = this.getDeclarationSearcher();
+      return searcher.searchDeclaration(new File(path), line, column, symbol);
+    } finally {
+      lock.unlock();
+    }
   }
 
   private DeclarationSearcher getDeclarationSearcher() {
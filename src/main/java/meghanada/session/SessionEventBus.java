@@ -1,14 +1,13 @@
 package meghanada.session;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
 import java.io.File;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import meghanada.session.LaneExecutor.Lane;
 import meghanada.session.subscribe.CacheEventSubscriber;
 import meghanada.session.subscribe.FileWatchEventSubscriber;
 import meghanada.session.subscribe.ParseEventSubscriber;
@@ -20,15 +19,15 @@ public class SessionEventBus {
   private static final Logger log = LogManager.getLogger(Session.class);
   private final EventBus eventBus;
   private final Session session;
-  private final ExecutorService executorService;
+  private final LaneExecutor executorService;
 
   SessionEventBus(final Session session) {
     this.session = session;
-    this.executorService = Executors.newCachedThreadPool();
+    this.executorService = new LaneExecutor();
 
+    // subscribers run on the thread that delivers the event, the lane is chosen by post(Lane, Object)
     this.eventBus =
-        new AsyncEventBus(
-            executorService,
+        new EventBus(
             (throwable, subscriberExceptionContext) -> {
               if (!(throwable instanceof RejectedExecutionException)) {
                 log.error(throwable.getMessage(), throwable);
@@ -76,20 +75,40 @@ public class SessionEventBus {
     return eventBus;
   }
 
+  Map<String, Object> getStats() {
+    return this.executorService.getStats();
+  }
+
+  private void post(final Lane lane, final Object event) {
+    try {
+      this.executorService.execute(lane, () -> this.eventBus.post(event));
+    } catch (RejectedExecutionException e) {
+      log.debug("event bus already shutdown. discard {}", event);
+    }
+  }
+
   public void requestCreateCache() {
-    this.eventBus.post(new ClassCacheRequest(this.session));
+    this.post(Lane.BULK, new ClassCacheRequest(this.session));
+  }
+
+  public void requestIndexParameterNames() {
+    this.post(Lane.BULK, new ParameterNamesRequest(this.session));
   }
 
-  public void requestParse(File file) {
-    this.eventBus.post(new ParseRequest(this.session, file));
+  public void requestParseFiles(final List<File> files) {
+    this.post(Lane.BACKGROUND, new ParseFilesRequest(this.session, files));
+  }
+
+  public void requestRemoveFiles(final List<File> files) {
+    this.post(Lane.BACKGROUND, new RemoveFilesRequest(this.session, files));
   }
 
   public void requestWatchFiles(final List<File> files) {
-    this.eventBus.post(new FilesWatchRequest(this.session, files));
+    this.post(Lane.BACKGROUND, new FilesWatchRequest(this.session, files));
   }
 
   public void requestWatchFile(final File file) {
-    this.eventBus.post(new FileWatchRequest(this.session, file));
+    this.post(Lane.BACKGROUND, new FileWatchRequest(this.session, file));
   }
 
   abstract static class IORequest {
@@ -138,10 +157,10 @@ public class SessionEventBus {
     }
   }
 
-  public static class ParseRequest extends IORequest {
+  public static class ParameterNamesRequest extends IORequest {
 
-    public ParseRequest(Session session, File file) {
-      super(session, file);
+    public ParameterNamesRequest(final Session session) {
+      super(session);
     }
   }
 
@@ -165,4 +184,11 @@ public class SessionEventBus {
       super(session, files);
     }
   }
+
+  public static class RemoveFilesRequest extends IOListRequest {
+
+    public RemoveFilesRequest(Session session, List<File> files) {
+      super(session, files);
+    }
+  }
 }
@@ -5,11 +5,19 @@ import static meghanada.config.Config.timeItF;
 import com.google.common.base.Stopwatch;
 import com.google.common.eventbus.Subscribe;
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import meghanada.analyze.CompileResult;
+import meghanada.config.Config;
 import meghanada.project.Project;
 import meghanada.project.ProjectDependency;
 import meghanada.reflect.asm.CachedASMReflector;
+import meghanada.reflect.names.ParameterNamesDatabase;
+import meghanada.reflect.names.ParameterNamesIndexer;
 import meghanada.session.Session;
 import meghanada.session.SessionEventBus;
 import org.apache.logging.log4j.LogManager;
@@ -29,6 +37,46 @@ public class CacheEventSubscriber extends AbstractSubscriber {
     this.analyze();
   }
 
+  @Subscribe
+  public void on(final SessionEventBus.ParameterNamesRequest request) {
+    final Session session = super.sessionEventBus.getSession();
+    final File dir = new File(Config.load().getParameterNamesDir());
+    // requests keep the other half of the cores
+    final ParameterNamesIndexer indexer =
+        new ParameterNamesIndexer(Runtime.getRuntime().availableProcessors() / 2);
+    try {
+      final List<File> written =
+          timeItF(
+              "index parameter names. elapsed:{}",
+              () -> indexer.indexDependencies(session.getDependentJars(), dir));
+      final Set<String> classes = new HashSet<>(1024);
+      for (final File file : written) {
+        classes.addAll(ParameterNamesDatabase.addDependency(file));
+      }
+      // members reflected before have generated parameter names, subclasses inherited them
+      session.getCurrentProject().invalidateMemberDescriptors(classes);
+      log.info("indexed parameter names of {} jars", written.size());
+    } catch (IOException e) {
+      log.catching(e);
+    } finally {
+      indexer.shutdown();
+    }
+  }
+
+  private static void loadParameterNames(final Collection<File> jars) {
+    final File dir = new File(Config.load().getParameterNamesDir());
+    for (final File jar : jars) {
+      try {
+        final Optional<File> db = ParameterNamesIndexer.findDatabase(dir, jar);
+        if (db.isPresent()) {
+          ParameterNamesDatabase.addDependency(db.get());
+        }
+      } catch (IOException e) {
+        log.warn("fail load parameter names of {}:{}", jar, e.getMessage());
+      }
+    }
+  }
+
   private void analyze() {
     final Stopwatch stopwatch = Stopwatch.createStarted();
     final Session session = super.sessionEventBus.getSession();
@@ -50,6 +98,11 @@ public class CacheEventSubscriber extends AbstractSubscriber {
 
     final Collection<File> dependentJars = session.getDependentJars();
     final int size = dependentJars.size();
+    final boolean parameterNames = Config.load().useDependencyParameterNames();
+    if (parameterNames) {
+      // indexed by an earlier session, before any member is reflected
+      loadParameterNames(dependentJars);
+    }
     timeItF(
         "create class index. read " + size + " jars. elapsed:{}",
         () -> {
@@ -98,5 +151,8 @@ public class CacheEventSubscriber extends AbstractSubscriber {
         String.format("%.2f", totalMemory),
         String.format("%.2f", maxMemory));
     log.info("Ready");
+    if (parameterNames) {
+      super.sessionEventBus.requestIndexParameterNames();
+    }
   }
 }
@@ -0,0 +1,117 @@
+package meghanada.session.subscribe;
+
+import static java.util.Objects.isNull;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Debounces file events per path. A path is handed to the sink once it has been quiet for the
+ * debounce period, with its create/modify/delete sequence collapsed into a single kind. All paths
+ * that settle together are handed over as one batch.
+ */
+class FileEventCoalescer {
+
+  private static final Logger log = LogManager.getLogger(FileEventCoalescer.class);
+
+  private final long quietMillis;
+  private final Consumer<Map<File, Kind>> sink;
+  private final Map<File, Pending> pending = new LinkedHashMap<>(64);
+  private final ScheduledExecutorService executorService;
+  private boolean scheduled;
+
+  FileEventCoalescer(final long quietMillis, final Consumer<Map<File, Kind>> sink) {
+    this.quietMillis = quietMillis;
+    this.sink = sink;
+    this.executorService =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "file-event-coalescer");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  static Kind merge(final Kind prev, final Kind next) {
+    if (isNull(prev)) {
+      return next;
+    }
+    if (next == Kind.DELETE) {
+      // a file that came and went never existed for us
+      return prev == Kind.CREATE ? null : Kind.DELETE;
+    }
+    return prev == Kind.CREATE ? Kind.CREATE : Kind.MODIFY;
+  }
+
+  synchronized void add(final File file, final Kind kind) {
+    final Pending prev = this.pending.remove(file);
+    final Kind merged = merge(isNull(prev) ? null : prev.kind, kind);
+    if (isNull(merged)) {
+      return;
+    }
+    // re-insert so the map stays ordered by last event
+    this.pending.put(file, new Pending(merged, System.currentTimeMillis()));
+    if (!this.scheduled) {
+      this.scheduled = true;
+      this.executorService.schedule(this::flush, this.quietMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  void flush() {
+    final Map<File, Kind> batch = new HashMap<>(16);
+    synchronized (this) {
+      final long now = System.currentTimeMillis();
+      final Iterator<Map.Entry<File, Pending>> it = this.pending.entrySet().iterator();
+      long nextDue = -1;
+      while (it.hasNext()) {
+        final Map.Entry<File, Pending> entry = it.next();
+        final long due = entry.getValue().lastEvent + this.quietMillis;
+        if (due > now) {
+          nextDue = due;
+          break;
+        }
+        batch.put(entry.getKey(), entry.getValue().kind);
+        it.remove();
+      }
+      if (nextDue > 0) {
+        this.executorService.schedule(this::flush, nextDue - now, TimeUnit.MILLISECONDS);
+      } else {
+        this.scheduled = false;
+      }
+    }
+    if (!batch.isEmpty()) {
+      log.debug("settled {} files", batch.size());
+      try {
+        this.sink.accept(batch);
+      } catch (Throwable t) {
+        log.catching(t);
+      }
+    }
+  }
+
+  enum Kind {
+    CREATE,
+    MODIFY,
+    DELETE
+  }
+
+  private static class Pending {
+
+    private final Kind kind;
+    private final long lastEvent;
+
+    Pending(final Kind kind, final long lastEvent) {
+      this.kind = kind;
+      this.lastEvent = lastEvent;
+    }
+  }
+}
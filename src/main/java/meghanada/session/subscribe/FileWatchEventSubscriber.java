@@ -4,7 +4,9 @@ import com.google.common.eventbus.Subscribe;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import meghanada.config.Config;
 import meghanada.project.Project;
 import meghanada.session.SessionEventBus;
@@ -16,61 +18,109 @@ public class FileWatchEventSubscriber extends AbstractSubscriber {
 
   private static final Logger log = LogManager.getLogger(FileWatchEventSubscriber.class);
 
+  private static final long DEBOUNCE_MILLIS = 300;
+
+  private final FileEventCoalescer coalescer;
   private FileSystemWatcher fileSystemWatcher;
 
   public FileWatchEventSubscriber(final SessionEventBus sessionEventBus) {
     super(sessionEventBus);
+    this.coalescer = new FileEventCoalescer(DEBOUNCE_MILLIS, this::dispatch);
     log.debug("subscribe file watch");
   }
 
+  private static boolean isProjectFile(final File file) {
+    final String name = file.getName();
+    return name.endsWith(Project.GRADLE_PROJECT_FILE)
+        || name.endsWith(Project.MVN_PROJECT_FILE)
+        || name.endsWith(Config.MEGHANADA_CONF_FILE);
+  }
+
   @Subscribe
   public void on(final FileSystemWatcher.CreateEvent event) {
     log.debug("create event {}", event);
-    final File file = event.getFile();
-
-    // parse
-    this.sessionEventBus.requestParse(file);
+    this.coalescer.add(event.getFile(), FileEventCoalescer.Kind.CREATE);
   }
 
   @Subscribe
   public void on(final FileSystemWatcher.ModifyEvent event) {
     log.debug("modify event {}", event);
-    final File file = event.getFile();
+    this.coalescer.add(event.getFile(), FileEventCoalescer.Kind.MODIFY);
+  }
 
-    final String name = file.getName();
-    if (name.endsWith(Project.GRADLE_PROJECT_FILE)
-        || name.endsWith(Project.MVN_PROJECT_FILE)
-        || name.endsWith(Config.MEGHANADA_CONF_FILE)) {
+  @Subscribe
+  public void on(final FileSystemWatcher.DeleteEvent event) {
+    log.debug("delete event {}", event);
+    this.coalescer.add(event.getFile(), FileEventCoalescer.Kind.DELETE);
+  }
+
+  private void dispatch(final Map<File, FileEventCoalescer.Kind> batch) {
+    boolean reload = false;
+    final List<File> files = new ArrayList<>(batch.size());
+    final List<File> deleted = new ArrayList<>(4);
+    for (final Map.Entry<File, FileEventCoalescer.Kind> entry : batch.entrySet()) {
+      final File file = entry.getKey();
+      final FileEventCoalescer.Kind kind = entry.getValue();
+      if (kind == FileEventCoalescer.Kind.DELETE) {
+        if (file.getName().endsWith(".java")) {
+          deleted.add(file);
+        }
+      } else if (isProjectFile(file)) {
+        reload = true;
+      } else {
+        files.add(file);
+      }
+    }
+
+    if (reload) {
       // project reload
       try {
         this.sessionEventBus.getSession().reloadProject();
       } catch (Exception e) {
         log.catching(e);
       }
-    } else {
+    }
+    if (!deleted.isEmpty()) {
+      this.sessionEventBus.requestRemoveFiles(deleted);
+    }
+    if (!files.isEmpty()) {
       // parse
-      this.sessionEventBus.requestParse(file);
+      this.sessionEventBus.requestParseFiles(files);
     }
   }
 
-  @Subscribe
-  public void on(final SessionEventBus.FilesWatchRequest request) throws IOException {
+  private synchronized void startWatcher(final List<File> files) throws IOException {
     if (this.fileSystemWatcher == null) {
       this.fileSystemWatcher = new FileSystemWatcher(super.sessionEventBus.getEventBus());
+      final FileSystemWatcher watcher = this.fileSystemWatcher;
+      final List<File> roots = new ArrayList<>(files);
+      // the watch loop blocks, keep it off the event bus workers
+      final Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  watcher.start(roots);
+                } catch (Throwable t) {
+                  log.catching(t);
+                }
+              },
+              "file-system-watcher");
+      thread.setDaemon(true);
+      thread.start();
+    } else {
+      for (final File file : files) {
+        this.fileSystemWatcher.watch(file);
+      }
     }
-    final List<File> files = request.getFiles();
-    this.fileSystemWatcher.start(files);
+  }
+
+  @Subscribe
+  public void on(final SessionEventBus.FilesWatchRequest request) throws IOException {
+    this.startWatcher(request.getFiles());
   }
 
   @Subscribe
   public void on(final SessionEventBus.FileWatchRequest request) throws IOException {
-    if (this.fileSystemWatcher == null) {
-      this.fileSystemWatcher = new FileSystemWatcher(super.sessionEventBus.getEventBus());
-      if (!this.fileSystemWatcher.started) {
-        this.fileSystemWatcher.start(new ArrayList<>(2));
-      }
-    }
-    final File file = request.getFile();
-    this.fileSystemWatcher.watch(file);
+    this.startWatcher(Collections.singletonList(request.getFile()));
   }
 }
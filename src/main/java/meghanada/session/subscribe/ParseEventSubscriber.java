@@ -2,12 +2,9 @@ package meghanada.session.subscribe;
 
 import com.google.common.eventbus.Subscribe;
 import java.io.File;
-import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 import meghanada.session.Session;
 import meghanada.session.SessionEventBus;
-import meghanada.utils.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -20,39 +17,25 @@ public class ParseEventSubscriber extends AbstractSubscriber {
     log.debug("subscribe source parser");
   }
 
-  private static void parseFile(final Session session, final File file)
-      throws IOException, ExecutionException {
-    final boolean b = session.parseFile(file.getCanonicalPath());
-  }
-
   @Subscribe
-  public synchronized void on(final SessionEventBus.ParseRequest request) {
-
+  public synchronized void on(SessionEventBus.ParseFilesRequest request) {
     final Session session = super.sessionEventBus.getSession();
-    final File file = request.getFile();
-    if (!FileUtils.isJavaFile(file)) {
-      return;
-    }
+    final List<File> files = request.getFiles();
     try {
-      ParseEventSubscriber.parseFile(session, file);
+      // one analyzer pass per project for the whole batch
+      session.parseFiles(files);
     } catch (Exception e) {
       log.warn("parse error {}", e.getMessage());
     }
   }
 
   @Subscribe
-  public synchronized void on(SessionEventBus.ParseFilesRequest request) {
+  public synchronized void on(SessionEventBus.RemoveFilesRequest request) {
     final Session session = super.sessionEventBus.getSession();
-    final List<File> files = request.getFiles();
-    for (final File file : files) {
-      if (!FileUtils.isJavaFile(file)) {
-        continue;
-      }
-      try {
-        ParseEventSubscriber.parseFile(session, file);
-      } catch (Exception e) {
-        log.warn("parse error {}", e.getMessage());
-      }
+    try {
+      session.removeFiles(request.getFiles());
+    } catch (Exception e) {
+      log.warn("remove error {}", e.getMessage());
     }
   }
 }
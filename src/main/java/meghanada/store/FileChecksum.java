@@ -0,0 +1,132 @@
+package meghanada.store;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import java.util.HashMap;
+import java.util.Map;
+
+public class FileChecksum implements Storable {
+
+  static final String ENTITY_TYPE = "FileChecksum";
+  static final String PROP_PROJECT_ROOT = "projectRoot";
+  static final String PROP_FILE_PATH = "filePath";
+  static final String PROP_SIZE = "size";
+  static final String PROP_LAST_MODIFIED = "lastModified";
+  static final String PROP_FILE_KEY = "fileKey";
+  static final String PROP_CHECKSUM = "checksum";
+
+  private final String projectRoot;
+  private final String filePath;
+  private final long size;
+  private final long lastModified;
+  private final String fileKey;
+  private final String checksum;
+
+  public FileChecksum(
+      final String projectRoot,
+      final String filePath,
+      final long size,
+      final long lastModified,
+      final String fileKey,
+      final String checksum) {
+    this.projectRoot = projectRoot;
+    this.filePath = filePath;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.fileKey = Strings.nullToEmpty(fileKey);
+    this.checksum = checksum;
+  }
+
+  public String getFilePath() {
+    return filePath;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public String getFileKey() {
+    return fileKey;
+  }
+
+  public String getChecksum() {
+    return checksum;
+  }
+
+  public boolean isSameAttributes(final long size, final long lastModified, final String fileKey) {
+    return this.size == size
+        && this.lastModified == lastModified
+        && this.fileKey.equals(Strings.nullToEmpty(fileKey));
+  }
+
+  public boolean isSameContent(final FileChecksum other) {
+    return this.checksum.equals(other.checksum);
+  }
+
+  // a file can belong to more than one project root, each keeps its own record
+  static String getStoreId(final String projectRoot, final String filePath) {
+    return projectRoot + '|' + filePath;
+  }
+
+  @Override
+  public String getStoreId() {
+    return getStoreId(this.projectRoot, this.filePath);
+  }
+
+  @Override
+  public String getEntityType() {
+    return ENTITY_TYPE;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Map<String, Comparable> getSaveProperties() {
+    Map<String, Comparable> map = new HashMap<>(6);
+    map.put(PROP_PROJECT_ROOT, this.projectRoot);
+    map.put(PROP_FILE_PATH, this.filePath);
+    map.put(PROP_SIZE, this.size);
+    map.put(PROP_LAST_MODIFIED, this.lastModified);
+    map.put(PROP_FILE_KEY, this.fileKey);
+    map.put(PROP_CHECKSUM, this.checksum);
+    return map;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FileChecksum that = (FileChecksum) o;
+    return size == that.size
+        && lastModified == that.lastModified
+        && Objects.equal(projectRoot, that.projectRoot)
+        && Objects.equal(filePath, that.filePath)
+        && Objects.equal(fileKey, that.fileKey)
+        && Objects.equal(checksum, that.checksum);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(projectRoot, filePath, size, lastModified, fileKey, checksum);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("projectRoot", projectRoot)
+        .add("filePath", filePath)
+        .add("size", size)
+        .add("lastModified", lastModified)
+        .add("fileKey", fileKey)
+        .add("checksum", checksum)
+        .toString();
+  }
+}
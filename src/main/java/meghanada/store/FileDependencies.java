@@ -0,0 +1,70 @@
+package meghanada.store;
+
+import com.google.common.base.MoreObjects;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependencies recorded for one source file. The file uses a set of classes (file level edges),
+ * declares classes with a signature digest, and each declared class extends or implements other
+ * classes (signature level edges). Stored one entity per edge and per declared class.
+ */
+public class FileDependencies {
+
+  static final String EDGE_ENTITY_TYPE = "DependencyEdge";
+  static final String CLASS_ENTITY_TYPE = "DeclaredClass";
+  static final String PROP_PROJECT_ROOT = "projectRoot";
+  static final String PROP_FILE = "file";
+  static final String PROP_KIND = "kind";
+  static final String PROP_FROM = "from";
+  static final String PROP_TO = "to";
+  static final String PROP_SIGNATURE = "signature";
+  static final String KIND_USE = "use";
+  static final String KIND_SUPER = "super";
+
+  private final String filePath;
+  private final Set<String> uses;
+  private final Map<String, String> signatures;
+  private final Map<String, Set<String>> supertypes;
+
+  public FileDependencies(
+      final String filePath,
+      final Set<String> uses,
+      final Map<String, String> signatures,
+      final Map<String, Set<String>> supertypes) {
+    this.filePath = filePath;
+    this.uses = uses;
+    this.signatures = signatures;
+    this.supertypes = supertypes;
+  }
+
+  public String getFilePath() {
+    return filePath;
+  }
+
+  public Set<String> getUses() {
+    return uses;
+  }
+
+  public Map<String, String> getSignatures() {
+    return signatures;
+  }
+
+  public Map<String, Set<String>> getSupertypes() {
+    return supertypes;
+  }
+
+  public Set<String> getSupertypes(final String fqcn) {
+    return supertypes.getOrDefault(fqcn, Collections.emptySet());
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("filePath", filePath)
+        .add("uses", uses.size())
+        .add("classes", signatures.keySet())
+        .toString();
+  }
+}
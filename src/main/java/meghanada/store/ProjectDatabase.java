@@ -6,6 +6,7 @@ import static java.util.Objects.requireNonNull;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
 import com.google.common.hash.Hashing;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -16,11 +17,10 @@ import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,6 +29,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import javax.annotation.Nullable;
 import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.entitystore.Entity;
 import jetbrains.exodus.entitystore.EntityId;
@@ -55,19 +56,32 @@ class ProjectDatabase {
   private static final String STORE_NAME = "meghanadaStore";
   private static final Logger log = LogManager.getLogger(ProjectDatabase.class);
 
-  private static final int MERGE_SIZE = 10;
-  private static final int BURST_LIMIT = MERGE_SIZE;
+  // bounded queue, producers are blocked when the writer can not keep up
+  private static final int QUEUE_CAPACITY = 1024;
+  // large collections are split into requests of this size
+  private static final int CHUNK_SIZE = 256;
+  private static final int MIN_BATCH_SIZE = 16;
+  private static final int MAX_BATCH_SIZE = 1024 * 8;
+  private static final long MAX_BATCH_BYTES = 1024 * 1024 * 8;
+  private static final long FLUSH_INTERVAL_MILLIS = 50;
+  private static final long TARGET_COMMIT_MILLIS = 200;
+  // a blocked producer checks this often whether the worker is still alive
+  private static final long OFFER_TIMEOUT_MILLIS = 500;
 
   private static ProjectDatabase projectDatabase;
   private static AtomicLong seq = new AtomicLong(1);
 
-  private final BlockingQueue<StoreRequest> blockingQueue = new LinkedBlockingDeque<>();
+  private final BlockingQueue<StoreRequest> blockingQueue =
+      new LinkedBlockingDeque<>(QUEUE_CAPACITY);
+  private final StoreMetrics metrics = new StoreMetrics();
   private ExecutorService executorService = null;
   private Environment environment = null;
   private PersistentEntityStore entityStore = null;
   private String projectRoot;
   private boolean isTerminated;
-  private boolean ioBurstMode;
+  private volatile int batchSize = CHUNK_SIZE;
+  private volatile boolean workerRunning;
+  private volatile boolean shutdownTaken;
 
   private ProjectDatabase() {
     open();
@@ -84,7 +98,7 @@ class ProjectDatabase {
                 }));
   }
 
-  public static ProjectDatabase getInstance() {
+  public static synchronized ProjectDatabase getInstance() {
     checkChangeProject();
     if (projectDatabase != null) {
       projectDatabase.open();
@@ -134,10 +148,23 @@ class ProjectDatabase {
       }
       projectDatabase.open();
     }
+    ProjectDatabaseHelper.clearChecksums();
   }
 
-  @SuppressWarnings("rawtypes")
   private static long putObject(Storable s, boolean allowUpdate, StoreTransaction txn) {
+    try {
+      return putObject(s, allowUpdate, txn, null);
+    } catch (IOException e) {
+      log.catching(e);
+      txn.abort();
+      return -1;
+    }
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static long putObject(
+      Storable s, boolean allowUpdate, StoreTransaction txn, @Nullable AtomicLong written)
+      throws IOException {
 
     String entityType = s.getEntityType();
     EntityId entityId = s.getEntityId();
@@ -161,7 +188,9 @@ class ProjectDatabase {
       return entity.getId().getLocalId();
     }
 
+    boolean created = false;
     if (isNull(entity)) {
+      created = true;
       entity = txn.newEntity(entityType);
       entity.setProperty(ID, id);
     }
@@ -174,11 +203,16 @@ class ProjectDatabase {
 
     if (s instanceof Serializable) {
       try {
-        setSerializeBlobData(entity, SERIALIZE_KEY, s);
+        int size = setSerializeBlobData(entity, SERIALIZE_KEY, s);
+        if (nonNull(written)) {
+          written.addAndGet(size);
+        }
       } catch (IOException e) {
-        log.catching(e);
-        txn.abort();
-        return -1;
+        if (created) {
+          // no entity without its blob
+          entity.delete();
+        }
+        throw e;
       }
     }
     // txn.saveEntity(entity);
@@ -186,7 +220,7 @@ class ProjectDatabase {
     return entity.getId().getLocalId();
   }
 
-  public static void setSerializeBlobData(Entity entity, String prop, Object obj)
+  public static int setSerializeBlobData(Entity entity, String prop, Object obj)
       throws IOException {
 
     requireNonNull(entity, "require entity");
@@ -200,6 +234,7 @@ class ProjectDatabase {
       requireNonNull(in);
       entity.setBlob(prop, in);
     }
+    return bytes.length;
   }
 
   private void runGC() {
@@ -210,68 +245,142 @@ class ProjectDatabase {
 
   private void initWorker() {
 
-    if (isNull(this.executorService) || this.executorService.isTerminated()) {
+    if (isNull(this.executorService)
+        || this.executorService.isTerminated()
+        || !this.workerRunning) {
 
-      this.executorService = Executors.newCachedThreadPool();
+      if (nonNull(this.executorService)) {
+        this.executorService.shutdownNow();
+      }
+      this.executorService = Executors.newSingleThreadExecutor();
       this.isTerminated = false;
+      this.shutdownTaken = false;
+      this.workerRunning = true;
       log.debug("start async database worker");
 
       this.executorService.execute(
           () -> {
-            while (!this.isTerminated) {
-              try {
-
-                StoreRequest req = blockingQueue.take();
-                Stopwatch stopwatch = Stopwatch.createStarted();
-                if (nonNull(req) && !req.isShutdown()) {
-                  mergeAndStore(req);
-                }
-                log.debug("!remain {} elapsed {}", blockingQueue.size(), stopwatch.stop());
-                if (blockingQueue.isEmpty()) {
-                  log.debug("store queue is empty");
+            try {
+              boolean running = true;
+              while (running) {
+                try {
+                  StoreRequest req = blockingQueue.take();
+                  if (req.isShutdown()) {
+                    running = false;
+                  } else {
+                    storeBatch(req);
+                  }
+                } catch (InterruptedException e) {
+                  log.catching(e);
+                  running = false;
+                } catch (Exception e) {
+                  log.catching(e);
+                } finally {
+                  // a taken shutdown marker stops the worker even when its batch failed
+                  if (this.shutdownTaken) {
+                    running = false;
+                  }
                 }
-              } catch (Exception e) {
-                log.catching(e);
               }
+            } finally {
+              this.workerRunning = false;
+              log.debug("shutdown async database worker");
             }
-
-            log.debug("shutdown async database worker");
           });
     }
   }
 
-  private void mergeAndStore(StoreRequest req) {
+  private void storeBatch(StoreRequest first) throws InterruptedException {
+    // group commit: collect requests until the batch is full or the flush interval is elapsed
+    List<StoreRequest> batch = new ArrayList<>(16);
+    batch.add(first);
+    int size = first.size();
+    int limit = this.batchSize;
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
 
-    if (req.isMergable()) {
-      Set<Storable> buf = new HashSet<>(5);
-      buf.add(req.getStorable());
-
-      for (int i = 0; i < MERGE_SIZE - 1; i++) {
-        StoreRequest nextReq = this.blockingQueue.poll();
-        if (isNull(nextReq) || nextReq.isShutdown()) {
-          break;
-        }
-
-        if (nextReq.isMergable()) {
-          buf.add(nextReq.getStorable());
-        } else {
-          this.mergeAndStore(nextReq);
-        }
+    while (size < limit) {
+      long remain = deadline - System.nanoTime();
+      StoreRequest next =
+          remain > 0
+              ? this.blockingQueue.poll(remain, TimeUnit.NANOSECONDS)
+              : this.blockingQueue.poll();
+      if (isNull(next)) {
+        break;
       }
-
-      if (!buf.isEmpty()) {
-        storeObjects(buf, true);
+      if (next.isShutdown()) {
+        this.shutdownTaken = true;
+        break;
       }
-    } else {
+      batch.add(next);
+      size += next.size();
+    }
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    long written = this.commitBatch(batch);
+    long elapsed = stopwatch.stop().elapsed(TimeUnit.NANOSECONDS);
+    this.metrics.recordBatch(batch.size(), size, written, elapsed);
+    this.adjustBatchSize(size, written, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    log.debug(
+        "store batch requests:{} objects:{} bytes:{} remain:{} elapsed:{}",
+        batch.size(),
+        size,
+        written,
+        this.blockingQueue.size(),
+        stopwatch);
+  }
+
+  private long commitBatch(List<StoreRequest> batch) {
+    AtomicLong written = new AtomicLong();
+    this.entityStore.executeInTransaction(
+        txn -> {
+          // executed again from the start when the commit conflicts
+          written.set(0);
+          long flushed = 0;
+          int unflushed = 0;
+          int i = 0;
+          while (i < batch.size()) {
+            StoreRequest req = batch.get(i++);
+            for (Storable s : req.getAll()) {
+              putBatchObject(s, req.isAllowUpdate(), txn, written);
+            }
+            if (written.get() - flushed >= MAX_BATCH_BYTES) {
+              // too large, commit and continue in the same transaction
+              if (txn.flush()) {
+                flushed = written.get();
+                unflushed = i;
+              } else {
+                // conflict, the requests since the last flush were reverted
+                log.debug("store batch flush conflict, retry from request:{}", unflushed);
+                written.set(flushed);
+                i = unflushed;
+              }
+            }
+          }
+        });
+    return written.get();
+  }
 
-      Storable storable = req.getStorable();
-      if (nonNull(storable)) {
-        storeObject(storable, req.isAllowUpdate());
-      }
-      Collection<? extends Storable> storables = req.getStorables();
-      if (nonNull(storables)) {
-        storeObjects(storables, req.isAllowUpdate());
-      }
+  private static void putBatchObject(
+      Storable s, boolean allowUpdate, StoreTransaction txn, AtomicLong written) {
+    try {
+      putObject(s, allowUpdate, txn, written);
+    } catch (IOException e) {
+      // the transaction is shared with other requests, only this object is lost
+      log.warn("fail store {} {}:{}", s.getEntityType(), s.getStoreId(), e.getMessage());
+    }
+  }
+
+  private void adjustBatchSize(int size, long written, long commitMillis) {
+    int current = this.batchSize;
+    int next = current;
+    if (commitMillis > TARGET_COMMIT_MILLIS || written > MAX_BATCH_BYTES) {
+      next = Math.max(MIN_BATCH_SIZE, current / 2);
+    } else if (size >= current && commitMillis < TARGET_COMMIT_MILLIS / 2) {
+      next = Math.min(MAX_BATCH_SIZE, current * 2);
+    }
+    if (next != current) {
+      log.debug("change store batch size {} -> {}", current, next);
+      this.batchSize = next;
     }
   }
 
@@ -381,10 +490,13 @@ class ProjectDatabase {
   }
 
   public void asyncStoreObjects(Collection<? extends Storable> storables, boolean allowUpdate) {
-    StoreRequest req = new StoreRequest();
-    req.setAllowUpdate(allowUpdate);
-    req.setStorables(storables);
-    requestAsyncStore(req);
+    List<Storable> list = new ArrayList<>(storables);
+    for (List<Storable> chunk : Lists.partition(list, CHUNK_SIZE)) {
+      StoreRequest req = new StoreRequest();
+      req.setAllowUpdate(allowUpdate);
+      req.setStorables(chunk);
+      requestAsyncStore(req);
+    }
   }
 
   private void requestAsyncStore(StoreRequest req) {
@@ -393,46 +505,31 @@ class ProjectDatabase {
     }
 
     try {
-      this.blockingQueue.put(req);
-      this.runWorker();
+      if (this.workerRunning && this.blockingQueue.offer(req)) {
+        return;
+      }
+      // backpressure, as long as the worker is alive to drain the queue
+      this.metrics.recordBlockedProducer();
+      while (this.workerRunning) {
+        if (this.blockingQueue.offer(req, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
     } catch (InterruptedException e) {
       log.catching(e);
     }
-  }
-
-  private void runWorker() {
-
-    if (!this.ioBurstMode && this.blockingQueue.size() > BURST_LIMIT) {
-      this.ioBurstMode = true;
-
-      this.executorService.execute(
-          () -> {
-            boolean readyShutdown = false;
-            while (!this.isTerminated && this.ioBurstMode) {
-              try {
-
-                StoreRequest req = blockingQueue.take();
 
-                Stopwatch stopwatch = Stopwatch.createStarted();
-                if (nonNull(req) && !req.isShutdown()) {
-                  mergeAndStore(req);
-                  readyShutdown = false;
-                }
-                log.debug("@remain {} elapsed {}", blockingQueue.size(), stopwatch.stop());
-
-                if (this.blockingQueue.isEmpty()) {
-                  if (readyShutdown) {
-                    this.ioBurstMode = false;
-                  } else {
-                    readyShutdown = true;
-                  }
-                }
-              } catch (Exception e) {
-                log.catching(e);
-              }
-            }
-          });
+    // nothing takes the request anymore, commit it on this thread
+    if (isNull(this.entityStore)) {
+      log.warn("store is closed, discard {}", req);
+      return;
     }
+    log.warn("async database worker is not running, store {} synchronously", req);
+    this.commitBatch(Collections.singletonList(req));
+  }
+
+  public Map<String, Object> getMetrics() {
+    return this.metrics.snapshot(this.blockingQueue.size(), this.batchSize);
   }
 
   public int storeObjects(Collection<? extends Storable> storables, boolean allowUpdate) {
@@ -588,13 +685,14 @@ class ProjectDatabase {
     }
 
     this.isTerminated = true;
+    ProjectDatabaseHelper.clearChecksums();
 
     StoreRequest req = new StoreRequest();
     req.setShutdown(true);
     try {
-      this.blockingQueue.put(req);
-      if (this.ioBurstMode) {
-        this.blockingQueue.put(req);
+      if (this.workerRunning && !this.blockingQueue.offer(req, 30, TimeUnit.SECONDS)) {
+        log.warn("store queue is full, stop worker");
+        this.executorService.shutdownNow();
       }
     } catch (InterruptedException e) {
       log.catching(e);
@@ -653,8 +751,25 @@ class ProjectDatabase {
       this.storables = storables;
     }
 
-    public boolean isMergable() {
-      return nonNull(storable) && allowUpdate;
+    public int size() {
+      int size = nonNull(storable) ? 1 : 0;
+      if (nonNull(storables)) {
+        size += storables.size();
+      }
+      return size;
+    }
+
+    public Collection<? extends Storable> getAll() {
+      if (isNull(storable)) {
+        return nonNull(storables) ? storables : Collections.emptyList();
+      }
+      if (isNull(storables)) {
+        return Collections.singletonList(storable);
+      }
+      List<Storable> all = new ArrayList<>(storables.size() + 1);
+      all.add(storable);
+      all.addAll(storables);
+      return all;
     }
 
     @Override
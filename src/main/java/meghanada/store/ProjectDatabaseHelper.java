@@ -1,28 +1,33 @@
 package meghanada.store;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
-import javax.annotation.Nonnull;
 import jetbrains.exodus.entitystore.Entity;
 import jetbrains.exodus.entitystore.EntityId;
 import jetbrains.exodus.entitystore.EntityIterable;
+import jetbrains.exodus.entitystore.StoreTransaction;
 import meghanada.analyze.CompileResult;
 import meghanada.analyze.Source;
 import meghanada.project.Project;
 import meghanada.reflect.ClassIndex;
 import meghanada.reflect.MemberDescriptor;
 import meghanada.reflect.asm.CachedASMReflector;
+import meghanada.reflect.asm.JarFingerprint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -30,12 +35,19 @@ public class ProjectDatabaseHelper {
 
   private static final String PROP_DECLARATION = "declaration";
   private static final String PROP_FILE_PATH = "filePath";
+  private static final String PROP_SIZE = "size";
+  private static final String PROP_LAST_MODIFIED = "lastModified";
+  private static final String PROP_CLASSES = "classes";
   private static final String BLOB_PROP_MEMBERS = "members";
   private static final String BLOB_PROP_CHECKSUM = "checksum";
   private static final String BLOB_PROP_CALLER = "caller";
 
   private static final Logger log = LogManager.getLogger(ProjectDatabaseHelper.class);
 
+  // projectRoot -> (file path -> checksum), loaded once per session
+  private static final Map<String, Map<String, FileChecksum>> checksums =
+      new ConcurrentHashMap<>(4);
+
   public static void saveClassIndexes(Collection<ClassIndex> indexes, boolean allowUpdate) {
     ProjectDatabase projectDatabase = ProjectDatabase.getInstance();
     if (!indexes.isEmpty()) {
@@ -43,6 +55,93 @@ public class ProjectDatabaseHelper {
     }
   }
 
+  /** Returns the class indexes of the file, or empty when any of them cannot be read. */
+  public static Optional<List<ClassIndex>> loadClassIndexes(String filePath) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    List<ClassIndex> result =
+        database.find(
+            ClassIndex.ENTITY_TYPE,
+            PROP_FILE_PATH,
+            filePath,
+            entity -> {
+              try (InputStream in = entity.getBlob(ProjectDatabase.SERIALIZE_KEY)) {
+                ClassIndex classIndex = Serializer.readObject(in, ClassIndex.class);
+                classIndex.onSuccess(entity);
+                return classIndex;
+              } catch (Exception e) {
+                log.warn("fail read class index {} of {}:{}", entity.getId(), filePath, e);
+                return null;
+              }
+            });
+    if (result.contains(null)) {
+      // a partial index would hide the unreadable classes
+      return Optional.empty();
+    }
+    return Optional.of(result);
+  }
+
+  public static boolean deleteClassIndexes(String filePath) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    return database.execute(
+        txn -> {
+          List<Entity> entities = new ArrayList<>(64);
+          txn.find(ClassIndex.ENTITY_TYPE, PROP_FILE_PATH, filePath).forEach(entities::add);
+          for (Entity entity : entities) {
+            entity.delete();
+          }
+          return true;
+        });
+  }
+
+  public static boolean deleteClassIndexes(Collection<String> classes) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    return database.execute(
+        txn -> {
+          for (String fqcn : classes) {
+            Entity entity = txn.find(ClassIndex.ENTITY_TYPE, ProjectDatabase.ID, fqcn).getFirst();
+            if (nonNull(entity)) {
+              entity.delete();
+            }
+          }
+          return true;
+        });
+  }
+
+  /** Returns how many of the classes are already stored for a file other than filePath. */
+  public static int countClassIndexesOfOtherFiles(Collection<String> classes, String filePath) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    return database.computeInReadonly(
+        txn -> {
+          int count = 0;
+          for (String fqcn : classes) {
+            Entity entity = txn.find(ClassIndex.ENTITY_TYPE, ProjectDatabase.ID, fqcn).getFirst();
+            if (nonNull(entity) && !filePath.equals(entity.getProperty(PROP_FILE_PATH))) {
+              count++;
+            }
+          }
+          return count;
+        });
+  }
+
+  public static Optional<JarFingerprint> getJarFingerprint(String filePath) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    return database.findOne(
+        JarFingerprint.ENTITY_TYPE,
+        ProjectDatabase.ID,
+        filePath,
+        entity ->
+            new JarFingerprint(
+                filePath,
+                (Long) entity.getProperty(PROP_SIZE),
+                (Long) entity.getProperty(PROP_LAST_MODIFIED),
+                (Integer) entity.getProperty(PROP_CLASSES)));
+  }
+
+  public static void saveJarFingerprint(JarFingerprint fingerprint) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    database.asyncStoreObject(fingerprint, true);
+  }
+
   public static File getClassFile(String fqcn) {
     ProjectDatabase database = ProjectDatabase.getInstance();
     Optional<String> res =
@@ -107,6 +206,35 @@ public class ProjectDatabaseHelper {
         });
   }
 
+  /** Returns the keys whose members were written, classes without an index entity are skipped. */
+  public static Set<String> saveMemberDescriptors(
+      final Map<String, List<MemberDescriptor>> members) {
+
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    final Set<String> saved = new HashSet<>(members.size());
+    database.execute(
+        txn -> {
+          // the transaction may be retried
+          saved.clear();
+          for (Map.Entry<String, List<MemberDescriptor>> entry : members.entrySet()) {
+            EntityIterable it =
+                txn.find(ClassIndex.ENTITY_TYPE, ProjectDatabase.ID, entry.getKey());
+            Entity entity = it.getFirst();
+            if (isNull(entity)) {
+              continue;
+            }
+            try {
+              ProjectDatabase.setSerializeBlobData(entity, BLOB_PROP_MEMBERS, entry.getValue());
+              saved.add(entry.getKey());
+            } catch (IOException e) {
+              log.catching(e);
+            }
+          }
+          return true;
+        });
+    return saved;
+  }
+
   public static Optional<List<MemberDescriptor>> getMemberDescriptors(String fqcn) {
 
     ProjectDatabase database = ProjectDatabase.getInstance();
@@ -149,6 +277,25 @@ public class ProjectDatabaseHelper {
         });
   }
 
+  public static int deleteMemberDescriptors(final Collection<String> classes) {
+
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    int[] deleted = new int[1];
+    database.execute(
+        txn -> {
+          // the transaction may be retried
+          deleted[0] = 0;
+          for (String fqcn : classes) {
+            Entity entity = txn.find(ClassIndex.ENTITY_TYPE, ProjectDatabase.ID, fqcn).getFirst();
+            if (nonNull(entity) && entity.deleteBlob(BLOB_PROP_MEMBERS)) {
+              deleted[0]++;
+            }
+          }
+          return true;
+        });
+    return deleted[0];
+  }
+
   public static void saveProject(Project project, boolean async) {
     ProjectDatabase database = ProjectDatabase.getInstance();
     if (async) {
@@ -187,108 +334,272 @@ public class ProjectDatabaseHelper {
     return database.deleteObject(Source.ENTITY_TYPE, filePath);
   }
 
-  @Nonnull
-  @SuppressWarnings("unchecked")
-  public static Map<String, String> getChecksumMap(String projectRoot) {
-    ProjectDatabase database = ProjectDatabase.getInstance();
+  public static Optional<FileChecksum> getFileChecksum(String projectRoot, String filePath) {
+    return Optional.ofNullable(getFileChecksums(projectRoot).get(filePath));
+  }
 
-    Optional<Map<String, String>> result =
-        database.computeInReadonly(
-            txn -> {
-              EntityIterable entities =
-                  txn.find(Project.ENTITY_TYPE, ProjectDatabase.ID, projectRoot)
-                      .intersect(txn.findWithBlob(Project.ENTITY_TYPE, BLOB_PROP_CHECKSUM));
-              Entity entity = entities.getFirst();
-              if (isNull(entity)) {
-                return Optional.empty();
-              }
-              try (InputStream in = entity.getBlob(BLOB_PROP_CHECKSUM)) {
-                return Optional.ofNullable(Serializer.readObject(in, ConcurrentHashMap.class));
-              } catch (Exception e) {
-                log.catching(e);
-                return Optional.empty();
-              }
-            });
-    return result.orElse(new ConcurrentHashMap<>(32));
+  private static Map<String, FileChecksum> getFileChecksums(String projectRoot) {
+    return checksums.computeIfAbsent(projectRoot, ProjectDatabaseHelper::loadFileChecksums);
   }
 
-  public static boolean saveChecksumMap(String projectRoot, Map<String, String> map) {
+  private static Map<String, FileChecksum> loadFileChecksums(String projectRoot) {
     ProjectDatabase database = ProjectDatabase.getInstance();
+    Map<String, FileChecksum> map = new ConcurrentHashMap<>(256);
+    database
+        .find(
+            FileChecksum.ENTITY_TYPE,
+            FileChecksum.PROP_PROJECT_ROOT,
+            projectRoot,
+            entity -> {
+              // records keyed by the path alone are dropped below
+              String path = (String) entity.getProperty(FileChecksum.PROP_FILE_PATH);
+              String checksum = (String) entity.getProperty(FileChecksum.PROP_CHECKSUM);
+              if (isNull(path) || isNull(checksum)) {
+                return null;
+              }
+              Long size = (Long) entity.getProperty(FileChecksum.PROP_SIZE);
+              Long lastModified = (Long) entity.getProperty(FileChecksum.PROP_LAST_MODIFIED);
+              return new FileChecksum(
+                  projectRoot,
+                  path,
+                  isNull(size) ? -1 : size,
+                  isNull(lastModified) ? -1 : lastModified,
+                  (String) entity.getProperty(FileChecksum.PROP_FILE_KEY),
+                  checksum);
+            })
+        .stream()
+        .filter(Objects::nonNull)
+        .forEach(fc -> map.put(fc.getFilePath(), fc));
+    if (map.isEmpty()) {
+      deleteProjectBlob(projectRoot, BLOB_PROP_CHECKSUM);
+    }
+    deleteUnkeyedFileChecksums(projectRoot);
+    log.debug("load {} checksums for {}", map.size(), projectRoot);
+    return map;
+  }
 
-    return database.execute(
+  private static void deleteUnkeyedFileChecksums(String projectRoot) {
+    // older records were keyed by the path only and were shared between project roots
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    database.execute(
         txn -> {
-          EntityIterable entities = txn.find(Project.ENTITY_TYPE, ProjectDatabase.ID, projectRoot);
+          EntityIterable entities =
+              txn.find(FileChecksum.ENTITY_TYPE, FileChecksum.PROP_PROJECT_ROOT, projectRoot)
+                  .minus(txn.findWithProp(FileChecksum.ENTITY_TYPE, FileChecksum.PROP_FILE_PATH));
+          List<Entity> stale = new ArrayList<>(8);
+          for (Entity entity : entities) {
+            stale.add(entity);
+          }
+          stale.forEach(Entity::delete);
+          return true;
+        });
+  }
 
+  private static void deleteProjectBlob(String projectRoot, String blobName) {
+    // old whole-map blobs, replaced by per-record entities
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    database.execute(
+        txn -> {
+          EntityIterable entities =
+              txn.find(Project.ENTITY_TYPE, ProjectDatabase.ID, projectRoot)
+                  .intersect(txn.findWithBlob(Project.ENTITY_TYPE, blobName));
           Entity entity = entities.getFirst();
           if (isNull(entity)) {
             return false;
           }
-          try {
-            ProjectDatabase.setSerializeBlobData(entity, BLOB_PROP_CHECKSUM, map);
-          } catch (IOException e) {
-            log.catching(e);
-            txn.abort();
-            return false;
+          return entity.deleteBlob(blobName);
+        });
+  }
+
+  public static boolean saveFileChecksums(
+      String projectRoot, Collection<FileChecksum> updated, Collection<String> removed) {
+    if (updated.isEmpty() && removed.isEmpty()) {
+      return true;
+    }
+    Map<String, FileChecksum> map = getFileChecksums(projectRoot);
+    updated.forEach(fc -> map.put(fc.getFilePath(), fc));
+    removed.forEach(map::remove);
+
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    return database.execute(
+        txn -> {
+          for (FileChecksum fc : updated) {
+            Entity entity =
+                txn.find(FileChecksum.ENTITY_TYPE, ProjectDatabase.ID, fc.getStoreId()).getFirst();
+            if (isNull(entity)) {
+              entity = txn.newEntity(FileChecksum.ENTITY_TYPE);
+              entity.setProperty(ProjectDatabase.ID, fc.getStoreId());
+            }
+            fc.getSaveProperties().forEach(entity::setProperty);
+          }
+          for (String path : removed) {
+            Entity entity =
+                txn.find(
+                        FileChecksum.ENTITY_TYPE,
+                        ProjectDatabase.ID,
+                        FileChecksum.getStoreId(projectRoot, path))
+                    .getFirst();
+            if (nonNull(entity)) {
+              entity.delete();
+            }
           }
-          //txn.saveEntity(entity);
           return true;
         });
   }
 
-  @Nonnull
-  @SuppressWarnings("unchecked")
-  public static Map<String, Set<String>> getCallerMap(String projectRoot) {
-    ProjectDatabase database = ProjectDatabase.getInstance();
+  static void clearChecksums() {
+    checksums.clear();
+  }
 
-    Optional<Map<String, Set<String>>> result =
+  public static List<FileDependencies> loadFileDependencies(String projectRoot) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    List<FileDependencies> result =
         database.computeInReadonly(
             txn -> {
-              EntityIterable entities =
-                  txn.find(Project.ENTITY_TYPE, ProjectDatabase.ID, projectRoot)
-                      .intersect(txn.findWithBlob(Project.ENTITY_TYPE, BLOB_PROP_CALLER));
-              Entity entity = entities.getFirst();
-              if (isNull(entity)) {
-                return Optional.empty();
+              Map<String, FileDependencies> files = new HashMap<>(256);
+              for (Entity entity :
+                  txn.find(
+                      FileDependencies.CLASS_ENTITY_TYPE,
+                      FileDependencies.PROP_PROJECT_ROOT,
+                      projectRoot)) {
+                String file = (String) entity.getProperty(FileDependencies.PROP_FILE);
+                String fqcn = (String) entity.getProperty(ProjectDatabase.ID);
+                String signature = (String) entity.getProperty(FileDependencies.PROP_SIGNATURE);
+                if (nonNull(file) && nonNull(fqcn) && nonNull(signature)) {
+                  newFileDependencies(files, file).getSignatures().put(fqcn, signature);
+                }
               }
-              try (InputStream in = entity.getBlob(BLOB_PROP_CALLER)) {
-                return Optional.ofNullable(Serializer.readObject(in, ConcurrentHashMap.class));
-              } catch (Exception e) {
-                log.warn(e.getMessage());
-                return Optional.empty();
+              Map<String, Map<String, Set<String>>> supertypes = new HashMap<>(256);
+              for (Entity entity :
+                  txn.find(
+                      FileDependencies.EDGE_ENTITY_TYPE,
+                      FileDependencies.PROP_PROJECT_ROOT,
+                      projectRoot)) {
+                String file = (String) entity.getProperty(FileDependencies.PROP_FILE);
+                String kind = (String) entity.getProperty(FileDependencies.PROP_KIND);
+                String from = (String) entity.getProperty(FileDependencies.PROP_FROM);
+                String to = (String) entity.getProperty(FileDependencies.PROP_TO);
+                if (isNull(file) || isNull(kind) || isNull(to)) {
+                  continue;
+                }
+                FileDependencies fd = newFileDependencies(files, file);
+                if (kind.equals(FileDependencies.KIND_USE)) {
+                  fd.getUses().add(to);
+                } else if (nonNull(from)) {
+                  supertypes
+                      .computeIfAbsent(file, k -> new HashMap<>(2))
+                      .computeIfAbsent(from, k -> new HashSet<>(2))
+                      .add(to);
+                }
+              }
+              List<FileDependencies> list = new ArrayList<>(files.size());
+              for (FileDependencies fd : files.values()) {
+                list.add(
+                    new FileDependencies(
+                        fd.getFilePath(),
+                        fd.getUses(),
+                        fd.getSignatures(),
+                        supertypes.getOrDefault(fd.getFilePath(), new HashMap<>(0))));
               }
+              return list;
             });
+    if (result.isEmpty()) {
+      deleteProjectBlob(projectRoot, BLOB_PROP_CALLER);
+    }
+    log.debug("load dependencies of {} files for {}", result.size(), projectRoot);
+    return result;
+  }
 
-    return result.orElse(new ConcurrentHashMap<>(32));
+  private static FileDependencies newFileDependencies(
+      Map<String, FileDependencies> files, String file) {
+    return files.computeIfAbsent(
+        file, k -> new FileDependencies(k, new HashSet<>(8), new HashMap<>(2), new HashMap<>(2)));
   }
 
-  public static boolean saveCallerMap(String projectRoot, Map<String, Set<String>> map) {
+  public static boolean saveFileDependencies(
+      String projectRoot, Collection<FileDependencies> updated, Collection<String> removed) {
+    if (updated.isEmpty() && removed.isEmpty()) {
+      return true;
+    }
     ProjectDatabase database = ProjectDatabase.getInstance();
-
     return database.execute(
         txn -> {
-          EntityIterable entities = txn.find(Project.ENTITY_TYPE, ProjectDatabase.ID, projectRoot);
-
-          Entity entity = entities.getFirst();
-          if (isNull(entity)) {
-            return false;
+          for (FileDependencies fd : updated) {
+            deleteFileDependencies(txn, projectRoot, fd.getFilePath());
+            for (String to : fd.getUses()) {
+              newEdge(txn, projectRoot, fd.getFilePath(), FileDependencies.KIND_USE, "", to);
+            }
+            for (Map.Entry<String, String> entry : fd.getSignatures().entrySet()) {
+              String fqcn = entry.getKey();
+              Entity entity = txn.newEntity(FileDependencies.CLASS_ENTITY_TYPE);
+              entity.setProperty(ProjectDatabase.ID, fqcn);
+              entity.setProperty(FileDependencies.PROP_PROJECT_ROOT, projectRoot);
+              entity.setProperty(FileDependencies.PROP_FILE, fd.getFilePath());
+              entity.setProperty(FileDependencies.PROP_SIGNATURE, entry.getValue());
+              for (String to : fd.getSupertypes(fqcn)) {
+                newEdge(txn, projectRoot, fd.getFilePath(), FileDependencies.KIND_SUPER, fqcn, to);
+              }
+            }
           }
-          try {
-            ProjectDatabase.setSerializeBlobData(entity, BLOB_PROP_CALLER, map);
-          } catch (IOException e) {
-            log.catching(e);
-            txn.abort();
-            return false;
+          for (String path : removed) {
+            deleteFileDependencies(txn, projectRoot, path);
           }
-          //txn.saveEntity(entity);
           return true;
         });
   }
 
+  public static boolean deleteAllFileDependencies(String projectRoot) {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    return database.execute(
+        txn -> {
+          for (String type :
+              new String[] {
+                FileDependencies.EDGE_ENTITY_TYPE, FileDependencies.CLASS_ENTITY_TYPE
+              }) {
+            List<Entity> entities = new ArrayList<>(64);
+            txn.find(type, FileDependencies.PROP_PROJECT_ROOT, projectRoot).forEach(entities::add);
+            for (Entity entity : entities) {
+              entity.delete();
+            }
+          }
+          return true;
+        });
+  }
+
+  private static void newEdge(
+      StoreTransaction txn, String projectRoot, String file, String kind, String from, String to) {
+    Entity entity = txn.newEntity(FileDependencies.EDGE_ENTITY_TYPE);
+    entity.setProperty(FileDependencies.PROP_PROJECT_ROOT, projectRoot);
+    entity.setProperty(FileDependencies.PROP_FILE, file);
+    entity.setProperty(FileDependencies.PROP_KIND, kind);
+    entity.setProperty(FileDependencies.PROP_FROM, from);
+    entity.setProperty(FileDependencies.PROP_TO, to);
+  }
+
+  private static void deleteFileDependencies(
+      StoreTransaction txn, String projectRoot, String file) {
+    for (String type :
+        new String[] {FileDependencies.EDGE_ENTITY_TYPE, FileDependencies.CLASS_ENTITY_TYPE}) {
+      List<Entity> entities = new ArrayList<>(16);
+      txn.find(type, FileDependencies.PROP_FILE, file)
+          .intersect(txn.find(type, FileDependencies.PROP_PROJECT_ROOT, projectRoot))
+          .forEach(entities::add);
+      for (Entity entity : entities) {
+        entity.delete();
+      }
+    }
+  }
+
   public static void saveCompileResult(CompileResult result) {
     ProjectDatabase database = ProjectDatabase.getInstance();
     database.asyncStoreObject(result, false);
   }
 
+  public static Map<String, Object> getStoreMetrics() {
+    ProjectDatabase database = ProjectDatabase.getInstance();
+    return database.getMetrics();
+  }
+
   public static void reset() {
     ProjectDatabase.reset();
   }
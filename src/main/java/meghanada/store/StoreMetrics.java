@@ -0,0 +1,63 @@
+package meghanada.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class StoreMetrics {
+
+  private final AtomicLong batches = new AtomicLong();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong objects = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicLong lastBatchSize = new AtomicLong();
+  private final AtomicLong maxBatchSize = new AtomicLong();
+  private final AtomicLong lastCommitNanos = new AtomicLong();
+  private final AtomicLong maxCommitNanos = new AtomicLong();
+  private final AtomicLong totalCommitNanos = new AtomicLong();
+  private final AtomicLong blockedProducers = new AtomicLong();
+
+  void recordBatch(
+      final int requestSize, final int objectSize, final long written, final long nanos) {
+    this.batches.incrementAndGet();
+    this.requests.addAndGet(requestSize);
+    this.objects.addAndGet(objectSize);
+    this.bytes.addAndGet(written);
+    this.lastBatchSize.set(objectSize);
+    this.maxBatchSize.accumulateAndGet(objectSize, Math::max);
+    this.lastCommitNanos.set(nanos);
+    this.maxCommitNanos.accumulateAndGet(nanos, Math::max);
+    this.totalCommitNanos.addAndGet(nanos);
+  }
+
+  void recordBlockedProducer() {
+    this.blockedProducers.incrementAndGet();
+  }
+
+  Map<String, Object> snapshot(final int queueDepth, final int batchLimit) {
+    final long batchCount = this.batches.get();
+    final long avgNanos = batchCount == 0 ? 0 : this.totalCommitNanos.get() / batchCount;
+    final long avgSize = batchCount == 0 ? 0 : this.objects.get() / batchCount;
+
+    final Map<String, Object> map = new LinkedHashMap<>(16);
+    map.put("store-queue-depth", queueDepth);
+    map.put("store-batch-limit", batchLimit);
+    map.put("store-batches", batchCount);
+    map.put("store-requests", this.requests.get());
+    map.put("store-objects", this.objects.get());
+    map.put("store-bytes", this.bytes.get());
+    map.put("store-last-batch-size", this.lastBatchSize.get());
+    map.put("store-avg-batch-size", avgSize);
+    map.put("store-max-batch-size", this.maxBatchSize.get());
+    map.put("store-last-commit-ms", toMillis(this.lastCommitNanos.get()));
+    map.put("store-avg-commit-ms", toMillis(avgNanos));
+    map.put("store-max-commit-ms", toMillis(this.maxCommitNanos.get()));
+    map.put("store-blocked-producers", this.blockedProducers.get());
+    return map;
+  }
+
+  private static long toMillis(final long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
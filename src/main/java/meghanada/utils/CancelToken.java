@@ -0,0 +1,40 @@
+package meghanada.utils;
+
+import static java.util.Objects.nonNull;
+
+import java.util.concurrent.CancellationException;
+
+/** Cooperative cancellation flag of the request running on the current thread. */
+public final class CancelToken {
+
+  private static final ThreadLocal<CancelToken> current = new ThreadLocal<>();
+
+  private volatile boolean cancelled;
+
+  public static void attach(final CancelToken token) {
+    current.set(token);
+  }
+
+  public static void detach() {
+    current.remove();
+  }
+
+  /**
+   * Throws {@link CancellationException} when the request of the current thread was cancelled. Does
+   * nothing on threads without a token.
+   */
+  public static void checkCancelled() {
+    final CancelToken token = current.get();
+    if (nonNull(token) && token.cancelled) {
+      throw new CancellationException("request cancelled");
+    }
+  }
+
+  public void cancel() {
+    this.cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+}
@@ -1,10 +1,16 @@
 package meghanada.utils;
 
+import static java.util.Objects.nonNull;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -14,26 +20,24 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import meghanada.analyze.Source;
 import meghanada.cache.GlobalCache;
 import meghanada.config.Config;
 import meghanada.formatter.JavaFormatter;
 import meghanada.project.Project;
+import meghanada.store.FileChecksum;
 import meghanada.store.ProjectDatabaseHelper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -47,6 +51,10 @@ public final class FileUtils {
   public static final String PACKAGE_INFO = "package-info.java";
   private static final Logger log = LogManager.getLogger(FileUtils.class);
   private static final String ALGORITHM_SHA_512 = "SHA-512";
+  private static final HashFunction CHECKSUM_FUNCTION = Hashing.murmur3_128();
+  private static final ThreadLocal<ByteBuffer> CHECKSUM_BUFFER =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+  private static final long RACY_WINDOW_MILLIS = 2000;
 
   public static boolean isJavaFile(final File file) {
     return file.isFile() && file.getName().endsWith(JAVA_EXT) && file.exists();
@@ -55,30 +63,43 @@ public final class FileUtils {
   public static String getChecksum(final File file) throws IOException {
     final EntryMessage entryMessage = log.traceEntry("file={}", file);
 
-    try {
-
-      final MessageDigest md = MessageDigest.getInstance(ALGORITHM_SHA_512);
-      try (final InputStream is = Files.newInputStream(file.toPath());
-          DigestInputStream dis = new DigestInputStream(is, md)) {
-
-        final byte[] buf = new byte[4096];
-
-        while (dis.read(buf) != -1) {}
-
-        final byte[] digest = md.digest();
-
-        final StringBuilder sb = new StringBuilder(128);
-        for (final int b : digest) {
-          sb.append(Character.forDigit(b >> 4 & 0xF, 16));
-          sb.append(Character.forDigit(b & 0xF, 16));
-        }
-
-        log.traceExit(entryMessage);
-        return sb.toString();
+    final Hasher hasher = CHECKSUM_FUNCTION.newHasher();
+    final ByteBuffer buf = CHECKSUM_BUFFER.get();
+    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      buf.clear();
+      while (channel.read(buf) != -1) {
+        hasher.putBytes(buf.array(), 0, buf.position());
+        buf.clear();
       }
-    } catch (NoSuchAlgorithmException e) {
-      throw new RuntimeException(e);
     }
+    final String checksum = hasher.hash().toString();
+    log.traceExit(entryMessage);
+    return checksum;
+  }
+
+  /**
+   * Returns the current checksum record of the file. The file is only hashed when its size,
+   * modification time or file key differ from {@code prev}.
+   */
+  public static FileChecksum getFileChecksum(
+      final String projectRoot, final File file, @Nullable final FileChecksum prev)
+      throws IOException {
+    final Path path = file.toPath();
+    final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+    final long size = attrs.size();
+    final long lastModified = attrs.lastModifiedTime().toMillis();
+    final Object key = attrs.fileKey();
+    final String fileKey = nonNull(key) ? key.toString() : "";
+
+    if (nonNull(prev) && prev.isSameAttributes(size, lastModified, fileKey)) {
+      return prev;
+    }
+    final String checksum = getChecksum(file);
+    // a file written within the mtime granularity may change again without a new mtime,
+    // so don't trust its attributes next time
+    final long stamp =
+        System.currentTimeMillis() - lastModified < RACY_WINDOW_MILLIS ? -1 : lastModified;
+    return new FileChecksum(projectRoot, file.getCanonicalPath(), size, stamp, fileKey, checksum);
   }
 
   public static List<File> listJavaFiles(File parent) {
@@ -273,18 +294,6 @@ public final class FileUtils {
     return Optional.empty();
   }
 
-  public static Collection<File> getPackagePrivateSource(final List<File> compileFiles) {
-    final Set<File> temp = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>(8));
-
-    compileFiles
-        .parallelStream()
-        .forEach(
-            file -> {
-              temp.addAll(FileUtils.listJavaFiles(file));
-            });
-    return temp;
-  }
-
   public static List<File> getModifiedSources(
       final File projectRoot,
       final List<File> sourceFiles,
@@ -293,7 +302,7 @@ public final class FileUtils {
       throws IOException {
 
     String projectRootPath = projectRoot.getCanonicalPath();
-    final Map<String, String> map = ProjectDatabaseHelper.getChecksumMap(projectRootPath);
+    final List<FileChecksum> updated = Collections.synchronizedList(new ArrayList<>(32));
 
     final List<File> fileList =
         sourceFiles
@@ -311,19 +320,17 @@ public final class FileUtils {
                       return true;
                     }
 
-                    final String md5sum = FileUtils.getChecksum(f);
-                    if (map.containsKey(path)) {
-                      // compare checksum
-                      final String prevSum = map.get(path);
-                      if (md5sum.equals(prevSum)) {
-                        // not modify
-                        return false;
-                      }
-                      // update
-                      map.put(path, md5sum);
-                    } else {
-                      // save checksum
-                      map.put(path, md5sum);
+                    final FileChecksum prev =
+                        ProjectDatabaseHelper.getFileChecksum(projectRootPath, path).orElse(null);
+                    final FileChecksum current = getFileChecksum(projectRootPath, f, prev);
+                    if (current == prev) {
+                      // not modify
+                      return false;
+                    }
+                    updated.add(current);
+                    if (nonNull(prev) && prev.isSameContent(current)) {
+                      // touched only
+                      return false;
                     }
                   } catch (IOException e) {
                     throw new UncheckedIOException(e);
@@ -332,7 +339,7 @@ public final class FileUtils {
                 })
             .collect(Collectors.toList());
 
-    ProjectDatabaseHelper.saveChecksumMap(projectRootPath, map);
+    ProjectDatabaseHelper.saveFileChecksums(projectRootPath, updated, Collections.emptyList());
     log.debug("remove unmodified {} To {}", sourceFiles.size(), fileList.size());
     log.trace("modified : {}", fileList);
     return fileList;
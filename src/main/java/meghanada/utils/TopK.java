@@ -0,0 +1,77 @@
+package meghanada.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Selects the smallest elements by a sort key that is computed once per element. Only the best
+ * limit elements are kept in a bounded heap, selecting from n elements costs O(n log limit).
+ */
+public class TopK<T, K extends Comparable<? super K>> {
+
+  private final int limit;
+  private final Function<? super T, K> keyFunction;
+  private final PriorityQueue<Entry<T, K>> queue;
+  private int seq;
+
+  public TopK(final int limit, final Function<? super T, K> keyFunction) {
+    this.limit = limit;
+    this.keyFunction = keyFunction;
+    // the worst kept element is on top
+    this.queue = new PriorityQueue<>(Math.max(1, Math.min(limit, 64)), Comparator.reverseOrder());
+  }
+
+  public void add(final T element) {
+    if (this.limit <= 0) {
+      return;
+    }
+    final Entry<T, K> entry = new Entry<>(this.keyFunction.apply(element), this.seq++, element);
+    if (this.queue.size() < this.limit) {
+      this.queue.add(entry);
+    } else if (entry.compareTo(this.queue.peek()) < 0) {
+      this.queue.poll();
+      this.queue.add(entry);
+    }
+  }
+
+  public void addAll(final Iterable<? extends T> elements) {
+    for (final T element : elements) {
+      this.add(element);
+    }
+  }
+
+  /** Returns the kept elements in ascending key order. */
+  public List<T> toList() {
+    final List<Entry<T, K>> entries = new ArrayList<>(this.queue);
+    entries.sort(null);
+    final List<T> result = new ArrayList<>(entries.size());
+    for (final Entry<T, K> entry : entries) {
+      result.add(entry.element);
+    }
+    return result;
+  }
+
+  private static class Entry<T, K extends Comparable<? super K>>
+      implements Comparable<Entry<T, K>> {
+
+    private final K key;
+    private final int seq;
+    private final T element;
+
+    Entry(final K key, final int seq, final T element) {
+      this.key = key;
+      this.seq = seq;
+      this.element = element;
+    }
+
+    @Override
+    public int compareTo(final Entry<T, K> o) {
+      final int c = this.key.compareTo(o.key);
+      // equal keys keep their arrival order
+      return c != 0 ? c : Integer.compare(this.seq, o.seq);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.eventbus.EventBus;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
@@ -16,6 +17,7 @@ import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +31,9 @@ public class FileSystemWatcher {
   private final EventBus eventBus;
   public boolean started;
   private boolean abort;
+  private final List<File> pending = new ArrayList<>(4);
   private WatchKeyHolder watchKeyHolder;
+  private long lastHandled;
 
   public FileSystemWatcher(EventBus eventBus) {
     this.eventBus = eventBus;
@@ -57,10 +61,15 @@ public class FileSystemWatcher {
     this.started = false;
   }
 
-  public void watch(final File file) throws IOException {
+  public synchronized void watch(final File file) throws IOException {
     if (this.watchKeyHolder != null) {
-      final Path path = file.toPath();
-      this.watchKeyHolder.register(path);
+      // the subdirectories too, as the roots given at start
+      if (file.exists()) {
+        this.watchKeyHolder.walk(file.toPath());
+      }
+    } else {
+      // registered when the watch service has been opened
+      this.pending.add(file);
     }
   }
 
@@ -70,18 +79,26 @@ public class FileSystemWatcher {
     try (final FileSystem fileSystem = FileSystems.getDefault();
         final WatchService watchService = fileSystem.newWatchService()) {
 
-      this.watchKeyHolder = new WatchKeyHolder(watchService);
-      for (final File root : files) {
-        if (root.exists()) {
-          final Path rootPath = root.toPath();
-          this.watchKeyHolder.walk(rootPath);
+      synchronized (this) {
+        this.watchKeyHolder = new WatchKeyHolder(watchService);
+        final List<File> roots = new ArrayList<>(files);
+        roots.addAll(this.pending);
+        this.pending.clear();
+        for (final File root : roots) {
+          if (root.exists()) {
+            final Path rootPath = root.toPath();
+            this.watchKeyHolder.walk(rootPath);
+          }
         }
       }
       this.started = true;
+      this.lastHandled = System.currentTimeMillis();
       while (!abort) {
         final WatchKey key = watchService.take();
 
+        final long now = System.currentTimeMillis();
         this.handleEvent(this.watchKeyHolder, key);
+        this.lastHandled = now;
 
         if (!key.reset()) {
           this.watchKeyHolder.remove(key);
@@ -100,6 +117,10 @@ public class FileSystemWatcher {
   private void handleEvent(final WatchKeyHolder watchKeys, final WatchKey key) throws IOException {
     for (final WatchEvent<?> event : key.pollEvents()) {
       if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        final Path dir = watchKeys.get(key);
+        if (dir != null) {
+          this.rescan(watchKeys, dir);
+        }
         continue;
       }
 
@@ -112,7 +133,8 @@ public class FileSystemWatcher {
       path = path.resolve(watchEvent.context());
       if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
         if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
-          watchKeys.register(path);
+          // a directory moved in brings its subdirectories
+          watchKeys.walk(path);
         }
       } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
         log.debug("{} {}", watchEvent.kind().name(), path);
@@ -121,6 +143,27 @@ public class FileSystemWatcher {
         if (fe != null) {
           this.eventBus.post(fe);
         }
+      } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+        log.debug("{} {}", watchEvent.kind().name(), path);
+        this.eventBus.post(new DeleteEvent(path.toFile()));
+      }
+    }
+  }
+
+  private void rescan(final WatchKeyHolder watchKeys, final Path dir) throws IOException {
+    // events of this directory were dropped, look for what changed since the last round
+    log.warn("event overflow, rescan {}", dir);
+    final long since = this.lastHandled - 1000;
+    try (final DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (final Path path : stream) {
+        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+          if (!watchKeys.contains(path)) {
+            watchKeys.walk(path);
+          }
+        } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+            && Files.getLastModifiedTime(path, LinkOption.NOFOLLOW_LINKS).toMillis() >= since) {
+          this.eventBus.post(new ModifyEvent(path.toFile()));
+        }
       }
     }
   }
@@ -154,7 +197,7 @@ public class FileSystemWatcher {
     }
   }
 
-  private static class DeleteEvent extends FileEvent {
+  public static class DeleteEvent extends FileEvent {
     DeleteEvent(final File file) {
       super(file);
     }
@@ -217,5 +260,9 @@ public class FileSystemWatcher {
     Path get(final WatchKey key) {
       return watchKeys.get(key);
     }
+
+    boolean contains(final Path path) {
+      return watchKeys.containsValue(path);
+    }
   }
 }
@@ -2,7 +2,9 @@ package meghanada.analyze;
 
 import static meghanada.config.Config.timeIt;
 import static meghanada.config.Config.timeItF;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
@@ -11,6 +13,7 @@ import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -610,6 +613,69 @@ public class JavaAnalyzerTest extends GradleTestBase {
         });
   }
 
+  @Test
+  public void analyzeReuseFileManager() throws Exception {
+    final JavaAnalyzer analyzer = new JavaAnalyzer("1.8", "1.8");
+    final String cp = getClasspath();
+    final List<File> files =
+        Collections.singletonList(
+            new File("./src/test/java/meghanada/Gen1.java").getCanonicalFile());
+    final String tmp = System.getProperty("java.io.tmpdir");
+
+    analyzer.analyzeAndCompile(files, cp, tmp);
+    final long hits = (Long) JavaAnalyzer.getFileManagerStats().get("file-manager-hits");
+    final CompileResult compileResult = analyzer.analyzeAndCompile(files, cp, tmp);
+    assertEquals(hits + 1, JavaAnalyzer.getFileManagerStats().get("file-manager-hits"));
+    assertEquals(1, compileResult.getSources().size());
+  }
+
+  @Test
+  public void analyzeSignature() throws Exception {
+    final JavaAnalyzer analyzer = new JavaAnalyzer("1.8", "1.8");
+    final String cp = getClasspath();
+    final File file = new File("./src/test/java/meghanada/Gen1.java").getCanonicalFile();
+    final String tmp = System.getProperty("java.io.tmpdir");
+
+    final Source first =
+        analyzer.analyzeAndCompile(Collections.singletonList(file), cp, tmp).getSources().get(file);
+    final Source second =
+        analyzer.analyzeAndCompile(Collections.singletonList(file), cp, tmp).getSources().get(file);
+    final String signature = first.signatures.get("meghanada.Gen1");
+    assertNotNull(signature);
+    assertEquals(signature, second.signatures.get("meghanada.Gen1"));
+    assertEquals(Collections.singleton("java.lang.Object"), first.supertypes.get("meghanada.Gen1"));
+  }
+
+  @Test
+  public void analyzeSharded() throws Exception {
+    System.setProperty(Source.REPORT_UNKNOWN_TREE, "false");
+    final JavaAnalyzer analyzer = new JavaAnalyzer("1.8", "1.8");
+    final String cp = getClasspath();
+
+    final File root = new File("./src/main/java").getCanonicalFile();
+    final List<File> files =
+        Files.walk(root.toPath(), FileVisitOption.FOLLOW_LINKS)
+            .map(Path::toFile)
+            .filter(FileUtils::isJavaFile)
+            .collect(Collectors.toList());
+
+    final List<List<File>> shards =
+        CompileShards.partition(files, Collections.singletonList(root), Collections.emptyMap(), 4);
+    assertEquals(files.size(), shards.stream().mapToInt(List::size).sum());
+    assertTrue(shards.size() > 1);
+
+    final File out = com.google.common.io.Files.createTempDir();
+    out.deleteOnExit();
+    final CompileResult compileResult =
+        timeItF(
+            "sharded:{}",
+            () ->
+                analyzer.analyzeAndCompile(
+                    shards, cp, root.getPath(), out.getCanonicalPath(), false, null));
+    assertEquals(files.size(), compileResult.getSources().size());
+    FileUtils.deleteFiles(out, true);
+  }
+
   private String getClasspath() throws IOException {
 
     final List<String> classpath =
@@ -0,0 +1,48 @@
+package meghanada.analyze;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class LineIndexTest {
+
+  private static Range lines(final int begin, final int end) {
+    return new Range(new Position(begin, 1), new Position(end, 1));
+  }
+
+  @Test
+  public void testFirst() throws Exception {
+    final Range outer = lines(1, 100);
+    final Range ifBlock = lines(10, 20);
+    final Range elseBlock = lines(20, 30);
+    final Range inner = lines(12, 14);
+    // source order, not begin order
+    final List<Range> ranges = Arrays.asList(ifBlock, elseBlock, outer, inner);
+    final LineIndex<Range> index = LineIndex.of(ranges, r -> r);
+
+    assertSame(ifBlock, index.first(20));
+    assertSame(ifBlock, index.first(13));
+    assertSame(elseBlock, index.first(25));
+    assertSame(outer, index.first(50));
+    assertNull(index.first(101));
+    assertEquals(Arrays.asList(ifBlock, outer, inner), index.containing(13));
+    assertTrue(index.containing(0).isEmpty());
+  }
+
+  @Test
+  public void testBeginningAt() throws Exception {
+    final Range a = lines(5, 5);
+    final Range b = lines(3, 3);
+    final Range c = lines(5, 6);
+    final LineIndex<Range> index = LineIndex.of(Arrays.asList(a, b, c), r -> r);
+
+    assertEquals(Arrays.asList(a, c), index.beginningAt(5));
+    assertEquals(Arrays.asList(b), index.beginningAt(3));
+    assertTrue(index.beginningAt(4).isEmpty());
+  }
+}
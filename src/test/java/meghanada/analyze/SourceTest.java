@@ -63,7 +63,7 @@ public class SourceTest extends GradleTestBase {
 
     List<String> optimizeImports = timeIt(source::optimizeImports);
     optimizeImports.forEach(System.out::println);
-    assertEquals(23, optimizeImports.size());
+    assertEquals(32, optimizeImports.size());
   }
 
   @Test
@@ -2,9 +2,13 @@ package meghanada.completion;
 
 import static meghanada.config.Config.timeIt;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import meghanada.GradleTestBase;
 import meghanada.reflect.CandidateUnit;
 import org.junit.Ignore;
@@ -58,6 +62,29 @@ public class JavaCompletionTest extends GradleTestBase {
     assertEquals(6, units.size());
   }
 
+  @Test
+  public void testCompletionAnnotationLimit() throws Exception {
+    JavaCompletion completion = getCompletion();
+    File file = new File("./src/test/java/meghanada/TopClass.java").getCanonicalFile();
+    assert file.exists();
+
+    final Collection<? extends CandidateUnit> all =
+        timeIt(() -> completion.completionAt(file, 8, 9, "@Test"));
+    final long matches = all.stream().filter(c -> c.getName().startsWith("@Test")).count();
+    assertTrue(matches > 0);
+
+    final int limit = 3;
+    assertTrue(all.size() > limit);
+    final Collection<? extends CandidateUnit> units =
+        timeIt(() -> completion.completionAt(file, 8, 9, "@Test", limit));
+    units.forEach(a -> System.out.println(a.getDeclaration()));
+    assertEquals(limit, units.size());
+    // prefix matches are ranked first
+    assertEquals(
+        Math.min(limit, matches),
+        units.stream().filter(c -> c.getName().startsWith("@Test")).count());
+  }
+
   @Test
   public void testCompletion05() throws Exception {
     JavaCompletion completion = getCompletion();
@@ -87,6 +114,24 @@ public class JavaCompletionTest extends GradleTestBase {
     assertEquals(369, logMethod.size());
   }
 
+  @Test
+  public void testCompletionNarrowPrefix() throws Exception {
+    JavaCompletion completion = getCompletion();
+    File file =
+        new File("./src/main/java/meghanada/analyze/ExpressionScope.java").getCanonicalFile();
+    assert file.exists();
+    final Collection<? extends CandidateUnit> all =
+        timeIt(() -> completion.completionAt(file, 18, 4, "*log"));
+    final Collection<? extends CandidateUnit> narrowed =
+        timeIt(() -> completion.completionAt(file, 18, 4, "*log#is"));
+    final Collection<? extends CandidateUnit> fresh =
+        timeIt(() -> getCompletion().completionAt(file, 18, 4, "*log#is"));
+    assertTrue(narrowed.size() > 0);
+    assertTrue(narrowed.size() < all.size());
+    // equally ranked candidates may come in another order
+    assertEquals(new HashSet<>(fresh), new HashSet<>(narrowed));
+  }
+
   @Test
   public void testCompletion07() throws Exception {
     JavaCompletion completion = getCompletion();
@@ -141,6 +186,22 @@ public class JavaCompletionTest extends GradleTestBase {
     assertEquals(17, units.size());
   }
 
+  @Test
+  public void testCompletionLimit() throws Exception {
+    JavaCompletion completion = getCompletion();
+    File file = new File("./src/test/java/meghanada/TopClass.java").getCanonicalFile();
+    assert file.exists();
+    final List<CandidateUnit> all =
+        new ArrayList<>(timeIt(() -> completion.completionAt(file, 8, 9, "*import:Str")));
+    final List<CandidateUnit> top =
+        new ArrayList<>(timeIt(() -> completion.completionAt(file, 8, 9, "*import:Str", 5)));
+    assertTrue(all.size() > 5);
+    assertEquals(5, top.size());
+    for (int i = 0; i < top.size(); i++) {
+      assertEquals(all.get(i).getDeclaration(), top.get(i).getDeclaration());
+    }
+  }
+
   @Ignore
   @Test
   public void testCompletion10() throws Exception {
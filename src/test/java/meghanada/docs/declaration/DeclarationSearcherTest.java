@@ -30,7 +30,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
 
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        timeIt(() -> searcher.searchDeclaration(f, 238, 14, "executorService"));
+        timeIt(() -> searcher.searchDeclaration(f, 284, 14, "executorService"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -46,7 +46,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     assert f.exists();
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        debugIt(() -> searcher.searchDeclaration(f, 53, 45, "getByName"));
+        debugIt(() -> searcher.searchDeclaration(f, 86, 45, "getByName"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -64,7 +64,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     assert f.exists();
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        debugIt(() -> searcher.searchDeclaration(f, 287, 33, "submit"));
+        debugIt(() -> searcher.searchDeclaration(f, 335, 33, "submit"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -80,7 +80,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     assert f.exists();
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        debugIt(() -> searcher.searchDeclaration(f, 290, 24, "BufferedReader"));
+        debugIt(() -> searcher.searchDeclaration(f, 338, 24, "BufferedReader"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -96,7 +96,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     assert f.exists();
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        debugIt(() -> searcher.searchDeclaration(f, 295, 53, "getOutputFormatter"));
+        debugIt(() -> searcher.searchDeclaration(f, 343, 53, "getOutputFormatter"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -115,7 +115,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     final Optional<Declaration> result =
         debugIt(
             () -> {
-              return searcher.searchDeclaration(f, 31, 20, "ServerSocket");
+              return searcher.searchDeclaration(f, 39, 20, "ServerSocket");
             });
     assertNotNull(result);
     assertTrue(result.isPresent());
@@ -134,7 +134,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     final Optional<Declaration> result =
         timeIt(
             () -> {
-              return searcher.searchDeclaration(f, 37, 19, "OUTPUT");
+              return searcher.searchDeclaration(f, 53, 19, "OUTPUT");
             });
     assertNotNull(result);
     assertTrue(result.isPresent());
@@ -151,7 +151,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     assert f.exists();
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        timeIt(() -> searcher.searchDeclaration(f, 58, 32, "SEXP"));
+        timeIt(() -> searcher.searchDeclaration(f, 91, 32, "SEXP"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -168,7 +168,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
 
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        timeIt(() -> searcher.searchDeclaration(f, 56, 55, "address"));
+        timeIt(() -> searcher.searchDeclaration(f, 89, 55, "address"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -185,7 +185,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
     assert f.exists();
 
     final DeclarationSearcher searcher = getSearcher();
-    final Optional<Declaration> result = timeIt(() -> searcher.searchDeclaration(f, 56, 48, "0"));
+    final Optional<Declaration> result = timeIt(() -> searcher.searchDeclaration(f, 89, 48, "0"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -203,7 +203,7 @@ public class DeclarationSearcherTest extends GradleTestBase {
 
     final DeclarationSearcher searcher = getSearcher();
     final Optional<Declaration> result =
-        timeIt(() -> searcher.searchDeclaration(f, 294, 34, "handler"));
+        timeIt(() -> searcher.searchDeclaration(f, 342, 34, "handler"));
     assertNotNull(result);
     assertTrue(result.isPresent());
     result.ifPresent(
@@ -29,9 +29,9 @@ public class LocationSearcherTest extends GradleTestBase {
 
     LocationSearcher searcher = getSearcher();
     Location result =
-        timeIt(() -> searcher.searchDeclarationLocation(f, 92, 12, "result")).orElse(null);
+        timeIt(() -> searcher.searchDeclarationLocation(f, 102, 12, "result")).orElse(null);
     assertNotNull(result);
-    assertEquals(91, result.getLine());
+    assertEquals(101, result.getLine());
     assertEquals(29, result.getColumn());
   }
 
@@ -42,9 +42,9 @@ public class LocationSearcherTest extends GradleTestBase {
 
     final LocationSearcher searcher = getSearcher();
     final Location result =
-        timeIt(() -> searcher.searchDeclarationLocation(f, 112, 28, "base")).orElse(null);
+        timeIt(() -> searcher.searchDeclarationLocation(f, 122, 28, "base")).orElse(null);
     assertNotNull(result);
-    assertEquals(97, result.getLine());
+    assertEquals(107, result.getLine());
     assertEquals(52, result.getColumn());
   }
 
@@ -60,10 +60,10 @@ public class LocationSearcherTest extends GradleTestBase {
 
     LocationSearcher searcher = getSearcher();
     Location result =
-        timeIt(() -> searcher.searchDeclarationLocation(f, 259, 12, "currentProject")).orElse(null);
+        timeIt(() -> searcher.searchDeclarationLocation(f, 269, 12, "currentProject")).orElse(null);
     assertNotNull(result);
-    assertEquals(70, result.getLine());
-    assertEquals(19, result.getColumn());
+    assertEquals(80, result.getLine());
+    assertEquals(28, result.getColumn());
   }
 
   @Test
@@ -99,10 +99,10 @@ public class LocationSearcherTest extends GradleTestBase {
 
     LocationSearcher searcher = getSearcher();
     Location result =
-        timeIt(() -> searcher.searchDeclarationLocation(f, 423, 5, "parseJavaSource")).orElse(null);
+        timeIt(() -> searcher.searchDeclarationLocation(f, 494, 7, "parseJavaSource")).orElse(null);
 
     assertNotNull(result);
-    assertEquals(493, result.getLine());
+    assertEquals(571, result.getLine());
     assertEquals(28, result.getColumn());
   }
 
@@ -114,10 +114,10 @@ public class LocationSearcherTest extends GradleTestBase {
     LocationSearcher searcher = getSearcher();
     // return source.searchMissingImport();
     Location result =
-        searcher.searchDeclarationLocation(f, 490, 46, "searchMissingImport").orElse(null);
+        searcher.searchDeclarationLocation(f, 565, 48, "searchMissingImport").orElse(null);
     assertNotNull(result);
     assertTrue(result.getPath().contains("Source.java"));
-    assertEquals(422, result.getLine());
+    assertEquals(420, result.getLine());
     assertEquals(36, result.getColumn());
   }
 
@@ -208,10 +208,10 @@ public class LocationSearcherTest extends GradleTestBase {
 
     LocationSearcher searcher = getSearcher();
     Location result =
-        timeIt(() -> searcher.searchDeclarationLocation(f, 62, 19, "getAllowClass")).orElse(null);
+        timeIt(() -> searcher.searchDeclarationLocation(f, 66, 19, "getAllowClass")).orElse(null);
     assertNotNull(result);
     assertTrue(result.getPath().contains("Config.java"));
-    assertEquals(312, result.getLine());
+    assertEquals(320, result.getLine());
     assertEquals(23, result.getColumn());
   }
 
@@ -241,11 +241,11 @@ public class LocationSearcherTest extends GradleTestBase {
           timeIt(
               () ->
                   searcher
-                      .searchDeclarationLocation(f, 512, 12, "analyzeVariableDecl")
+                      .searchDeclarationLocation(f, 522, 12, "analyzeVariableDecl")
                       .orElse(null));
       assertNotNull(result);
       assertTrue(result.getPath().contains("TreeAnalyzer.java"));
-      assertEquals(1840, result.getLine());
+      assertEquals(1851, result.getLine());
       assertEquals(16, result.getColumn());
     }
   }
@@ -272,7 +272,7 @@ public class LocationSearcherTest extends GradleTestBase {
 
     LocationSearcher searcher = getSearcher();
     Location result =
-        timeIt(() -> searcher.searchDeclarationLocation(f, 376, 17, "Source")).orElse(null);
+        timeIt(() -> searcher.searchDeclarationLocation(f, 398, 17, "Source")).orElse(null);
     assertNotNull(result);
     assertTrue(result.getPath().contains("Source.java"));
     assertEquals(46, result.getLine());
@@ -286,10 +286,10 @@ public class LocationSearcherTest extends GradleTestBase {
 
     LocationSearcher locationSearcher = getSearcher();
     Location result =
-        locationSearcher.searchDeclarationLocation(f, 161, 13, "ClassAnalyzeVisitor").orElse(null);
+        locationSearcher.searchDeclarationLocation(f, 163, 13, "ClassAnalyzeVisitor").orElse(null);
     assertNotNull(result);
     assertTrue(result.getPath().contains("ClassAnalyzeVisitor.java"));
-    assertEquals(21, result.getLine());
+    assertEquals(27, result.getLine());
     assertEquals(7, result.getColumn());
   }
 
@@ -0,0 +1,76 @@
+package meghanada.project;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import meghanada.store.FileDependencies;
+import org.junit.Test;
+
+public class DependencyGraphTest {
+
+  private static FileDependencies file(
+      final String path, final Set<String> uses, final String fqcn, final String signature) {
+    return file(path, uses, fqcn, signature, Collections.emptySet());
+  }
+
+  private static FileDependencies file(
+      final String path,
+      final Set<String> uses,
+      final String fqcn,
+      final String signature,
+      final Set<String> supertypes) {
+    final Map<String, Set<String>> supers = new HashMap<>(2);
+    supers.put(fqcn, supertypes);
+    return new FileDependencies(
+        path, new HashSet<>(uses), new HashMap<>(ImmutableMap.of(fqcn, signature)), supers);
+  }
+
+  @Test
+  public void testAffectedFiles() throws Exception {
+    final DependencyGraph graph = new DependencyGraph("/tmp/project");
+    graph.update(file("/A.java", ImmutableSet.of(), "a.A", "a1"), false);
+    // B extends A
+    graph.update(
+        file("/B.java", ImmutableSet.of("a.A"), "b.B", "b1", ImmutableSet.of("a.A")), false);
+    // C calls B
+    graph.update(file("/C.java", ImmutableSet.of("b.B"), "c.C", "c1"), false);
+    // D calls C
+    graph.update(file("/D.java", ImmutableSet.of("c.C"), "d.D", "d1"), false);
+
+    // body only change
+    assertTrue(graph.update(file("/A.java", ImmutableSet.of(), "a.A", "a1"), false).isEmpty());
+
+    // signature change reaches users of subtypes, not users of users
+    final Set<String> changed =
+        graph.update(file("/A.java", ImmutableSet.of(), "a.A", "a2"), false);
+    assertEquals(ImmutableSet.of("a.A"), changed);
+    assertEquals(
+        ImmutableSet.of(new File("/A.java"), new File("/B.java"), new File("/C.java")),
+        graph.getAffectedFiles(changed));
+  }
+
+  @Test
+  public void testCompileError() throws Exception {
+    final DependencyGraph graph = new DependencyGraph("/tmp/project");
+    graph.update(file("/A.java", ImmutableSet.of(), "a.A", "a1"), false);
+    graph.update(file("/C.java", ImmutableSet.of("a.A"), "c.C", "c1"), false);
+
+    // broken signature is not propagated and not remembered
+    assertTrue(graph.update(file("/A.java", ImmutableSet.of(), "a.A", "broken"), true).isEmpty());
+    assertTrue(graph.update(file("/A.java", ImmutableSet.of(), "a.A", "a1"), false).isEmpty());
+
+    // removed class
+    final Set<String> changed =
+        graph.update(file("/A.java", ImmutableSet.of(), "a.A2", "a1"), false);
+    assertEquals(ImmutableSet.of("a.A", "a.A2"), changed);
+    assertEquals(ImmutableSet.of("a.A"), graph.getCallerMap().keySet());
+  }
+}
@@ -1,8 +1,10 @@
 package meghanada.reflect.asm;
 
+import static java.util.stream.Collectors.toList;
 import static meghanada.config.Config.debugIt;
 import static meghanada.config.Config.timeIt;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 
 import com.google.common.base.Stopwatch;
@@ -14,6 +16,10 @@ import meghanada.reflect.ClassIndex;
 import meghanada.reflect.MemberDescriptor;
 import meghanada.reflect.MethodDescriptor;
 import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 public class ASMReflectorTest extends GradleTestBase {
 
@@ -353,6 +359,26 @@ public class ASMReflectorTest extends GradleTestBase {
         });
   }
 
+  @Test
+  public void testReflectAll9() throws Exception {
+    ASMReflector asmReflector = ASMReflector.getInstance();
+    File jar = getRTJar();
+    String fqcn = "java.util.HashMap<String, Long>";
+    Map<String, ClassIndex> index = asmReflector.getClassIndexes(jar);
+    final InheritanceInfo info = asmReflector.getReflectInfo(index, fqcn);
+
+    List<MemberDescriptor> memberDescriptors1 = asmReflector.reflectAll(info);
+    List<String> expected =
+        memberDescriptors1.stream().map(MemberDescriptor::getReturnType).collect(toList());
+    memberDescriptors1.forEach(md -> md.putTypeParameter("K", "Integer"));
+
+    // cached members must not see the changes made to a previous result
+    List<MemberDescriptor> memberDescriptors2 = asmReflector.reflectAll(info);
+    assertEquals(
+        expected,
+        memberDescriptors2.stream().map(MemberDescriptor::getReturnType).collect(toList()));
+  }
+
   @Test
   public void testGetReflectClass1() throws Exception {
     ASMReflector asmReflector = ASMReflector.getInstance();
@@ -447,4 +473,38 @@ public class ASMReflectorTest extends GradleTestBase {
       stopwatch.reset();
     }
   }
+
+  @Test
+  public void testFingerprint() throws Exception {
+    String base = fingerprint(Opcodes.ACC_PRIVATE, "helper", 1);
+    // bodies and private members are not part of the ABI
+    assertEquals(base, fingerprint(Opcodes.ACC_PRIVATE, "helper", 2));
+    assertEquals(base, fingerprint(Opcodes.ACC_PRIVATE, "other", 1));
+    assertNotEquals(base, fingerprint(Opcodes.ACC_PUBLIC, "helper", 1));
+    assertNotEquals(base, fingerprint(Opcodes.ACC_PROTECTED, "helper", 1));
+  }
+
+  private static String fingerprint(int access, String method, int value) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    cw.visit(
+        Opcodes.V1_8,
+        Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+        "test/Fingerprint",
+        null,
+        "java/lang/Object",
+        null);
+    MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "value", "()I", null, null);
+    mv.visitCode();
+    mv.visitLdcInsn(value);
+    mv.visitInsn(Opcodes.IRETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitMethod(access | Opcodes.ACC_ABSTRACT, method, "()V", null, null).visitEnd();
+    cw.visitEnd();
+
+    ClassAnalyzeVisitor visitor =
+        new ClassAnalyzeVisitor("test.Fingerprint", true, false).withFingerprint();
+    new ClassReader(cw.toByteArray()).accept(visitor, 0);
+    return visitor.getClassIndex().getFingerprint();
+  }
 }
@@ -2,20 +2,30 @@ package meghanada.reflect.asm;
 
 import static meghanada.config.Config.timeIt;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.base.Stopwatch;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import meghanada.GradleTestBase;
 import meghanada.cache.GlobalCache;
 import meghanada.reflect.CandidateUnit;
+import meghanada.reflect.ClassIndex;
 import meghanada.reflect.MemberDescriptor;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 public class CachedASMReflectorTest extends GradleTestBase {
 
@@ -58,6 +68,32 @@ public class CachedASMReflectorTest extends GradleTestBase {
     assertEquals(1, candidateUnits.size());
   }
 
+  @Test
+  public void testSearchClasses02() throws Exception {
+    final CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
+    final List<ClassIndex> all = cachedASMReflector.searchClasses("hashm", true, false);
+    final List<ClassIndex> top = cachedASMReflector.searchClasses("hashm", true, false, 3);
+    assertTrue(all.size() > 3);
+    assertEquals(3, top.size());
+    assertEquals("HashMap", top.get(0).getName());
+  }
+
+  @Test
+  public void testFuzzySearchClasses01() throws Exception {
+    final CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
+    final String keyword = "strbu";
+    final long expected =
+        cachedASMReflector
+            .allClassStream()
+            .filter(
+                c ->
+                    StringUtils.getFuzzyDistance(c.getName(), keyword, Locale.ENGLISH)
+                        >= keyword.length() + 1)
+            .count();
+    assertTrue(expected > 0);
+    assertEquals(expected, cachedASMReflector.fuzzySearchClasses(keyword).size());
+  }
+
   @Test
   public void testGetPackageClasses1() throws Exception {
     CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
@@ -74,6 +110,14 @@ public class CachedASMReflectorTest extends GradleTestBase {
     // System.out.println(map);
   }
 
+  @Test
+  public void testSearchInnerClasses1() throws Exception {
+    CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
+    List<ClassIndex> inners = cachedASMReflector.searchInnerClasses("java.util.Map");
+    assertEquals(1, inners.size());
+    assertEquals("java.util.Map$Entry", inners.get(0).getRawDeclaration());
+  }
+
   @Test
   public void testReflectJavaLangString() throws Exception {
     CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
@@ -149,6 +193,37 @@ public class CachedASMReflectorTest extends GradleTestBase {
     }
   }
 
+  @Test
+  public void testReflectTypeParamShared() throws Exception {
+    CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
+    final String fqcn = "java.util.List<java.lang.String>";
+    final List<MemberDescriptor> members = cachedASMReflector.reflect(fqcn);
+    // the views are built once per type arguments
+    final List<MemberDescriptor> again = cachedASMReflector.reflect(fqcn);
+    for (int i = 0; i < members.size(); i++) {
+      assertTrue(members.get(i) == again.get(i));
+    }
+
+    final List<MemberDescriptor> raw = cachedASMReflector.reflect("java.util.List");
+    assertEquals(raw.size(), members.size());
+    final String get =
+        members
+            .stream()
+            .filter(md -> md.getName().equals("get"))
+            .findFirst()
+            .map(MemberDescriptor::getReturnType)
+            .orElse("");
+    assertEquals("java.lang.String", get);
+    // the shared descriptors stay unbound
+    final String rawGet =
+        raw.stream()
+            .filter(md -> md.getName().equals("get"))
+            .findFirst()
+            .map(MemberDescriptor::getReturnType)
+            .orElse("");
+    assertFalse(rawGet.contains("String"));
+  }
+
   @Test
   public void testReflectTypeParam4() throws Exception {
     CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
@@ -246,7 +321,7 @@ public class CachedASMReflectorTest extends GradleTestBase {
       String fqcn = "meghanada.reflect.MemberDescriptor";
       List<MemberDescriptor> memberDescriptors = cachedASMReflector.reflect(fqcn);
       memberDescriptors.forEach(m -> System.out.println(m.getDisplayDeclaration()));
-      assertEquals(45, memberDescriptors.size());
+      assertEquals(47, memberDescriptors.size());
     }
   }
 
@@ -402,4 +477,35 @@ public class CachedASMReflectorTest extends GradleTestBase {
       log.info("class {}", clazz);
     }
   }
+
+  @Test
+  public void testUpdateClassIndexFromFiles() throws Exception {
+    final CachedASMReflector cachedASMReflector = CachedASMReflector.getInstance();
+    final File output = Files.createTempDirectory("meghanada-output").toFile();
+    cachedASMReflector.addClasspath(output);
+    final File outer = writeClass(output, "inc/Outer");
+    final File inner = writeClass(output, "inc/Outer$Inner");
+
+    cachedASMReflector.updateClassIndexFromFiles(output, Arrays.asList(outer, inner));
+    assertTrue(cachedASMReflector.containsFQCN("inc.Outer"));
+    assertTrue(cachedASMReflector.containsFQCN("inc.Outer$Inner"));
+
+    // the inner class is no longer written with its outer class
+    cachedASMReflector.updateClassIndexFromFiles(output, Collections.singletonList(outer));
+    assertTrue(cachedASMReflector.containsFQCN("inc.Outer"));
+    assertFalse(cachedASMReflector.containsFQCN("inc.Outer$Inner"));
+    // the class file belongs to the build tool
+    assertTrue(inner.exists());
+  }
+
+  private static File writeClass(final File output, final String name) throws Exception {
+    final ClassWriter cw = new ClassWriter(0);
+    cw.visit(
+        Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+    cw.visitEnd();
+    final File file = new File(output, name + ".class");
+    assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+    Files.write(file.toPath(), cw.toByteArray());
+    return file;
+  }
 }
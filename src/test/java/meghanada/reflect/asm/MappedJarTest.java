@@ -0,0 +1,80 @@
+package meghanada.reflect.asm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import meghanada.GradleTestBase;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+public class MappedJarTest extends GradleTestBase {
+
+  @Test
+  public void testGetClassEntryNames() throws Exception {
+    File jar = getRTJar();
+    MappedJar mappedJar = MappedJar.open(jar);
+    try (JarFile jarFile = new JarFile(jar)) {
+      Set<String> expected =
+          jarFile
+              .stream()
+              .map(JarEntry::getName)
+              .filter(name -> name.endsWith(".class"))
+              .collect(Collectors.toSet());
+      assertEquals(expected, mappedJar.getClassEntryNames());
+    }
+    assertTrue(mappedJar.contains("java/lang/String.class"));
+    assertFalse(mappedJar.contains("java/lang/NoSuchClass.class"));
+    assertNull(mappedJar.getClassReader("java/lang/NoSuchClass.class"));
+  }
+
+  @Test
+  public void testGetClassReader() throws Exception {
+    File jar = getJar("guava");
+    MappedJar mappedJar = MappedJar.open(jar);
+    try (JarFile jarFile = new JarFile(jar)) {
+      for (String name : mappedJar.getClassEntryNames()) {
+        byte[] expected;
+        try (InputStream in = jarFile.getInputStream(jarFile.getJarEntry(name))) {
+          expected = toBytes(new ClassReader(in));
+        }
+        assertArrayEquals(name, expected, toBytes(mappedJar.getClassReader(name)));
+      }
+    }
+  }
+
+  @Test
+  public void testReleaseAll() throws Exception {
+    File jar = File.createTempFile("mapped", ".jar");
+    jar.deleteOnExit();
+    Files.copy(getJar("guava").toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    MappedJar mappedJar = MappedJar.open(jar);
+    assertSame(mappedJar, MappedJar.open(jar));
+    String name = mappedJar.getClassEntryNames().iterator().next();
+
+    MappedJar.releaseAll();
+    // a released instance reads through the zip file
+    assertNotNull(mappedJar.getClassReader(name));
+    assertNotSame(mappedJar, MappedJar.open(jar));
+  }
+
+  private static byte[] toBytes(ClassReader classReader) {
+    ClassWriter classWriter = new ClassWriter(0);
+    classReader.accept(classWriter, 0);
+    return classWriter.toByteArray();
+  }
+}
@@ -0,0 +1,63 @@
+package meghanada.reflect.names;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ParameterNamesDatabaseTest {
+
+  private static List<ParameterName> params(String... typeAndNames) {
+    List<ParameterName> result = new ArrayList<>(typeAndNames.length / 2);
+    for (int i = 0; i < typeAndNames.length; i += 2) {
+      ParameterName parameterName = new ParameterName();
+      parameterName.type = typeAndNames[i];
+      parameterName.name = typeAndNames[i + 1];
+      result.add(parameterName);
+    }
+    return result;
+  }
+
+  @Test
+  public void testWriteAndFind() throws Exception {
+    MethodParameterNames map = new MethodParameterNames();
+    map.className = "java.util.Map";
+    map.names.put("get", Arrays.asList(params("Object", "key")));
+    map.names.put(
+        "put", Arrays.asList(params("K", "key", "V", "value"), params("K", "k", "V", "v")));
+    MethodParameterNames entry = new MethodParameterNames();
+    entry.className = "java.util.Map.Entry";
+    entry.names.put("setValue", Arrays.asList(params("V", "value")));
+
+    Map<String, MethodParameterNames> classes = new HashMap<>(2);
+    classes.put("java.util.Map", map);
+    classes.put("java.util.Map$Entry", entry);
+    File file = File.createTempFile("params", ".db");
+    file.deleteOnExit();
+    ParameterNamesDatabase.write(classes, file);
+
+    ParameterNamesDatabase database = ParameterNamesDatabase.open(file);
+    assertEquals(Arrays.asList(params("Object", "key")), database.find("java.util.Map", "get", 1));
+    // overloads keep their order
+    assertEquals(map.names.get("put"), database.find("java.util.Map", "put", 2));
+    assertEquals(
+        Arrays.asList(params("V", "value")), database.find("java.util.Map$Entry", "setValue", 1));
+    assertTrue(database.find("java.util.Map", "put", 1).isEmpty());
+    assertTrue(database.find("java.util.Map", "remove", 1).isEmpty());
+    assertTrue(database.find("java.util.List", "get", 1).isEmpty());
+  }
+
+  @Test
+  public void testBundled() throws Exception {
+    List<List<ParameterName>> names =
+        ParameterNamesDatabase.getInstance().find("java.lang.Object", "wait", 2);
+    assertEquals(1, names.size());
+    assertEquals("timeout", names.get(0).get(0).name);
+  }
+}
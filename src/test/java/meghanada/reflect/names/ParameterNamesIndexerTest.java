@@ -0,0 +1,80 @@
+package meghanada.reflect.names;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParameterNamesIndexerTest {
+
+  @After
+  public void tearDown() {
+    ParameterNamesDatabase.clearDependencies();
+  }
+
+  @Test
+  public void testIndexDependencies() throws Exception {
+    File repo = Files.createTempDirectory("meghanada-repo").toFile();
+    File jar = new File(repo, "lib-1.0.jar");
+    assertTrue(jar.createNewFile());
+    File sources = new File(repo, "lib-1.0-sources.jar");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(sources))) {
+      out.putNextEntry(new ZipEntry("lib/Greeter.java"));
+      String src =
+          "package lib;\n"
+              + "public class Greeter {\n"
+              + "  public String greet(String name, int times) { return name; }\n"
+              + "  public static class Inner {\n"
+              + "    public void run(Runnable task) {}\n"
+              + "  }\n"
+              + "}\n";
+      out.write(src.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("Top.java"));
+      String top =
+          "public class Top {\n"
+              + "  public void put(String key) {}\n"
+              + "  public static class Nested {\n"
+              + "    public void get(String id) {}\n"
+              + "  }\n"
+              + "}\n";
+      out.write(top.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    File dir = new File(repo, "params");
+
+    ParameterNamesIndexer indexer = new ParameterNamesIndexer(2);
+    try {
+      List<File> written = indexer.indexDependencies(Collections.singletonList(jar), dir);
+      assertEquals(1, written.size());
+      // up to date, not indexed again
+      assertTrue(indexer.indexDependencies(Collections.singletonList(jar), dir).isEmpty());
+    } finally {
+      indexer.shutdown();
+    }
+    File db = ParameterNamesIndexer.findDatabase(dir, jar).orElse(null);
+    assertEquals(ParameterNamesIndexer.getDatabaseFile(dir, sources), db);
+
+    List<String> classes = ParameterNamesDatabase.addDependency(db);
+    assertTrue(classes.contains("lib.Greeter"));
+    List<List<ParameterName>> names = ParameterNamesDatabase.search("lib.Greeter", "greet", 2);
+    assertEquals(1, names.size());
+    assertEquals("name", names.get(0).get(0).name);
+    assertEquals("times", names.get(0).get(1).name);
+    names = ParameterNamesDatabase.search("lib.Greeter$Inner", "run", 1);
+    assertEquals("task", names.get(0).get(0).name);
+    // default package
+    assertTrue(classes.contains("Top"));
+    assertEquals("key", ParameterNamesDatabase.search("Top", "put", 1).get(0).get(0).name);
+    assertEquals("id", ParameterNamesDatabase.search("Top$Nested", "get", 1).get(0).get(0).name);
+  }
+}
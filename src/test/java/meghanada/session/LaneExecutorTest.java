@@ -0,0 +1,53 @@
+package meghanada.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import meghanada.session.LaneExecutor.Lane;
+import org.junit.Test;
+
+public class LaneExecutorTest {
+
+  @Test
+  public void testBoundedLane() throws Exception {
+    final LaneExecutor executor = new LaneExecutor();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final CountDownLatch bulkDone = new CountDownLatch(4);
+    final CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < 4; i++) {
+      executor.execute(
+          Lane.BULK,
+          () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+              release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            bulkDone.countDown();
+          });
+    }
+
+    // bulk work is blocked, watcher work still runs
+    final CountDownLatch background = new CountDownLatch(1);
+    executor.execute(Lane.BACKGROUND, background::countDown);
+    assertTrue(background.await(5, TimeUnit.SECONDS));
+
+    release.countDown();
+    assertTrue(bulkDone.await(5, TimeUnit.SECONDS));
+    assertEquals(1, maxRunning.get());
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    final Map<String, Object> stats = executor.getStats();
+    assertEquals(4L, stats.get("event-bulk-completed"));
+    assertEquals(1L, stats.get("event-background-completed"));
+    assertEquals(0, stats.get("event-bulk-queued"));
+  }
+}
@@ -0,0 +1,55 @@
+package meghanada.session.subscribe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import meghanada.session.subscribe.FileEventCoalescer.Kind;
+import org.junit.Test;
+
+public class FileEventCoalescerTest {
+
+  @Test
+  public void testMerge() throws Exception {
+    assertEquals(Kind.MODIFY, FileEventCoalescer.merge(null, Kind.MODIFY));
+    assertEquals(Kind.CREATE, FileEventCoalescer.merge(Kind.CREATE, Kind.MODIFY));
+    assertNull(FileEventCoalescer.merge(Kind.CREATE, Kind.DELETE));
+    assertEquals(Kind.DELETE, FileEventCoalescer.merge(Kind.MODIFY, Kind.DELETE));
+    // delete and re-create is a save through a temporary file
+    assertEquals(Kind.MODIFY, FileEventCoalescer.merge(Kind.DELETE, Kind.CREATE));
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    final List<Map<File, Kind>> batches = new ArrayList<>(2);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final FileEventCoalescer coalescer =
+        new FileEventCoalescer(
+            100,
+            batch -> {
+              batches.add(batch);
+              latch.countDown();
+            });
+    final File a = new File("A.java");
+    final File b = new File("B.java");
+    final File c = new File("C.java");
+    coalescer.add(a, Kind.MODIFY);
+    coalescer.add(a, Kind.MODIFY);
+    coalescer.add(b, Kind.CREATE);
+    coalescer.add(b, Kind.MODIFY);
+    coalescer.add(c, Kind.CREATE);
+    coalescer.add(c, Kind.DELETE);
+
+    latch.await(5, TimeUnit.SECONDS);
+    assertEquals(1, batches.size());
+    final Map<File, Kind> batch = batches.get(0);
+    assertEquals(2, batch.size());
+    assertEquals(Kind.MODIFY, batch.get(a));
+    assertEquals(Kind.CREATE, batch.get(b));
+  }
+}
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import meghanada.project.Project;
 import meghanada.reflect.ClassIndex;
 import meghanada.utils.FileUtils;
@@ -123,4 +124,25 @@ public class ProjectDatabaseTest {
           System.out.println(c.getEntityId());
         });
   }
+
+  @Test
+  public void testAsyncStore01() throws Exception {
+    String name = "java.lang.String";
+
+    int count = 5000;
+    List<ClassIndex> lst = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ClassIndex c = new ClassIndex(name + i, Collections.emptyList(), Collections.emptyList());
+      lst.add(c);
+    }
+    timeItF("async store:{}", () -> database.asyncStoreObjects(lst, true));
+    // wait flush
+    database.shutdown();
+
+    database = ProjectDatabase.getInstance();
+    long size = database.size(ClassIndex.ENTITY_TYPE);
+    assertEquals(count, size);
+    Map<String, Object> metrics = database.getMetrics();
+    assertEquals(0, metrics.get("store-queue-depth"));
+  }
 }
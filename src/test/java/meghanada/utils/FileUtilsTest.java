@@ -1,11 +1,17 @@
 package meghanada.utils;
 
 import static meghanada.config.Config.timeIt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import meghanada.Main;
+import meghanada.store.FileChecksum;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -34,6 +40,26 @@ public class FileUtilsTest {
     System.out.println(sum);
   }
 
+  @Test
+  public void testGetFileChecksum() throws Exception {
+    final File file = File.createTempFile("checksum", ".java");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "class A {}".getBytes(StandardCharsets.UTF_8));
+    assertTrue(file.setLastModified(System.currentTimeMillis() - 60_000));
+
+    final String root = file.getParent();
+    final FileChecksum first = FileUtils.getFileChecksum(root, file, null);
+    assertEquals(FileUtils.getChecksum(file), first.getChecksum());
+    // same attributes, not hashed again
+    assertSame(first, FileUtils.getFileChecksum(root, file, first));
+
+    Files.write(file.toPath(), "class B {}".getBytes(StandardCharsets.UTF_8));
+    final FileChecksum second = FileUtils.getFileChecksum(root, file, first);
+    assertFalse(first.isSameContent(second));
+    // written just now, attributes must not be trusted
+    assertEquals(-1, second.getLastModified());
+  }
+
   @Ignore
   @Test
   public void testGetVersionInfo() throws Exception {